@@ -47,7 +47,7 @@ import java.util.*;
  * <li>String name: attribute name</li>
  * <li>String description: a textual description</li>
  * <li>Scale scale: list of values that can be assigned to the attribute</li>
- * <li>ArrayList<Rule> function: utility function</li>
+ * <li>FunctionTable function: utility function, a compact table of rules</li>
  * <li>ArrayList<Attribute> attributes: array of the attribute's immediate
  * descendants in attribute hierarchy</li>
  * <li>Attribute link: linked attribute (considered "logically" the same as this
@@ -63,7 +63,7 @@ public class Attribute {
     private Boolean completeness;
     private Boolean explicitness;
     private String name;
-    private ArrayList<Rule> function = null;
+    private FunctionTable function = null;
     private Value value;
     private Distribution distr;
     private Scale scale = null;
@@ -119,6 +119,43 @@ public class Attribute {
         checkCompleteness();
     }
 
+    /**
+     * Constructor from already parsed components, used by streaming model
+     * loading (ModelReader).
+     * 
+     * @param aName
+     *            Attribute name.
+     * @param aDescription
+     *            Description, null if none.
+     * @param aScale
+     *            Scale, null if none.
+     * @param low
+     *            FUNCTION/LOW string, null if there is no function.
+     * @param high
+     *            FUNCTION/HIGH string, null if equal to low.
+     * @param entered
+     *            FUNCTION/ENTERED string, null if all rules are entered.
+     * @param aAttributes
+     *            Immediate descendants.
+     */
+    protected Attribute(final String aName, final String aDescription,
+            final Scale aScale, final String low, final String high,
+            final String entered, ArrayList<Attribute> aAttributes) {
+        if (aName == null) {
+            throw new IllegalArgumentException("Attribute: Name is undefined");
+        }
+        setName(aName);
+        setDescription(aDescription);
+        scale = aScale;
+        attributes = aAttributes;
+        if (low != null) {
+            parseFunction(low, high, entered);
+        }
+
+        checkExplicitness();
+        checkCompleteness();
+    }
+
     /**
      * Parse function from XML.
      * 
@@ -130,7 +167,6 @@ public class Attribute {
         String low = null;
         String high = null;
         String entered = null;
-        function = new ArrayList<Rule>();
 
         for (int x = 0; x < nodes.getLength(); x++) {
             Node funNode = nodes.item(x);
@@ -143,13 +179,28 @@ public class Attribute {
                 entered = funNode.getFirstChild().getNodeValue();
             }
         }
+        parseFunction(low, high, entered);
+    }
+
+    /**
+     * Make function rules from FUNCTION strings.
+     * 
+     * @param low
+     *            LOW string.
+     * @param high
+     *            HIGH string, null if equal to low.
+     * @param entered
+     *            ENTERED string, null if all rules are entered.
+     */
+    private void parseFunction(final String low, String high,
+            final String entered) {
         if (high == null) {
             high = low;
         }
 
-        Integer[] iLow = parseFunction(low);
-        Integer[] iHigh = parseFunction(high);
-        Boolean[] bEntered = null;
+        int[] iLow = parseFunction(low);
+        int[] iHigh = parseFunction(high);
+        boolean[] bEntered = null;
         if (entered != null) {
             bEntered = parseEntered(entered);
         }
@@ -160,11 +211,7 @@ public class Attribute {
                     "Attribute: high.length != low.length");
         }
 
-        for (int l = 0; l < iLow.length; l++) {
-            Rule rule = new Rule(iLow[l], iHigh[l], new Boolean(
-                    (bEntered == null) || bEntered[l].booleanValue()));
-            function.add(rule);
-        }
+        function = new FunctionTable(iLow, iHigh, bEntered);
     }
 
     /**
@@ -172,18 +219,21 @@ public class Attribute {
      * 
      * @param value
      *            String object parameter
-     * @return Array of Integer objects
+     * @return Array of ordinal values
      */
-    private static Integer[] parseFunction(final String value) {
-        Integer[] integer = null;
-        char[] chars = value.toCharArray();
-        integer = new Integer[chars.length];
-
-        for (int i = 0; i < chars.length; i++) {
-            integer[i] = new Integer(new String(chars, i, 1));
+    private static int[] parseFunction(final String value) {
+        int[] values = new int[value.length()];
+
+        for (int i = 0; i < values.length; i++) {
+            int digit = Character.digit(value.charAt(i), 10);
+            if (digit < 0) {
+                throw new NumberFormatException("For input string: \""
+                        + value.charAt(i) + "\"");
+            }
+            values[i] = digit;
         }
 
-        return integer;
+        return values;
     }
 
     /**
@@ -191,21 +241,13 @@ public class Attribute {
      * 
      * @param value
      *            String object parameter
-     * @return Array of Boolean objects
+     * @return Array of entered flags
      */
-    private static Boolean[] parseEntered(final String value) {
-        Boolean[] entered = null;
-        char[] chars = value.toCharArray();
-        entered = new Boolean[chars.length];
-
-        for (int i = 0; i < chars.length; i++) {
-            String strEntered = new String(chars, i, 1);
+    private static boolean[] parseEntered(final String value) {
+        boolean[] entered = new boolean[value.length()];
 
-            if (strEntered.equals("+")) {
-                entered[i] = new Boolean(true);
-            } else {
-                entered[i] = new Boolean(false);
-            }
+        for (int i = 0; i < entered.length; i++) {
+            entered[i] = value.charAt(i) == '+';
         }
         return entered;
     }
@@ -246,11 +288,7 @@ public class Attribute {
         }
 
         if (function != null) {
-            for (int f = 0; f < function.size(); f++) {
-                Rule rule = function.get(f);
-                isExplicit = isExplicit
-                        && rule.getExplicitness().booleanValue();
-            }
+            isExplicit = isExplicit && function.isExplicit();
         }
         setExplicitness(new Boolean(isExplicit));
     }
@@ -388,8 +426,7 @@ public class Attribute {
                 factor = factor * subSize;
             }
 
-            Rule rule = function.get(index);
-            setValue(scale.findValue(rule.getLow()));
+            setValue(scale.findValue(Integer.valueOf(function.getLow(index))));
         }
     }
 
@@ -721,14 +758,60 @@ public class Attribute {
         return this.attributes.size();
     }
 
+    /**
+     * Get the index-th immediate descendant.
+     * 
+     * @param index
+     * @return Attribute
+     */
+    public Attribute getAttribute(final int index) {
+        return this.attributes.get(index);
+    }
+
+    /**
+     * Get low ordinal values of all function rules, in rule order.
+     * 
+     * @return int[], null if there is no function.
+     */
+    protected int[] getFunctionLow() {
+        if (function == null) {
+            return null;
+        }
+        return function.getLow();
+    }
+
+    /**
+     * Get high ordinal values of all function rules, in rule order.
+     * 
+     * @return int[], null if there is no function.
+     */
+    protected int[] getFunctionHigh() {
+        if (function == null) {
+            return null;
+        }
+        return function.getHigh();
+    }
+
     /**
      * Calculate function value with respect to args[].
      * 
      * @param args
      *            Function arguments - ordinal numbers.
-     * @return Rule corresponding to args[].
+     * @return Rule corresponding to args[], a copy made from the function
+     *         table.
      */
     protected Rule functionValue(int[] args) {
+        return function.getRule(functionIndex(args));
+    }
+
+    /**
+     * Calculate the index of the function rule for args[].
+     * 
+     * @param args
+     *            Function arguments - ordinal numbers.
+     * @return int
+     */
+    protected int functionIndex(int[] args) {
         int index = 0;
         int factor = 1;
 
@@ -738,7 +821,7 @@ public class Attribute {
             index = index + (factor * subOrdinal);
             factor = factor * subSize;
         }
-        return function.get(index);
+        return index;
     }
 
     /**
@@ -809,9 +892,9 @@ public class Attribute {
             }
 
             double factor = distributionValue(args, evalType);
-            Rule rule = functionValue(args);
-            int low = rule.getLow().intValue();
-            int high = rule.getHigh().intValue();
+            int index = functionIndex(args);
+            int low = function.getLow(index);
+            int high = function.getHigh(index);
             if (evalType == Model.Evaluation.PROB && low < high) {
                 factor /= high - low + 1;
             }
@@ -975,6 +1058,21 @@ public class Attribute {
         this.distr = null;
     }
 
+    /**
+     * Set both values, as saved from an earlier evaluation. Unlike setValue()
+     * and setDistr(), no checks are made and the objects are used as given.
+     * 
+     * @param aValue
+     *            Value object or null.
+     * @param distribution
+     *            Distribution object or null.
+     */
+    protected void restoreValues(final Value aValue,
+            final Distribution distribution) {
+        this.value = aValue;
+        this.distr = distribution;
+    }
+
     /**
      * Set value distribution.
      * 
@@ -1124,7 +1222,7 @@ public class Attribute {
             for (int f = 0; f < function.size(); f++) {
                 stream.write(("Rules[" + f + "] \n").getBytes());
 
-                Rule rule = function.get(f);
+                Rule rule = function.getRule(f);
                 rule.print(stream);
             }
         }
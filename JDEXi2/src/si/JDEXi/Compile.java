@@ -0,0 +1,81 @@
+////////////////////////////////////////////////////////////////////////////////
+//JDEXi2:   Implements evaluation of decision alternatives based on
+//          qualitative multi-attribute models produced by DEXi software
+//          (http://kt.ijs.si/MarkoBohanec/dexi.html)
+//
+//          Authors: Marko Bohanec, Dusan Omercevic, Andrej Kogovsek
+//          (http://kt.ijs.si/MarkoBohanec/jdexi.html)
+//
+//JDEXi2 library is free software; you can redistribute it and/or
+//modify it under the terms of the GNU Lesser General Public
+//License as published by the Free Software Foundation; either
+//version 2.1 of the License, or (at your option) any later version.
+//
+//This library is distributed in the hope that it will be useful,
+//but WITHOUT ANY WARRANTY; without even the implied warranty of
+//MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+//Lesser General Public License for more details.
+//
+//You should have received a copy of the GNU Lesser General Public
+//License along with this library; if not, write to the Free Software
+//Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+////////////////////////////////////////////////////////////////////////////////
+
+package si.JDEXi;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.file.Paths;
+
+import si.JDEXi.CompiledModel;
+import si.JDEXi.Model;
+
+/**
+ * Compile class. Build-time tool that converts a DEXi model (.dxi file) into
+ * the binary form of CompiledModel, which is loaded by CompiledModel.read().
+ * The model must be fully explicit and complete.
+ *
+ * @version 2.0
+ * @since 2026-10-17
+ */
+public final class Compile {
+
+	/**
+	 * Main class
+	 *
+	 * @param args
+	 *            Input parameters
+	 */
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			System.out.println("JDEX2.Compile: Invalid input arguments");
+			System.out.println("Usage: DEXi_file_name compiled_file_name");
+			System.exit(1);
+		}
+
+		try {
+			Model model = Model.loadModel(Paths.get(args[0]));
+			CompiledModel compiled = model.compile();
+			OutputStream out = new BufferedOutputStream(new FileOutputStream(
+					args[1]));
+			try {
+				compiled.write(out);
+			} finally {
+				out.close();
+			}
+			System.out.println("Compiled " + args[0] + " into " + args[1]
+					+ ": " + compiled.getInputs() + " inputs, "
+					+ compiled.getOutputs() + " outputs");
+		} catch (IOException e) {
+			System.out.println("IO Exception: " + e.getMessage());
+			System.exit(1);
+		} catch (Exception e) {
+			System.out.println("Exception: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+}
@@ -0,0 +1,516 @@
+////////////////////////////////////////////////////////////////////////////////
+//JDEXi2:   Implements evaluation of decision alternatives based on
+//          qualitative multi-attribute models produced by DEXi software
+//          (http://kt.ijs.si/MarkoBohanec/dexi.html)
+//
+//          Authors: Marko Bohanec, Dusan Omercevic, Andrej Kogovsek
+//          (http://kt.ijs.si/MarkoBohanec/jdexi.html)
+//
+//JDEXi2 library is free software; you can redistribute it and/or
+//modify it under the terms of the GNU Lesser General Public
+//License as published by the Free Software Foundation; either
+//version 2.1 of the License, or (at your option) any later version.
+//
+//This library is distributed in the hope that it will be useful,
+//but WITHOUT ANY WARRANTY; without even the implied warranty of
+//MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+//Lesser General Public License for more details.
+//
+//You should have received a copy of the GNU Lesser General Public
+//License along with this library; if not, write to the Free Software
+//Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+////////////////////////////////////////////////////////////////////////////////
+
+package si.JDEXi;
+
+import si.JDEXi.Attribute;
+import si.JDEXi.Model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.util.ArrayList;
+
+/**
+ * CompiledModel class.
+ *
+ * <p>
+ * Immutable, compiled form of a fully explicit and complete Model, for
+ * single-value evaluation of ordinal values. Unlike Model, which keeps
+ * evaluation state in its attributes, CompiledModel keeps no state at all:
+ * all values of an evaluation are held in the input and output arrays passed
+ * by the caller. Any number of threads can therefore evaluate the same
+ * CompiledModel concurrently, each with its own arrays.
+ * </p>
+ *
+ * <p>
+ * Inputs and outputs are addressed by handles, which are indices in the
+ * lists of basic (input) and aggregate (output) attributes of the model,
+ * Model.basic and Model.aggregate. Aggregate attributes are evaluated in an
+ * order in which their arguments are always evaluated first; linked
+ * attributes are evaluated as their links.
+ * </p>
+ *
+ * <p>
+ * A CompiledModel can be saved by write() in a compact binary form, which
+ * read() loads without parsing XML or building any Attribute objects. The
+ * Compile tool makes such files from .dxi files.
+ * </p>
+ *
+ * @version 2.0
+ * @since 2026-10-17
+ */
+public class CompiledModel {
+
+    /**
+     * First four bytes of the binary form: "DXC" and format version 1.
+     */
+    public static final int MAGIC = 0x44584301;
+
+    /**
+     * Names and scale sizes of basic and aggregate attributes.
+     */
+    private final String[] inputNames;
+    private final int[] inputSizes;
+    private final String[] outputNames;
+    private final int[] outputSizes;
+
+    /**
+     * Evaluation program: in step s, aggregate attribute target[s] is
+     * evaluated by function[s], whose arguments have scale sizes sizes[s] and
+     * values in args[s]. An argument a &gt;= 0 denotes inputs[a]; an argument a
+     * &lt; 0 denotes outputs[~a].
+     */
+    private final int[] target;
+    private final int[][] args;
+    private final int[][] sizes;
+    private final int[][] function;
+
+    /**
+     * Compiles model.
+     *
+     * @param model
+     *            Fully explicit and complete model.
+     */
+    public CompiledModel(Model model) {
+
+        if (!model.getExplicitness().booleanValue()) {
+            throw new IllegalStateException(
+                    "CompiledModel: Explicitness is false");
+        }
+        if (!model.getCompleteness().booleanValue()) {
+            throw new IllegalStateException(
+                    "CompiledModel: Completeness is false");
+        }
+
+        inputNames = model.inputs();
+        inputSizes = scaleSizes(model.basic);
+        outputNames = model.outputs();
+        outputSizes = scaleSizes(model.aggregate);
+
+        ArrayList<Attribute> order = new ArrayList<Attribute>();
+        for (int i = 0; i < model.aggregate.size(); i++) {
+            orderAggregates(model.aggregate.get(i), order);
+        }
+
+        int steps = order.size();
+        target = new int[steps];
+        args = new int[steps][];
+        sizes = new int[steps][];
+        function = new int[steps][];
+        for (int s = 0; s < steps; s++) {
+            Attribute att = order.get(s);
+            target[s] = model.aggregate.indexOf(att);
+            args[s] = new int[att.getInputs()];
+            sizes[s] = new int[att.getInputs()];
+            for (int i = 0; i < att.getInputs(); i++) {
+                Attribute arg = att.getAttribute(i);
+                args[s][i] = argument(model, arg);
+                sizes[s][i] = arg.getScaleSize().intValue();
+            }
+            function[s] = att.getFunctionLow();
+        }
+    }
+
+    /**
+     * Constructor from already loaded components, used by read().
+     */
+    private CompiledModel(final String[] aInputNames, final int[] aInputSizes,
+            final String[] aOutputNames, final int[] aOutputSizes,
+            final int[] aTarget, final int[][] aArgs, final int[][] aSizes,
+            final int[][] aFunction) {
+        inputNames = aInputNames;
+        inputSizes = aInputSizes;
+        outputNames = aOutputNames;
+        outputSizes = aOutputSizes;
+        target = aTarget;
+        args = aArgs;
+        sizes = aSizes;
+        function = aFunction;
+    }
+
+    private static int[] scaleSizes(ArrayList<Attribute> aList) {
+        int[] sizes = new int[aList.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = aList.get(i).getScaleSize().intValue();
+        }
+        return sizes;
+    }
+
+    /**
+     * Add aggregate attributes of the subtree of att to order, after all
+     * attributes their values depend on.
+     *
+     * @param att
+     * @param order
+     */
+    private static void orderAggregates(Attribute att,
+            ArrayList<Attribute> order) {
+        if (att.getLink() != null) {
+            orderAggregates(att.getLink(), order);
+            return;
+        }
+        if (att.getInputs() == 0 || order.contains(att)) {
+            return;
+        }
+        for (int i = 0; i < att.getInputs(); i++) {
+            orderAggregates(att.getAttribute(i), order);
+        }
+        order.add(att);
+    }
+
+    /**
+     * Encode the value of att as an argument of the program.
+     *
+     * @param model
+     * @param att
+     * @return int
+     */
+    private static int argument(Model model, Attribute att) {
+        while (att.getLink() != null) {
+            att = att.getLink();
+        }
+        int i = model.basic.indexOf(att);
+        return i >= 0 ? i : ~model.aggregate.indexOf(att);
+    }
+
+    /**
+     * Get the number of basic (input) attributes.
+     *
+     * @return int
+     */
+    public int getInputs() {
+        return inputNames.length;
+    }
+
+    /**
+     * Get the number of aggregate (output) attributes.
+     *
+     * @return int
+     */
+    public int getOutputs() {
+        return outputNames.length;
+    }
+
+    /**
+     * Get the name of an input attribute.
+     *
+     * @param handle
+     * @return String
+     */
+    public String getInputName(final int handle) {
+        return inputNames[handle];
+    }
+
+    /**
+     * Get the name of an output attribute.
+     *
+     * @param handle
+     * @return String
+     */
+    public String getOutputName(final int handle) {
+        return outputNames[handle];
+    }
+
+    /**
+     * Get the scale size of an input attribute.
+     *
+     * @param handle
+     * @return int
+     */
+    public int getInputScaleSize(final int handle) {
+        return inputSizes[handle];
+    }
+
+    /**
+     * Get the scale size of an output attribute.
+     *
+     * @param handle
+     * @return int
+     */
+    public int getOutputScaleSize(final int handle) {
+        return outputSizes[handle];
+    }
+
+    /**
+     * Get the handle of a basic (input) attribute.
+     *
+     * @param name
+     *            Attribute name.
+     * @return Index of the attribute in the list of basic attributes.
+     */
+    public int getInputHandle(final String name) {
+        for (int i = 0; i < inputNames.length; i++) {
+            if (inputNames[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(
+                "CompiledModel.getInputHandle: Unknown attribute name: " + name);
+    }
+
+    /**
+     * Get the handle of an aggregate (output) attribute.
+     *
+     * @param name
+     *            Attribute name.
+     * @return Index of the attribute in the list of aggregate attributes.
+     */
+    public int getOutputHandle(final String name) {
+        for (int i = 0; i < outputNames.length; i++) {
+            if (outputNames[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(
+                "CompiledModel.getOutputHandle: Unknown attribute name: "
+                        + name);
+    }
+
+    /**
+     * Evaluate ordinal values of input attributes into ordinal values of
+     * output attributes. Only the arrays passed are used and changed, so
+     * concurrent calls with different arrays do not interfere.
+     *
+     * @param inputs
+     *            Ordinal values of input attributes, indexed by input handles.
+     * @param outputs
+     *            Array receiving ordinal values of output attributes, indexed
+     *            by output handles; its length must be at least getOutputs().
+     */
+    public void evaluate(final int[] inputs, final int[] outputs) {
+
+        for (int i = 0; i < inputSizes.length; i++) {
+            int ord = inputs[i];
+            if (ord < 0 || ord >= inputSizes[i]) {
+                throw new IllegalArgumentException(
+                        "CompiledModel.evaluate: Unknown value ordinal: "
+                                + Integer.toString(ord));
+            }
+        }
+        for (int s = 0; s < target.length; s++) {
+            int[] a = args[s];
+            int[] n = sizes[s];
+            int index = 0;
+            for (int i = 0; i < a.length; i++) {
+                int arg = a[i];
+                index = index * n[i] + (arg >= 0 ? inputs[arg] : outputs[~arg]);
+            }
+            outputs[target[s]] = function[s][index];
+        }
+    }
+
+    /**
+     * Write the binary form of this compiled model: MAGIC, names and scale
+     * sizes of inputs and outputs, and the evaluation program. Function
+     * values are written as single bytes, or as shorts for outputs with more
+     * than 256 values.
+     *
+     * @param stream
+     *            OutputStream; it is flushed but not closed.
+     * @throws IOException
+     */
+    public void write(final OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        writeNames(out, inputNames, inputSizes);
+        writeNames(out, outputNames, outputSizes);
+        out.writeInt(target.length);
+        for (int s = 0; s < target.length; s++) {
+            out.writeShort(target[s]);
+            out.writeShort(args[s].length);
+            for (int i = 0; i < args[s].length; i++) {
+                out.writeShort(args[s][i]);
+                out.writeShort(sizes[s][i]);
+            }
+            int[] f = function[s];
+            out.writeInt(f.length);
+            boolean wide = outputSizes[target[s]] > 256;
+            for (int i = 0; i < f.length; i++) {
+                if (wide) {
+                    out.writeShort(f[i]);
+                } else {
+                    out.writeByte(f[i]);
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeNames(DataOutputStream out, String[] names,
+            int[] scaleSizes) throws IOException {
+        out.writeShort(names.length);
+        for (int i = 0; i < names.length; i++) {
+            out.writeUTF(names[i]);
+            out.writeShort(scaleSizes[i]);
+        }
+    }
+
+    /**
+     * Read a compiled model in the binary form made by write().
+     *
+     * @param stream
+     *            InputStream; it is not closed.
+     * @return CompiledModel
+     * @throws IOException
+     *             If the stream cannot be read or does not contain a
+     *             compiled model.
+     */
+    public static CompiledModel read(final InputStream stream)
+            throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("CompiledModel: Not a compiled model");
+        }
+        String[] inputNames = new String[in.readUnsignedShort()];
+        int[] inputSizes = new int[inputNames.length];
+        readNames(in, inputNames, inputSizes);
+        String[] outputNames = new String[in.readUnsignedShort()];
+        int[] outputSizes = new int[outputNames.length];
+        readNames(in, outputNames, outputSizes);
+
+        int steps = in.readInt();
+        if (steps < 0) {
+            throw new IOException("CompiledModel: Invalid program");
+        }
+        // outputs evaluated by earlier steps, the only ones usable as arguments
+        boolean[] evaluated = new boolean[outputNames.length];
+        int[] target = new int[steps];
+        int[][] args = new int[steps][];
+        int[][] sizes = new int[steps][];
+        int[][] function = new int[steps][];
+        for (int s = 0; s < steps; s++) {
+            target[s] = in.readUnsignedShort();
+            if (target[s] >= outputNames.length) {
+                throw new IOException("CompiledModel: Invalid program");
+            }
+            args[s] = new int[in.readUnsignedShort()];
+            sizes[s] = new int[args[s].length];
+            long size = 1;
+            for (int i = 0; i < args[s].length; i++) {
+                int arg = in.readShort();
+                args[s][i] = arg;
+                sizes[s][i] = in.readUnsignedShort();
+                if (arg >= 0 ? arg >= inputNames.length
+                        || sizes[s][i] != inputSizes[arg]
+                        : ~arg >= outputNames.length || !evaluated[~arg]
+                                || sizes[s][i] != outputSizes[~arg]) {
+                    throw new IOException("CompiledModel: Invalid program");
+                }
+                size *= sizes[s][i];
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException(
+                            "CompiledModel: Invalid function size");
+                }
+            }
+            int length = in.readInt();
+            if (length != size) {
+                throw new IOException(
+                        "CompiledModel: Invalid function size");
+            }
+            function[s] = new int[length];
+            boolean wide = outputSizes[target[s]] > 256;
+            for (int i = 0; i < function[s].length; i++) {
+                function[s][i] = wide ? in.readUnsignedShort() : in
+                        .readUnsignedByte();
+                if (function[s][i] >= outputSizes[target[s]]) {
+                    throw new IOException("CompiledModel: Invalid program");
+                }
+            }
+            evaluated[target[s]] = true;
+        }
+        for (int j = 0; j < outputNames.length; j++) {
+            if (!evaluated[j]) {
+                throw new IOException("CompiledModel: Invalid program");
+            }
+        }
+        return new CompiledModel(inputNames, inputSizes, outputNames,
+                outputSizes, target, args, sizes, function);
+    }
+
+    private static void readNames(DataInputStream in, String[] names,
+            int[] scaleSizes) throws IOException {
+        for (int i = 0; i < names.length; i++) {
+            names[i] = in.readUTF();
+            scaleSizes[i] = in.readUnsignedShort();
+        }
+    }
+
+    /**
+     * Batch evaluation of count alternatives given in columns: element r of
+     * each input column holds the ordinal value of alternative r. Each
+     * aggregate attribute is evaluated for all alternatives in turn, by tight
+     * loops over columns. Like evaluate(int[], int[]), this method uses and
+     * changes only the arrays passed.
+     *
+     * @param inputs
+     *            Input columns, indexed by input handles, each of length at
+     *            least count.
+     * @param outputs
+     *            Output columns receiving ordinal values, indexed by output
+     *            handles, each of length at least count. All output columns
+     *            are needed, as intermediate aggregate values are arguments of
+     *            further evaluation.
+     * @param count
+     *            Number of alternatives.
+     */
+    public void evaluate(final int[][] inputs, final int[][] outputs,
+            final int count) {
+
+        for (int i = 0; i < inputSizes.length; i++) {
+            int[] col = inputs[i];
+            int size = inputSizes[i];
+            for (int r = 0; r < count; r++) {
+                if (col[r] < 0 || col[r] >= size) {
+                    throw new IllegalArgumentException(
+                            "CompiledModel.evaluate: Unknown value ordinal: "
+                                    + Integer.toString(col[r]));
+                }
+            }
+        }
+        for (int s = 0; s < target.length; s++) {
+            int[] a = args[s];
+            int[] n = sizes[s];
+            int[] f = function[s];
+            // the target column first accumulates function indices
+            int[] col = outputs[target[s]];
+            for (int r = 0; r < count; r++) {
+                col[r] = 0;
+            }
+            for (int i = 0; i < a.length; i++) {
+                int[] arg = a[i] >= 0 ? inputs[a[i]] : outputs[~a[i]];
+                int radix = n[i];
+                for (int r = 0; r < count; r++) {
+                    col[r] = col[r] * radix + arg[r];
+                }
+            }
+            for (int r = 0; r < count; r++) {
+                col[r] = f[col[r]];
+            }
+        }
+    }
+
+}
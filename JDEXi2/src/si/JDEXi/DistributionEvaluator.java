@@ -0,0 +1,508 @@
+////////////////////////////////////////////////////////////////////////////////
+//JDEXi2:   Implements evaluation of decision alternatives based on
+//          qualitative multi-attribute models produced by DEXi software
+//          (http://kt.ijs.si/MarkoBohanec/dexi.html)
+//
+//          Authors: Marko Bohanec, Dusan Omercevic, Andrej Kogovsek
+//          (http://kt.ijs.si/MarkoBohanec/jdexi.html)
+//
+//JDEXi2 library is free software; you can redistribute it and/or
+//modify it under the terms of the GNU Lesser General Public
+//License as published by the Free Software Foundation; either
+//version 2.1 of the License, or (at your option) any later version.
+//
+//This library is distributed in the hope that it will be useful,
+//but WITHOUT ANY WARRANTY; without even the implied warranty of
+//MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+//Lesser General Public License for more details.
+//
+//You should have received a copy of the GNU Lesser General Public
+//License along with this library; if not, write to the Free Software
+//Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+////////////////////////////////////////////////////////////////////////////////
+
+package si.JDEXi;
+
+import si.JDEXi.Attribute;
+import si.JDEXi.Model;
+
+import java.util.ArrayList;
+
+/**
+ * DistributionEvaluator class.
+ *
+ * <p>
+ * Fast evaluation of value distributions, equivalent to Model.evaluate(
+ * evalType, normalize) for all three evaluation types (SET, PROB and FUZZY),
+ * but working on primitive arrays. Like Model, it handles incomplete models
+ * and under-specified functions (low/high intervals). Rule low/high values
+ * are precomputed in int arrays, all buffers are allocated once and reused
+ * by all evaluations, and combinations of argument values are enumerated
+ * depth-first with partial factors and function indices, so that a branch
+ * whose factor is 0.0 is skipped as a whole.
+ * </p>
+ *
+ * <p>
+ * Input and output attributes are addressed by handles, which are indices in
+ * Model.basic and Model.aggregate. A DistributionEvaluator is independent of
+ * the Model it was made of, but it is not thread-safe; use one instance per
+ * thread.
+ * </p>
+ *
+ * @version 2.0
+ * @since 2026-10-17
+ */
+public class DistributionEvaluator {
+
+    /**
+     * Names and scale sizes of basic and aggregate attributes; scale size 0
+     * denotes a missing scale.
+     */
+    private final String[] inputNames;
+    private final int[] inputSizes;
+    private final String[] outputNames;
+    private final int[] outputSizes;
+
+    /**
+     * Evaluation program, in the order in which arguments are evaluated
+     * first: in step s, aggregate attribute target[s] is evaluated by the
+     * function with rules low[s]/high[s], whose arguments have scale sizes
+     * sizes[s]. An argument a &gt;= 0 denotes input a, a &lt; 0 denotes
+     * output ~a. Aggregate attributes without scale or function are not
+     * evaluated.
+     */
+    private final int[] target;
+    private final int[][] args;
+    private final int[][] sizes;
+    private final int[][] low;
+    private final int[][] high;
+
+    /**
+     * Distributions of inputs and outputs of the last evaluation; null
+     * distributions are undefined.
+     */
+    private final double[][] inputBuffers;
+    private final double[][] outputBuffers;
+    private final double[][] inputs;
+    private final double[][] outputs;
+
+    /**
+     * Enumeration buffers, sized for the largest function: argument
+     * distributions, indices of their non-zero elements and their counts,
+     * current positions, partial function indices and partial factors.
+     */
+    private final double[][] argDistr;
+    private final int[][] argSet;
+    private final int[] argCount;
+    private final int[] position;
+    private final int[] partialIndex;
+    private final double[] partialFactor;
+
+    /**
+     * Makes an evaluator of model.
+     *
+     * @param model
+     */
+    public DistributionEvaluator(Model model) {
+
+        inputNames = model.inputs();
+        inputSizes = scaleSizes(model.basic);
+        outputNames = model.outputs();
+        outputSizes = scaleSizes(model.aggregate);
+
+        ArrayList<Attribute> order = new ArrayList<Attribute>();
+        for (int i = 0; i < model.aggregate.size(); i++) {
+            orderAggregates(model.aggregate.get(i), order);
+        }
+
+        int steps = order.size();
+        target = new int[steps];
+        args = new int[steps][];
+        sizes = new int[steps][];
+        low = new int[steps][];
+        high = new int[steps][];
+        int maxArgs = 0;
+        int maxSize = 0;
+        for (int s = 0; s < steps; s++) {
+            Attribute att = order.get(s);
+            target[s] = model.aggregate.indexOf(att);
+            args[s] = new int[att.getInputs()];
+            sizes[s] = new int[att.getInputs()];
+            for (int i = 0; i < att.getInputs(); i++) {
+                Attribute arg = att.getAttribute(i);
+                args[s][i] = argument(model, arg);
+                sizes[s][i] = arg.getScaleSize().intValue();
+                maxSize = Math.max(maxSize, args[s][i] >= 0 ?
+                        inputSizes[args[s][i]] : outputSizes[~args[s][i]]);
+            }
+            low[s] = att.getFunctionLow();
+            high[s] = att.getFunctionHigh();
+            maxArgs = Math.max(maxArgs, att.getInputs());
+        }
+
+        inputBuffers = new double[inputSizes.length][];
+        for (int i = 0; i < inputSizes.length; i++) {
+            inputBuffers[i] = new double[inputSizes[i]];
+        }
+        outputBuffers = new double[outputSizes.length][];
+        for (int i = 0; i < outputSizes.length; i++) {
+            outputBuffers[i] = new double[outputSizes[i]];
+        }
+        inputs = new double[inputSizes.length][];
+        outputs = new double[outputSizes.length][];
+
+        argDistr = new double[maxArgs][];
+        argSet = new int[maxArgs][maxSize];
+        argCount = new int[maxArgs];
+        position = new int[maxArgs];
+        partialIndex = new int[maxArgs + 1];
+        partialFactor = new double[maxArgs + 1];
+    }
+
+    private static int[] scaleSizes(ArrayList<Attribute> aList) {
+        int[] sizes = new int[aList.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = aList.get(i).getScaleSize().intValue();
+        }
+        return sizes;
+    }
+
+    /**
+     * Add evaluable aggregate attributes of the subtree of att to order,
+     * after all attributes their values depend on.
+     *
+     * @param att
+     * @param order
+     */
+    private static void orderAggregates(Attribute att,
+            ArrayList<Attribute> order) {
+        if (att.getLink() != null) {
+            orderAggregates(att.getLink(), order);
+            return;
+        }
+        if (att.getInputs() == 0 || order.contains(att)) {
+            return;
+        }
+        for (int i = 0; i < att.getInputs(); i++) {
+            orderAggregates(att.getAttribute(i), order);
+        }
+        if (att.getScaleSize().intValue() > 0 && att.getFunctionLow() != null) {
+            order.add(att);
+        }
+    }
+
+    /**
+     * Encode the value of att as an argument of the program.
+     *
+     * @param model
+     * @param att
+     * @return int
+     */
+    private static int argument(Model model, Attribute att) {
+        while (att.getLink() != null) {
+            att = att.getLink();
+        }
+        int i = model.basic.indexOf(att);
+        return i >= 0 ? i : ~model.aggregate.indexOf(att);
+    }
+
+    /**
+     * Get the number of basic (input) attributes.
+     *
+     * @return int
+     */
+    public int getInputs() {
+        return inputNames.length;
+    }
+
+    /**
+     * Get the number of aggregate (output) attributes.
+     *
+     * @return int
+     */
+    public int getOutputs() {
+        return outputNames.length;
+    }
+
+    /**
+     * Get the scale size of an input attribute.
+     *
+     * @param handle
+     * @return int, 0 if there is no scale.
+     */
+    public int getInputScaleSize(final int handle) {
+        return inputSizes[handle];
+    }
+
+    /**
+     * Get the scale size of an output attribute.
+     *
+     * @param handle
+     * @return int, 0 if there is no scale.
+     */
+    public int getOutputScaleSize(final int handle) {
+        return outputSizes[handle];
+    }
+
+    /**
+     * Get the handle of a basic (input) attribute.
+     *
+     * @param name
+     *            Attribute name.
+     * @return Index of the attribute in the list of basic attributes.
+     */
+    public int getInputHandle(final String name) {
+        for (int i = 0; i < inputNames.length; i++) {
+            if (inputNames[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(
+                "DistributionEvaluator.getInputHandle: Unknown attribute name: "
+                        + name);
+    }
+
+    /**
+     * Get the handle of an aggregate (output) attribute.
+     *
+     * @param name
+     *            Attribute name.
+     * @return Index of the attribute in the list of aggregate attributes.
+     */
+    public int getOutputHandle(final String name) {
+        for (int i = 0; i < outputNames.length; i++) {
+            if (outputNames[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(
+                "DistributionEvaluator.getOutputHandle: Unknown attribute name: "
+                        + name);
+    }
+
+    /**
+     * Evaluate input value distributions into output value distributions,
+     * which can then be retrieved by getOutputDistr() and getOutputValue().
+     *
+     * @param evalType
+     *            Type of evaluation.
+     * @param normalize
+     *            Whether or not distributions are normalized before (for
+     *            input attributes) and after (output attributes) evaluation;
+     *            see Model.evaluate(Model.Evaluation, boolean).
+     * @param distr
+     *            Input distributions, indexed by input handles, each of length
+     *            equal to the attribute's scale size. A null distribution
+     *            stands for an unknown value, that is, the full value set.
+     *            Distributions are copied, not changed.
+     */
+    public void evaluate(Model.Evaluation evalType, boolean normalize,
+            final double[][] distr) {
+
+        for (int i = 0; i < inputSizes.length; i++) {
+            if (inputSizes[i] == 0) {
+                inputs[i] = null;
+                continue;
+            }
+            double[] in = inputBuffers[i];
+            if (distr[i] == null) {
+                for (int j = 0; j < in.length; j++) {
+                    in[j] = 1.0;
+                }
+            } else if (distr[i].length != in.length) {
+                throw new IllegalArgumentException(
+                        "DistributionEvaluator.evaluate: Distribution size does not match scale size");
+            } else {
+                System.arraycopy(distr[i], 0, in, 0, in.length);
+            }
+            if (normalize) {
+                normalize(in, evalType);
+            }
+            inputs[i] = in;
+        }
+
+        for (int i = 0; i < outputs.length; i++) {
+            outputs[i] = null;
+        }
+        for (int s = 0; s < target.length; s++) {
+            calculate(s, evalType);
+        }
+
+        if (normalize) {
+            for (int i = 0; i < outputs.length; i++) {
+                if (outputs[i] != null) {
+                    normalize(outputs[i], evalType);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculate the output distribution of step s.
+     *
+     * @param s
+     * @param evalType
+     */
+    private void calculate(final int s, final Model.Evaluation evalType) {
+
+        int[] a = args[s];
+        int k = a.length;
+        for (int i = 0; i < k; i++) {
+            double[] d = a[i] >= 0 ? inputs[a[i]] : outputs[~a[i]];
+            if (d == null) {
+                return;
+            }
+            int count = 0;
+            for (int j = 0; j < d.length; j++) {
+                if (d[j] != 0.0) {
+                    argSet[i][count++] = j;
+                }
+            }
+            if (count == 0) {
+                return;
+            }
+            argDistr[i] = d;
+            argCount[i] = count;
+            position[i] = 0;
+        }
+
+        double[] out = outputBuffers[target[s]];
+        for (int j = 0; j < out.length; j++) {
+            out[j] = 0.0;
+        }
+        int[] radix = sizes[s];
+        int[] lo = low[s];
+        int[] hi = high[s];
+        boolean set = evalType == Model.Evaluation.SET;
+        boolean prob = evalType == Model.Evaluation.PROB;
+
+        partialIndex[0] = 0;
+        partialFactor[0] = 1.0;
+        int d = 0;
+        while (d >= 0) {
+            if (position[d] == argCount[d]) {
+                position[d] = 0;
+                if (--d >= 0) {
+                    position[d]++;
+                }
+                continue;
+            }
+            int v = argSet[d][position[d]];
+            double factor = partialFactor[d];
+            if (prob) {
+                factor *= argDistr[d][v];
+            } else if (!set) {
+                factor = Math.min(factor, argDistr[d][v]);
+            }
+            if (factor == 0.0 && !set) {
+                // no mass in any combination of this branch
+                position[d]++;
+                continue;
+            }
+            partialIndex[d + 1] = partialIndex[d] * radix[d] + v;
+            partialFactor[d + 1] = factor;
+            if (d + 1 < k) {
+                d++;
+                continue;
+            }
+
+            int index = partialIndex[k];
+            int l = lo[index];
+            int h = hi[index];
+            if (set) {
+                for (int j = l; j <= h; j++) {
+                    out[j] = 1.0;
+                }
+            } else if (prob) {
+                if (l < h) {
+                    factor /= h - l + 1;
+                }
+                for (int j = l; j <= h; j++) {
+                    out[j] = out[j] + factor;
+                }
+            } else {
+                for (int j = l; j <= h; j++) {
+                    out[j] = Math.max(out[j], factor);
+                }
+            }
+            position[d]++;
+        }
+        outputs[target[s]] = out;
+    }
+
+    /**
+     * Normalize distribution d in place, as Distribution.normalizeSet(),
+     * normalizeSum() and normalizeMax() do for evaluation types SET, PROB and
+     * FUZZY, respectively.
+     *
+     * @param d
+     * @param evalType
+     */
+    private static void normalize(double[] d, Model.Evaluation evalType) {
+        switch (evalType) {
+        case SET:
+            for (int j = 0; j < d.length; j++) {
+                if (d[j] != 0.0) {
+                    d[j] = 1.0;
+                }
+            }
+            break;
+        case PROB:
+            double sum = 0.0;
+            for (int j = 0; j < d.length; j++) {
+                sum += d[j];
+            }
+            for (int j = 0; j < d.length; j++) {
+                d[j] /= sum;
+            }
+            break;
+        case FUZZY:
+            double max = 0.0;
+            for (int j = 0; j < d.length; j++) {
+                max = Math.max(max, d[j]);
+            }
+            for (int j = 0; j < d.length; j++) {
+                d[j] /= max;
+            }
+            break;
+        }
+    }
+
+    /**
+     * Get the value distribution of an output attribute, as evaluated by the
+     * last evaluate(). The returned array is owned by this evaluator and is
+     * overwritten by the next evaluate().
+     *
+     * @param handle
+     * @return double[], null if the distribution is undefined.
+     */
+    public double[] getOutputDistr(final int handle) {
+        return outputs[handle];
+    }
+
+    /**
+     * Get the single value of an output attribute, as evaluated by the last
+     * evaluate().
+     *
+     * @param handle
+     * @return Ordinal value if the distribution has exactly one non-zero
+     *         element, otherwise -1.
+     */
+    public int getOutputValue(final int handle) {
+        double[] d = outputs[handle];
+        if (d == null) {
+            return -1;
+        }
+        int single = -1;
+        for (int j = 0; j < d.length; j++) {
+            if (d[j] != 0.0) {
+                if (single >= 0) {
+                    return -1;
+                }
+                single = j;
+            }
+        }
+        return single;
+    }
+
+}
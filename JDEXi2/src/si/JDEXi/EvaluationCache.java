@@ -0,0 +1,258 @@
+////////////////////////////////////////////////////////////////////////////////
+//JDEXi2:   Implements evaluation of decision alternatives based on
+//          qualitative multi-attribute models produced by DEXi software
+//          (http://kt.ijs.si/MarkoBohanec/dexi.html)
+//
+//          Authors: Marko Bohanec, Dusan Omercevic, Andrej Kogovsek
+//          (http://kt.ijs.si/MarkoBohanec/jdexi.html)
+//
+//JDEXi2 library is free software; you can redistribute it and/or
+//modify it under the terms of the GNU Lesser General Public
+//License as published by the Free Software Foundation; either
+//version 2.1 of the License, or (at your option) any later version.
+//
+//This library is distributed in the hope that it will be useful,
+//but WITHOUT ANY WARRANTY; without even the implied warranty of
+//MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+//Lesser General Public License for more details.
+//
+//You should have received a copy of the GNU Lesser General Public
+//License along with this library; if not, write to the Free Software
+//Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+////////////////////////////////////////////////////////////////////////////////
+
+package si.JDEXi;
+
+import si.JDEXi.Attribute;
+import si.JDEXi.Distribution;
+import si.JDEXi.Model;
+import si.JDEXi.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * EvaluationCache class.
+ *
+ * <p>
+ * Memoization of Model evaluations. Values and distributions of all output
+ * (aggregate and linked) attributes are saved per input signature, which
+ * consists of the input values (single-value evaluation) or the prepared
+ * input distributions, evaluation type and normalization (distribution-based
+ * evaluation). An evaluation with a known signature restores the saved
+ * outputs instead of evaluating the model tree.
+ * </p>
+ *
+ * <p>
+ * The cache holds at most maxSize signatures; the least recently used one is
+ * evicted first. Models cannot be modified, so cached outputs never become
+ * stale.
+ * </p>
+ *
+ * @version 2.0
+ * @since 2026-10-17
+ */
+class EvaluationCache {
+
+    /**
+     * Input signature.
+     */
+    static final class Key {
+
+        private final double[] signature;
+        private final int hash;
+
+        Key(final double[] aSignature) {
+            signature = aSignature;
+            hash = Arrays.hashCode(aSignature);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key
+                    && Arrays.equals(signature, ((Key) obj).signature);
+        }
+    }
+
+    /**
+     * Saved values and distributions of output attributes.
+     */
+    private static final class Outputs {
+
+        private final Value[] values;
+        private final Distribution[] distrs;
+
+        Outputs(final int size) {
+            values = new Value[size];
+            distrs = new Distribution[size];
+        }
+    }
+
+    /**
+     * Output attributes: aggregate, followed by linked ones.
+     */
+    private final Attribute[] outputs;
+
+    private final int maxSize;
+    private final LinkedHashMap<Key, Outputs> entries;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Makes an empty cache.
+     *
+     * @param aMaxSize
+     *            Largest number of cached signatures, at least 1.
+     * @param aggregate
+     *            Aggregate attributes of the model.
+     * @param linked
+     *            Linked attributes of the model.
+     */
+    EvaluationCache(final int aMaxSize, ArrayList<Attribute> aggregate,
+            ArrayList<Attribute> linked) {
+
+        if (aMaxSize < 1) {
+            throw new IllegalArgumentException(
+                    "EvaluationCache: Size must be positive");
+        }
+        maxSize = aMaxSize;
+        outputs = new Attribute[aggregate.size() + linked.size()];
+        for (int i = 0; i < aggregate.size(); i++) {
+            outputs[i] = aggregate.get(i);
+        }
+        for (int i = 0; i < linked.size(); i++) {
+            outputs[aggregate.size() + i] = linked.get(i);
+        }
+        entries = new LinkedHashMap<Key, Outputs>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Outputs> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Make the signature of single-value evaluation.
+     *
+     * @param basic
+     *            Basic attributes of the model.
+     * @return Key, null if some input value is undefined.
+     */
+    Key key(ArrayList<Attribute> basic) {
+        double[] signature = new double[basic.size()];
+        for (int i = 0; i < signature.length; i++) {
+            Value value = basic.get(i).getValue();
+            if (value == null) {
+                return null;
+            }
+            signature[i] = value.getOrdinal().intValue();
+        }
+        return new Key(signature);
+    }
+
+    /**
+     * Make the signature of distribution-based evaluation, from input
+     * distributions prepared for evaluation.
+     *
+     * @param basic
+     *            Basic attributes of the model.
+     * @param evalType
+     * @param normalize
+     * @return Key
+     */
+    Key key(ArrayList<Attribute> basic, Model.Evaluation evalType,
+            boolean normalize) {
+        int length = 2 + basic.size();
+        for (int i = 0; i < basic.size(); i++) {
+            Distribution distr = basic.get(i).getDistr();
+            if (distr != null) {
+                length += distr.size();
+            }
+        }
+        double[] signature = new double[length];
+        int k = 0;
+        // distinct from single-value signatures by length
+        signature[k++] = 1 + evalType.ordinal();
+        signature[k++] = normalize ? 1 : 0;
+        for (int i = 0; i < basic.size(); i++) {
+            Distribution distr = basic.get(i).getDistr();
+            if (distr == null) {
+                signature[k++] = -1;
+                continue;
+            }
+            signature[k++] = distr.size();
+            for (int j = 0; j < distr.size(); j++) {
+                signature[k++] = distr.getValue(j);
+            }
+        }
+        return new Key(signature);
+    }
+
+    /**
+     * Restore output values saved with key.
+     *
+     * @param key
+     * @return true if key was found (a hit).
+     */
+    boolean restore(final Key key) {
+        Outputs saved = entries.get(key);
+        if (saved == null) {
+            misses++;
+            return false;
+        }
+        hits++;
+        for (int i = 0; i < outputs.length; i++) {
+            Distribution distr = saved.distrs[i];
+            outputs[i].restoreValues(saved.values[i],
+                    distr == null ? null : new Distribution(distr));
+        }
+        return true;
+    }
+
+    /**
+     * Save current output values with key.
+     *
+     * @param key
+     */
+    void store(final Key key) {
+        Outputs saved = new Outputs(outputs.length);
+        for (int i = 0; i < outputs.length; i++) {
+            Distribution distr = outputs[i].getDistr();
+            saved.values[i] = outputs[i].getValue();
+            saved.distrs[i] = distr == null ? null : new Distribution(distr);
+        }
+        entries.put(key, saved);
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+}
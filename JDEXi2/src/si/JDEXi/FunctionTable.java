@@ -0,0 +1,223 @@
+////////////////////////////////////////////////////////////////////////////////
+//JDEXi2:   Implements evaluation of decision alternatives based on
+//          qualitative multi-attribute models produced by DEXi software
+//          (http://kt.ijs.si/MarkoBohanec/dexi.html)
+//
+//          Authors: Marko Bohanec, Dusan Omercevic, Andrej Kogovsek
+//          (http://kt.ijs.si/MarkoBohanec/jdexi.html)
+//
+//JDEXi2 library is free software; you can redistribute it and/or
+//modify it under the terms of the GNU Lesser General Public
+//License as published by the Free Software Foundation; either
+//version 2.1 of the License, or (at your option) any later version.
+//
+//This library is distributed in the hope that it will be useful,
+//but WITHOUT ANY WARRANTY; without even the implied warranty of
+//MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+//Lesser General Public License for more details.
+//
+//You should have received a copy of the GNU Lesser General Public
+//License along with this library; if not, write to the Free Software
+//Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+////////////////////////////////////////////////////////////////////////////////
+
+package si.JDEXi;
+
+import si.JDEXi.Rule;
+
+import java.util.BitSet;
+
+/**
+ * FunctionTable class.
+ *
+ * <p>
+ * Compact storage of the rules of a DEXi utility function. Low and high
+ * ordinal values are packed in byte arrays (as unsigned bytes), or in char
+ * arrays when some value exceeds 255; entered and explicit flags are kept in
+ * bit sets. A rule thus takes two or four bytes plus two bits, instead of a
+ * Rule object with four boxed fields. Rule objects are made only on request,
+ * as views of single rules.
+ * </p>
+ *
+ * @version 2.0
+ * @since 2026-10-17
+ */
+public class FunctionTable {
+
+    /**
+     * Largest value that can be stored.
+     */
+    public static final int MAX_VALUE = Character.MAX_VALUE;
+
+    private final int size;
+    private final byte[] byteLow;
+    private final byte[] byteHigh;
+    private final char[] charLow;
+    private final char[] charHigh;
+    private final BitSet entered;
+    private final BitSet explicit;
+
+    /**
+     * Makes a function table, checking rules as Rule does.
+     *
+     * @param low
+     *            Low values of rules.
+     * @param high
+     *            High values of rules, of the same length as low.
+     * @param aEntered
+     *            Entered flags of rules, null if all rules are entered.
+     */
+    public FunctionTable(final int[] low, final int[] high,
+            final boolean[] aEntered) {
+        size = low.length;
+        entered = new BitSet(size);
+        explicit = new BitSet(size);
+        int max = 0;
+        for (int i = 0; i < size; i++) {
+            if (low[i] < 0) {
+                throw new IllegalArgumentException(
+                        "Rules: Low is negative ordinal value");
+            }
+            if (high[i] < 0) {
+                throw new IllegalArgumentException(
+                        "Rules: High is negative ordinal value");
+            }
+            if (low[i] > high[i]) {
+                throw new IllegalArgumentException("Rules: Low > High");
+            }
+            boolean isEntered = aEntered == null || aEntered[i];
+            entered.set(i, isEntered);
+            explicit.set(i, low[i] == high[i] && isEntered);
+            max = Math.max(max, high[i]);
+        }
+        if (max > MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "FunctionTable: Value too large: " + Integer.toString(max));
+        }
+
+        if (max <= 0xFF) {
+            byteLow = new byte[size];
+            byteHigh = new byte[size];
+            for (int i = 0; i < size; i++) {
+                byteLow[i] = (byte) low[i];
+                byteHigh[i] = (byte) high[i];
+            }
+            charLow = null;
+            charHigh = null;
+        } else {
+            charLow = new char[size];
+            charHigh = new char[size];
+            for (int i = 0; i < size; i++) {
+                charLow[i] = (char) low[i];
+                charHigh[i] = (char) high[i];
+            }
+            byteLow = null;
+            byteHigh = null;
+        }
+    }
+
+    /**
+     * Get the number of rules.
+     *
+     * @return int
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the low value of a rule.
+     *
+     * @param index
+     * @return int
+     */
+    public int getLow(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                    + size);
+        }
+        return byteLow != null ? byteLow[index] & 0xFF : charLow[index];
+    }
+
+    /**
+     * Get the high value of a rule.
+     *
+     * @param index
+     * @return int
+     */
+    public int getHigh(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                    + size);
+        }
+        return byteHigh != null ? byteHigh[index] & 0xFF : charHigh[index];
+    }
+
+    /**
+     * Tell whether a rule is entered.
+     *
+     * @param index
+     * @return boolean
+     */
+    public boolean isEntered(final int index) {
+        return entered.get(index);
+    }
+
+    /**
+     * Tell whether a rule is explicit (entered and low == high).
+     *
+     * @param index
+     * @return boolean
+     */
+    public boolean isExplicit(final int index) {
+        return explicit.get(index);
+    }
+
+    /**
+     * Tell whether all rules are explicit.
+     *
+     * @return boolean
+     */
+    public boolean isExplicit() {
+        return explicit.cardinality() == size;
+    }
+
+    /**
+     * Get low values of all rules.
+     *
+     * @return int[]
+     */
+    public int[] getLow() {
+        int[] low = new int[size];
+        for (int i = 0; i < size; i++) {
+            low[i] = byteLow != null ? byteLow[i] & 0xFF : charLow[i];
+        }
+        return low;
+    }
+
+    /**
+     * Get high values of all rules.
+     *
+     * @return int[]
+     */
+    public int[] getHigh() {
+        int[] high = new int[size];
+        for (int i = 0; i < size; i++) {
+            high[i] = byteHigh != null ? byteHigh[i] & 0xFF : charHigh[i];
+        }
+        return high;
+    }
+
+    /**
+     * Get a rule as a Rule object. The object is a copy; changing it does not
+     * change the function.
+     *
+     * @param index
+     * @return Rule
+     */
+    public Rule getRule(final int index) {
+        return new Rule(Integer.valueOf(getLow(index)), Integer
+                .valueOf(getHigh(index)), Boolean.valueOf(isEntered(index)));
+    }
+
+}
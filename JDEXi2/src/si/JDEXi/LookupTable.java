@@ -0,0 +1,201 @@
+////////////////////////////////////////////////////////////////////////////////
+//JDEXi2:   Implements evaluation of decision alternatives based on
+//          qualitative multi-attribute models produced by DEXi software
+//          (http://kt.ijs.si/MarkoBohanec/dexi.html)
+//
+//          Authors: Marko Bohanec, Dusan Omercevic, Andrej Kogovsek
+//          (http://kt.ijs.si/MarkoBohanec/jdexi.html)
+//
+//JDEXi2 library is free software; you can redistribute it and/or
+//modify it under the terms of the GNU Lesser General Public
+//License as published by the Free Software Foundation; either
+//version 2.1 of the License, or (at your option) any later version.
+//
+//This library is distributed in the hope that it will be useful,
+//but WITHOUT ANY WARRANTY; without even the implied warranty of
+//MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+//Lesser General Public License for more details.
+//
+//You should have received a copy of the GNU Lesser General Public
+//License along with this library; if not, write to the Free Software
+//Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+////////////////////////////////////////////////////////////////////////////////
+
+package si.JDEXi;
+
+import si.JDEXi.CompiledModel;
+
+/**
+ * LookupTable class.
+ *
+ * <p>
+ * Flattens a CompiledModel into a single precomputed table of ordinal values
+ * of one output attribute. The table is indexed by the packed ordinal values
+ * of all inputs, in the order of input handles, mixed-radix like DEXi
+ * functions: the last input varies fastest. For example, a model with four
+ * inputs of five values each is flattened into 5^4 = 625 entries.
+ * </p>
+ *
+ * <p>
+ * Single-value evaluation thus becomes one array load, without any object
+ * allocation. LookupTable is immutable and can be shared by threads.
+ * </p>
+ *
+ * @version 2.0
+ * @since 2026-10-17
+ */
+public class LookupTable {
+
+    /**
+     * Largest supported number of table entries.
+     */
+    public static final int MAX_SIZE = 1 << 24;
+
+    /**
+     * Scale sizes of inputs.
+     */
+    private final int[] sizes;
+
+    /**
+     * Output ordinal value for each packed combination of input values.
+     */
+    private final int[] table;
+
+    /**
+     * Name of the output attribute.
+     */
+    private final String name;
+
+    /**
+     * Builds a table of the first root attribute of compiled.
+     *
+     * @param compiled
+     *            Compiled model, see Model.compile().
+     */
+    public LookupTable(CompiledModel compiled) {
+        this(compiled, compiled.getOutputName(0));
+    }
+
+    /**
+     * Builds a table of an aggregate (output) attribute of compiled, which is
+     * evaluated once for each combination of input values. Since
+     * CompiledModel keeps no evaluation state, the Model it was compiled from
+     * is not changed.
+     *
+     * @param compiled
+     *            Compiled model, see Model.compile().
+     * @param output
+     *            Name of the output attribute.
+     */
+    public LookupTable(CompiledModel compiled, final String output) {
+
+        int handle = compiled.getOutputHandle(output);
+        name = output;
+
+        sizes = new int[compiled.getInputs()];
+        long size = 1;
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = compiled.getInputScaleSize(i);
+            size *= sizes[i];
+            if (size > MAX_SIZE) {
+                throw new IllegalArgumentException(
+                        "LookupTable: Too many input combinations");
+            }
+        }
+
+        table = new int[(int) size];
+        int[] args = new int[sizes.length];
+        int[] outputs = new int[compiled.getOutputs()];
+        for (int index = 0; index < table.length; index++) {
+            compiled.evaluate(args, outputs);
+            table[index] = outputs[handle];
+            for (int i = args.length - 1; i >= 0; i--) {
+                if (++args[i] < sizes[i]) {
+                    break;
+                }
+                args[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Get the name of the output attribute.
+     *
+     * @return String
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of table entries.
+     *
+     * @return int
+     */
+    public int size() {
+        return table.length;
+    }
+
+    /**
+     * Get the number of inputs.
+     *
+     * @return int
+     */
+    public int getInputs() {
+        return sizes.length;
+    }
+
+    /**
+     * Get the scale size of the index-th input.
+     *
+     * @param index
+     * @return int
+     */
+    public int getScaleSize(final int index) {
+        return sizes[index];
+    }
+
+    /**
+     * Pack ordinal values of inputs into a table index.
+     *
+     * @param ordinals
+     *            Ordinal values, in the order of input handles.
+     * @return Table index.
+     */
+    public int index(final int[] ordinals) {
+        int index = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            int ord = ordinals[i];
+            if (ord < 0 || ord >= sizes[i]) {
+                throw new IllegalArgumentException(
+                        "LookupTable: Unknown value ordinal: "
+                                + Integer.toString(ord));
+            }
+            index = index * sizes[i] + ord;
+        }
+        return index;
+    }
+
+    /**
+     * Get the output ordinal value of a packed table index.
+     *
+     * @param index
+     *            Table index, see index().
+     * @return Ordinal value.
+     */
+    public int evaluate(final int index) {
+        return table[index];
+    }
+
+    /**
+     * Get the output ordinal value for ordinal values of inputs.
+     *
+     * @param ordinals
+     *            Ordinal values, in the order of input handles.
+     * @return Ordinal value.
+     */
+    public int evaluate(final int[] ordinals) {
+        return table[index(ordinals)];
+    }
+
+}
@@ -53,12 +53,17 @@ import si.JDEXi.Attribute;
 import si.JDEXi.Value;
 import si.JDEXi.VariableList;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringReader;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import java.util.*;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -155,6 +160,28 @@ public class Model {
      */
     public ArrayList<Attribute> linked = null;
 
+    /**
+     * Compiled form of this model, made by compile() on first use.
+     */
+    private CompiledModel compiled = null;
+
+    /**
+     * Memoization of evaluate() results, null when disabled.
+     */
+    private EvaluationCache cache = null;
+
+    /**
+     * Ordinal values of basic attributes of the last single-value evaluation,
+     * null when output values are not the result of that evaluation.
+     */
+    private int[] evaluatedInputs = null;
+
+    /**
+     * For each basic attribute, the aggregate and linked attributes affected
+     * by its value; made by evaluateIncremental() on first use.
+     */
+    private ArrayList<ArrayList<Attribute>> affected = null;
+
     /**
      * Model constructor.
      * 
@@ -163,6 +190,31 @@ public class Model {
      */
     public Model(final String xml) {
         parseXML(xml);
+        classifyAttributes();
+    }
+
+    /**
+     * Model constructor with streaming XML parsing. Builds the same model as
+     * Model(String), but reads the stream directly into attributes, without
+     * an intermediate string or document tree.
+     * 
+     * @param stream
+     *            InputStream, containing DEXi model in standard DEXi XML
+     *            format. The stream is not closed.
+     * @see ModelReader
+     */
+    public Model(final InputStream stream) {
+        ModelReader reader = new ModelReader(stream);
+        attributes = reader.getAttributes();
+        linking = reader.getLinking();
+        classifyAttributes();
+    }
+
+    /**
+     * Link attributes, if required by settings, and make lists of basic,
+     * aggregate and linked attributes.
+     */
+    private void classifyAttributes() {
         ArrayList<Attribute> all = getAllAttributes();
         if (linking)
             linkAttributes(all);
@@ -263,6 +315,7 @@ public class Model {
     public void clearOutputValues() {
         clearAttributeValues(aggregate);
         clearAttributeValues(linked);
+        evaluatedInputs = null;
     }
 
     /**
@@ -779,10 +832,114 @@ public class Model {
 
         clearOutputValues();
 
+        EvaluationCache.Key key = cache == null ? null : cache.key(basic);
+        if (key != null && cache.restore(key)) {
+            evaluatedInputs = inputOrdinals();
+            return;
+        }
+
+        for (int i = 0; i < attributes.size(); i++) {
+            Attribute att = attributes.get(i);
+            att.evaluate();
+        }
+
+        if (key != null) {
+            cache.store(key);
+        }
+        evaluatedInputs = inputOrdinals();
+    }
+
+    /**
+     * Incremental single-value evaluation. Gives the same results as
+     * evaluate(), but re-evaluates only those aggregate and linked attributes
+     * that are affected by basic attributes whose values have changed since
+     * the last evaluate() or evaluateIncremental(). For example, when one
+     * input value is changed at a time, as in sensitivity analysis, only the
+     * path from that input to the root is re-evaluated. When there is no
+     * previous single-value evaluation to start from, for instance after
+     * evaluate(evalType, normalize) or clearOutputValues(), the model is
+     * evaluated fully.
+     */
+    public void evaluateIncremental() {
+
+        int[] current = inputOrdinals();
+        if (evaluatedInputs == null || current == null) {
+            evaluate();
+            return;
+        }
+
+        if (affected == null) {
+            affected = affectedAttributes();
+        }
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != evaluatedInputs[i]) {
+                clearAttributeValues(affected.get(i));
+            }
+        }
+        evaluatedInputs = null;
+
+        // Attribute.evaluate() skips attributes whose values are still set
         for (int i = 0; i < attributes.size(); i++) {
             Attribute att = attributes.get(i);
             att.evaluate();
         }
+        evaluatedInputs = current;
+    }
+
+    /**
+     * Get ordinal values of basic attributes.
+     * 
+     * @return int[], null if some value is undefined.
+     */
+    private int[] inputOrdinals() {
+        int[] ordinals = new int[basic.size()];
+        for (int i = 0; i < ordinals.length; i++) {
+            Value value = basic.get(i).getValue();
+            if (value == null) {
+                return null;
+            }
+            ordinals[i] = value.getOrdinal().intValue();
+        }
+        return ordinals;
+    }
+
+    /**
+     * For each basic attribute, find the aggregate and linked attributes that
+     * depend on it, directly, through descendants or through links.
+     * 
+     * @return List of attribute lists, in the order of basic attributes.
+     */
+    private ArrayList<ArrayList<Attribute>> affectedAttributes() {
+        ArrayList<Attribute> outputs = new ArrayList<Attribute>(aggregate);
+        outputs.addAll(linked);
+
+        ArrayList<ArrayList<Attribute>> result = new ArrayList<ArrayList<Attribute>>();
+        for (int i = 0; i < basic.size(); i++) {
+            ArrayList<Attribute> sources = new ArrayList<Attribute>();
+            sources.add(basic.get(i));
+            ArrayList<Attribute> list = new ArrayList<Attribute>();
+            boolean added = true;
+            while (added) {
+                added = false;
+                for (int j = 0; j < outputs.size(); j++) {
+                    Attribute att = outputs.get(j);
+                    if (list.contains(att)) {
+                        continue;
+                    }
+                    for (int k = 0; k < sources.size(); k++) {
+                        Attribute source = sources.get(k);
+                        if (att.getLink() == source || att.depends(source)) {
+                            list.add(att);
+                            sources.add(att);
+                            added = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            result.add(list);
+        }
+        return result;
     }
 
     /**
@@ -825,6 +982,12 @@ public class Model {
         }
         clearOutputValues();
 
+        EvaluationCache.Key key = cache == null ? null : cache.key(basic,
+                evalType, normalize);
+        if (key != null && cache.restore(key)) {
+            return;
+        }
+
         for (int i = 0; i < attributes.size(); i++) {
             Attribute att = attributes.get(i);
             att.evaluate(evalType, normalize);
@@ -834,6 +997,159 @@ public class Model {
             Attribute att = aggregate.get(i);
             att.prepareOutputDistribution(evalType, normalize);
         }
+
+        if (key != null) {
+            cache.store(key);
+        }
+    }
+
+    /**
+     * Enable or disable memoization of evaluate() and evaluate(evalType,
+     * normalize). With memoization, output values and distributions are saved
+     * for each combination of input values (or prepared input distributions,
+     * evaluation type and normalization) and restored without evaluation when
+     * the same combination is evaluated again. At most size combinations are
+     * kept; the least recently used one is evicted first. Memoization is
+     * disabled by default.
+     * 
+     * @param size
+     *            Largest number of cached combinations; 0 disables
+     *            memoization and drops the cache.
+     */
+    public void setCacheSize(final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException(
+                    "Model.setCacheSize: Negative size: "
+                            + Integer.toString(size));
+        }
+        cache = size == 0 ? null : new EvaluationCache(size, aggregate,
+                linked);
+    }
+
+    /**
+     * Get the largest number of cached input combinations.
+     * 
+     * @return int, 0 if memoization is disabled.
+     */
+    public int getCacheSize() {
+        return cache == null ? 0 : cache.getMaxSize();
+    }
+
+    /**
+     * Get the number of evaluations whose outputs were restored from cache.
+     * 
+     * @return long
+     */
+    public long getCacheHits() {
+        return cache == null ? 0 : cache.getHits();
+    }
+
+    /**
+     * Get the number of cacheable evaluations that had to be carried out.
+     * 
+     * @return long
+     */
+    public long getCacheMisses() {
+        return cache == null ? 0 : cache.getMisses();
+    }
+
+    /**
+     * Drop all cached outputs and reset hit and miss counters.
+     */
+    public void clearCache() {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Get a handle of a basic (input) attribute for use with primitive
+     * evaluate(int[], int[]). Handles are resolved once, so that evaluation
+     * itself involves no name lookups.
+     * 
+     * @param name
+     *            Attribute name.
+     * @return Index of the attribute in the list of basic attributes.
+     */
+    public int getInputHandle(final String name) {
+        Attribute att = findAttribute(name, basic);
+        if (att == null) {
+            throw new IllegalArgumentException(
+                    "Model.getInputHandle: Unknown attribute name: " + name);
+        }
+        return basic.indexOf(att);
+    }
+
+    /**
+     * Get a handle of an aggregate (output) attribute for use with primitive
+     * evaluate(int[], int[]).
+     * 
+     * @param name
+     *            Attribute name.
+     * @return Index of the attribute in the list of aggregate attributes.
+     */
+    public int getOutputHandle(final String name) {
+        Attribute att = findAttribute(name, aggregate);
+        if (att == null) {
+            throw new IllegalArgumentException(
+                    "Model.getOutputHandle: Unknown attribute name: " + name);
+        }
+        return aggregate.indexOf(att);
+    }
+
+    /**
+     * Primitive fast evaluation method. Evaluates ordinal values of basic
+     * attributes into ordinal values of aggregate attributes, without name
+     * lookups, boxing or allocation of Value objects. Like evaluate(), this
+     * method requires a fully explicit and complete model. It does not use or
+     * change values set by setInputValue(s) methods, nor output values
+     * retrieved by getOutputValue(s) methods.
+     * 
+     * @param inputs
+     *            Ordinal values of basic attributes, indexed by input handles
+     *            (the order of basic attributes).
+     * @param outputs
+     *            Array receiving ordinal values of aggregate attributes,
+     *            indexed by output handles (the order of aggregate
+     *            attributes).
+     */
+    public void evaluate(final int[] inputs, final int[] outputs) {
+        compile().evaluate(inputs, outputs);
+    }
+
+    /**
+     * Primitive batch evaluation method. Evaluates count alternatives whose
+     * ordinal values of basic attributes are given in columns, one column per
+     * basic attribute, into columns of ordinal values of all aggregate
+     * attributes, including intermediate ones. Like evaluate(int[], int[]),
+     * this method requires a fully explicit and complete model.
+     * 
+     * @param inputs
+     *            Input columns, indexed by input handles.
+     * @param outputs
+     *            Output columns, indexed by output handles.
+     * @param count
+     *            Number of alternatives (rows of columns).
+     * @see CompiledModel#evaluate(int[][], int[][], int)
+     */
+    public void evaluate(final int[][] inputs, final int[][] outputs,
+            final int count) {
+        compile().evaluate(inputs, outputs, count);
+    }
+
+    /**
+     * Get the compiled form of this model, which is made on first call. The
+     * compiled model is immutable and can be used by any number of threads,
+     * independently of this model.
+     * 
+     * @return CompiledModel
+     * @see CompiledModel
+     */
+    public CompiledModel compile() {
+        if (compiled == null) {
+            compiled = new CompiledModel(this);
+        }
+        return compiled;
     }
 
     /**
@@ -1041,6 +1357,24 @@ public class Model {
         }
     }
 
+    /**
+     * Load a model from a .dxi file by streaming XML parsing.
+     * 
+     * @param path
+     *            File path
+     * @return Model object
+     * @throws IOException
+     *             Throws exception if the file cannot be read
+     */
+    public static Model loadModel(final Path path) throws IOException {
+        InputStream stream = new BufferedInputStream(Files.newInputStream(path));
+        try {
+            return new Model(stream);
+        } finally {
+            stream.close();
+        }
+    }
+
     /**
      * Read content of file and return String object
      * 
@@ -0,0 +1,317 @@
+////////////////////////////////////////////////////////////////////////////////
+//JDEXi2:   Implements evaluation of decision alternatives based on
+//          qualitative multi-attribute models produced by DEXi software
+//          (http://kt.ijs.si/MarkoBohanec/dexi.html)
+//
+//          Authors: Marko Bohanec, Dusan Omercevic, Andrej Kogovsek
+//          (http://kt.ijs.si/MarkoBohanec/jdexi.html)
+//
+//JDEXi2 library is free software; you can redistribute it and/or
+//modify it under the terms of the GNU Lesser General Public
+//License as published by the Free Software Foundation; either
+//version 2.1 of the License, or (at your option) any later version.
+//
+//This library is distributed in the hope that it will be useful,
+//but WITHOUT ANY WARRANTY; without even the implied warranty of
+//MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+//Lesser General Public License for more details.
+//
+//You should have received a copy of the GNU Lesser General Public
+//License along with this library; if not, write to the Free Software
+//Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+////////////////////////////////////////////////////////////////////////////////
+
+package si.JDEXi;
+
+import si.JDEXi.Attribute;
+import si.JDEXi.Scale;
+import si.JDEXi.ScaleValue;
+
+import java.io.InputStream;
+
+import java.util.ArrayList;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * ModelReader class.
+ *
+ * <p>
+ * Streaming (StAX) reader of DEXi models in standard DEXi XML format. Unlike
+ * Model(String), which parses a document object model (DOM) first, it makes
+ * Attribute, Scale and ScaleValue objects and function tables directly while
+ * reading the stream, so that no intermediate copy of the model is kept in memory. The
+ * resulting attributes are the same as with Model(String); elements that
+ * JDEXi does not use are skipped.
+ * </p>
+ *
+ * @version 2.0
+ * @since 2026-10-17
+ */
+class ModelReader {
+
+    private final XMLStreamReader reader;
+
+    /**
+     * Root attributes.
+     */
+    private final ArrayList<Attribute> attributes = new ArrayList<Attribute>();
+
+    /**
+     * DEXi advanced setting: Link equal attributes.
+     */
+    private Boolean linking = new Boolean(false);
+
+    /**
+     * Reads a model from stream. The stream is not closed.
+     *
+     * @param stream
+     *            InputStream with a DEXi model in XML format.
+     */
+    ModelReader(final InputStream stream) {
+        try {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+            factory.setProperty(
+                    XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                    Boolean.FALSE);
+            reader = factory.createXMLStreamReader(stream);
+            reader.nextTag();
+            if (!reader.getLocalName().equals("DEXi")) {
+                throw new IllegalArgumentException(
+                        "Model: Xml root must be DEXi");
+            }
+            readModel();
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Model: Invalid xml data");
+        }
+    }
+
+    /**
+     * Get root attributes.
+     *
+     * @return ArrayList<Attribute>
+     */
+    ArrayList<Attribute> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Get the LINKING setting.
+     *
+     * @return Boolean
+     */
+    Boolean getLinking() {
+        return linking;
+    }
+
+    /**
+     * Read child elements of DEXi.
+     *
+     * @throws XMLStreamException
+     */
+    private void readModel() throws XMLStreamException {
+        while (nextChild()) {
+            String name = reader.getLocalName();
+            if (name.equals("ATTRIBUTE")) {
+                attributes.add(readAttribute());
+            } else if (name.equals("SETTINGS")) {
+                while (nextChild()) {
+                    if (reader.getLocalName().equals("LINKING")) {
+                        linking = new Boolean(readText().equals("True"));
+                    } else {
+                        skipElement();
+                    }
+                }
+            } else {
+                skipElement();
+            }
+        }
+    }
+
+    /**
+     * Read ATTRIBUTE element and its subtree.
+     *
+     * @return Attribute
+     * @throws XMLStreamException
+     */
+    private Attribute readAttribute() throws XMLStreamException {
+        String name = null;
+        String description = null;
+        Scale scale = null;
+        boolean function = false;
+        String low = null;
+        String high = null;
+        String entered = null;
+        ArrayList<Attribute> children = new ArrayList<Attribute>();
+
+        while (nextChild()) {
+            String element = reader.getLocalName();
+            if (element.equals("NAME")) {
+                if (name != null) {
+                    throw new IllegalArgumentException(
+                            "Attribute: Name already exists");
+                }
+                name = readText();
+            } else if (element.equals("DESCRIPTION")) {
+                if (description != null) {
+                    throw new IllegalArgumentException(
+                            "Attribute: Description already exists");
+                }
+                description = readText();
+            } else if (element.equals("SCALE")) {
+                if (scale != null) {
+                    throw new IllegalArgumentException(
+                            "Attribute: Scale already exists");
+                }
+                scale = readScale();
+            } else if (element.equals("FUNCTION")) {
+                if (function) {
+                    throw new IllegalArgumentException(
+                            "Attribute: Function already exists");
+                }
+                function = true;
+                while (nextChild()) {
+                    String part = reader.getLocalName();
+                    if (part.equals("LOW")) {
+                        low = readText();
+                    } else if (part.equals("HIGH")) {
+                        high = readText();
+                    } else if (part.equals("ENTERED")) {
+                        entered = readText();
+                    } else {
+                        skipElement();
+                    }
+                }
+                if (low == null) {
+                    throw new IllegalArgumentException(
+                            "Attribute: Function has no LOW");
+                }
+            } else if (element.equals("ATTRIBUTE")) {
+                children.add(readAttribute());
+            } else {
+                skipElement();
+            }
+        }
+        return new Attribute(name, description, scale, low, high, entered,
+                children);
+    }
+
+    /**
+     * Read SCALE element.
+     *
+     * @return Scale
+     * @throws XMLStreamException
+     */
+    private Scale readScale() throws XMLStreamException {
+        ArrayList<ScaleValue> values = new ArrayList<ScaleValue>();
+        while (nextChild()) {
+            if (reader.getLocalName().equals(ScaleValue.SCALEVALUE)) {
+                ScaleValue value = readScaleValue();
+                if (value != null) {
+                    values.add(value);
+                }
+            } else {
+                skipElement();
+            }
+        }
+        return new Scale(values);
+    }
+
+    /**
+     * Read SCALEVALUE element.
+     *
+     * @return ScaleValue, null if the element is empty.
+     * @throws XMLStreamException
+     */
+    private ScaleValue readScaleValue() throws XMLStreamException {
+        String name = null;
+        String description = null;
+        String group = null;
+        boolean empty = true;
+
+        int event = reader.next();
+        while (event != XMLStreamConstants.END_ELEMENT) {
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                empty = false;
+                String element = reader.getLocalName();
+                if (element.equals(ScaleValue.NAME)) {
+                    if (name != null) {
+                        throw new IllegalArgumentException(
+                                "ScaleValue: Name already exists");
+                    }
+                    name = readText();
+                } else if (element.equals(ScaleValue.DESCRIPTION)) {
+                    if (description != null) {
+                        throw new IllegalArgumentException(
+                                "ScaleValue: Description already exists");
+                    }
+                    description = readText();
+                } else if (element.equals(ScaleValue.GROUP)) {
+                    if (group != null) {
+                        throw new IllegalArgumentException(
+                                "ScaleValue: Group already exists");
+                    }
+                    group = readText();
+                } else {
+                    skipElement();
+                }
+            } else if (event == XMLStreamConstants.CHARACTERS
+                    || event == XMLStreamConstants.CDATA) {
+                empty = false;
+            }
+            event = reader.next();
+        }
+        // Scale(Element) skips SCALEVALUE elements without child nodes
+        return empty ? null : new ScaleValue(name, description, group);
+    }
+
+    /**
+     * Advance to the next child element of the current element.
+     *
+     * @return true at the START_ELEMENT of a child, false at the END_ELEMENT
+     *         of the current element.
+     * @throws XMLStreamException
+     */
+    private boolean nextChild() throws XMLStreamException {
+        int event = reader.next();
+        while (event != XMLStreamConstants.START_ELEMENT
+                && event != XMLStreamConstants.END_ELEMENT) {
+            event = reader.next();
+        }
+        return event == XMLStreamConstants.START_ELEMENT;
+    }
+
+    /**
+     * Read the text of a simple element, up to its END_ELEMENT.
+     *
+     * @return String
+     * @throws XMLStreamException
+     */
+    private String readText() throws XMLStreamException {
+        return reader.getElementText();
+    }
+
+    /**
+     * Skip the current element with all its content.
+     *
+     * @throws XMLStreamException
+     */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+}
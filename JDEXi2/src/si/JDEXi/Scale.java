@@ -63,6 +63,16 @@ public class Scale {
 
 	}
 
+	/**
+	 * Constructor from already parsed scale values.
+	 * 
+	 * @param aScaleValues
+	 *            List of scale values
+	 */
+	protected Scale(ArrayList<ScaleValue> aScaleValues) {
+		scaleValues = aScaleValues;
+	}
+
 	/**
 	 * Find string scale value.
 	 * 
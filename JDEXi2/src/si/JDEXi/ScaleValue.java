@@ -97,6 +97,26 @@ public class ScaleValue {
 		}
 	}
 
+	/**
+	 * Constructor from already parsed elements.
+	 * 
+	 * @param aName
+	 *            Value name
+	 * @param aDescription
+	 *            Value description, null if none
+	 * @param aGroup
+	 *            Value group, null if none
+	 */
+	protected ScaleValue(final String aName, final String aDescription,
+			final String aGroup) {
+		if (aName == null) {
+			throw new IllegalArgumentException("ScaleValue: Name is undefined");
+		}
+		setName(aName);
+		setDescription(aDescription);
+		setGroup(aGroup);
+	}
+
 	/**
 	 * Get value name.
 	 * 
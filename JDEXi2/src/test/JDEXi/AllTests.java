@@ -60,6 +60,12 @@ public class AllTests {
           suite.addTestSuite(ScaleTest.class);
           suite.addTestSuite(AttributeTest.class);
           suite.addTestSuite(ModelTest.class);
+          suite.addTestSuite(LookupTableTest.class);
+          suite.addTestSuite(CompiledModelTest.class);
+          suite.addTestSuite(DistributionEvaluatorTest.class);
+          suite.addTestSuite(EvaluationCacheTest.class);
+          suite.addTestSuite(ModelReaderTest.class);
+          suite.addTestSuite(FunctionTableTest.class);
 
           return suite; 
      }
@@ -0,0 +1,283 @@
+////////////////////////////////////////////////////////////////////////////////
+//JDEXi2:   Implements evaluation of decision alternatives based on
+//          qualitative multi-attribute models produced by DEXi software
+//          (http://kt.ijs.si/MarkoBohanec/dexi.html)
+//
+//          Authors: Marko Bohanec, Dusan Omercevic, Andrej Kogovsek
+//          (http://kt.ijs.si/MarkoBohanec/jdexi.html)
+//
+//JDEXi2 library is free software; you can redistribute it and/or
+//modify it under the terms of the GNU Lesser General Public
+//License as published by the Free Software Foundation; either
+//version 2.1 of the License, or (at your option) any later version.
+//
+//This library is distributed in the hope that it will be useful,
+//but WITHOUT ANY WARRANTY; without even the implied warranty of
+//MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+//Lesser General Public License for more details.
+//
+//You should have received a copy of the GNU Lesser General Public
+//License along with this library; if not, write to the Free Software
+//Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+////////////////////////////////////////////////////////////////////////////////
+
+package test.JDEXi;
+
+import junit.framework.TestCase;
+
+import si.JDEXi.CompiledModel;
+import si.JDEXi.LookupTable;
+import si.JDEXi.Model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * @version 2.0
+ * @since 2026-10-17
+ */
+public class CompiledModelTest extends TestCase {
+
+    public void testNames() throws IOException {
+        CompiledModel compiled = Utils.loadXMLInModel("Car2.xml").compile();
+        assertEquals(6, compiled.getInputs());
+        assertEquals(4, compiled.getOutputs());
+        assertEquals("CAR", compiled.getOutputName(0));
+        assertEquals(3, compiled.getInputHandle("#DOORS"));
+        assertEquals(4, compiled.getInputScaleSize(3));
+        assertEquals(1, compiled.getOutputHandle("PRICE"));
+        try {
+            compiled.getOutputHandle("SAFETY");
+            fail("Basic attribute accepted as output");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    public void testSameAsModel() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        CompiledModel compiled = model.compile();
+        assertSame(compiled, model.compile());
+
+        LookupTable table = new LookupTable(compiled);
+        int[] inputs = new int[compiled.getInputs()];
+        int[] outputs = new int[compiled.getOutputs()];
+        for (int index = 0; index < table.size(); index++) {
+            model.setInputValues(inputs);
+            model.evaluate();
+            compiled.evaluate(inputs, outputs);
+            for (int j = 0; j < outputs.length; j++) {
+                assertEquals(model.getOutputValue(j).getOrdinal().intValue(),
+                        outputs[j]);
+            }
+            assertEquals(table.evaluate(index), outputs[0]);
+            for (int i = inputs.length - 1; i >= 0; i--) {
+                if (++inputs[i] < compiled.getInputScaleSize(i)) {
+                    break;
+                }
+                inputs[i] = 0;
+            }
+        }
+    }
+
+    public void testConcurrentEvaluation() throws InterruptedException, IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        final CompiledModel compiled = model.compile();
+        final LookupTable table = new LookupTable(compiled);
+        final boolean[] ok = new boolean[4];
+        Thread[] threads = new Thread[ok.length];
+        for (int t = 0; t < threads.length; t++) {
+            final int id = t;
+            threads[t] = new Thread() {
+                public void run() {
+                    int[] inputs = new int[compiled.getInputs()];
+                    int[] outputs = new int[compiled.getOutputs()];
+                    boolean same = true;
+                    for (int r = 0; r < 200; r++) {
+                        for (int index = id; index < table.size(); index += 3) {
+                            int rest = index;
+                            for (int i = inputs.length - 1; i >= 0; i--) {
+                                inputs[i] = rest % table.getScaleSize(i);
+                                rest /= table.getScaleSize(i);
+                            }
+                            compiled.evaluate(inputs, outputs);
+                            same = same && outputs[0] == table.evaluate(index);
+                        }
+                    }
+                    ok[id] = same;
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+            assertTrue(ok[t]);
+        }
+    }
+
+    public void testBatchEvaluation() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        CompiledModel compiled = model.compile();
+        LookupTable table = new LookupTable(compiled);
+        int count = table.size();
+        int[][] inputs = new int[compiled.getInputs()][count + 5];
+        int[][] outputs = new int[compiled.getOutputs()][count + 5];
+        for (int index = 0; index < count; index++) {
+            int rest = index;
+            for (int i = inputs.length - 1; i >= 0; i--) {
+                inputs[i][index] = rest % table.getScaleSize(i);
+                rest /= table.getScaleSize(i);
+            }
+        }
+        model.evaluate(inputs, outputs, count);
+
+        int[] in = new int[compiled.getInputs()];
+        int[] out = new int[compiled.getOutputs()];
+        for (int index = 0; index < count; index++) {
+            for (int i = 0; i < in.length; i++) {
+                in[i] = inputs[i][index];
+            }
+            compiled.evaluate(in, out);
+            for (int j = 0; j < out.length; j++) {
+                assertEquals(out[j], outputs[j][index]);
+            }
+            assertEquals(table.evaluate(index), outputs[0][index]);
+        }
+        for (int j = 0; j < out.length; j++) {
+            assertEquals(0, outputs[j][count]);
+        }
+    }
+
+    public void testWriteRead() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        CompiledModel compiled = model.compile();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        compiled.write(bytes);
+        CompiledModel loaded = CompiledModel.read(new ByteArrayInputStream(
+                bytes.toByteArray()));
+        assertEquals(compiled.getInputs(), loaded.getInputs());
+        assertEquals(compiled.getOutputs(), loaded.getOutputs());
+        for (int i = 0; i < compiled.getInputs(); i++) {
+            assertEquals(compiled.getInputName(i), loaded.getInputName(i));
+            assertEquals(compiled.getInputScaleSize(i), loaded
+                    .getInputScaleSize(i));
+        }
+        for (int j = 0; j < compiled.getOutputs(); j++) {
+            assertEquals(compiled.getOutputName(j), loaded.getOutputName(j));
+            assertEquals(compiled.getOutputScaleSize(j), loaded
+                    .getOutputScaleSize(j));
+        }
+
+        LookupTable table = new LookupTable(compiled);
+        int[] inputs = new int[compiled.getInputs()];
+        int[] expected = new int[compiled.getOutputs()];
+        int[] actual = new int[loaded.getOutputs()];
+        for (int index = 0; index < table.size(); index++) {
+            int rest = index;
+            for (int i = inputs.length - 1; i >= 0; i--) {
+                inputs[i] = rest % table.getScaleSize(i);
+                rest /= table.getScaleSize(i);
+            }
+            compiled.evaluate(inputs, expected);
+            loaded.evaluate(inputs, actual);
+            for (int j = 0; j < expected.length; j++) {
+                assertEquals(expected[j], actual[j]);
+            }
+        }
+    }
+
+    public void testReadInvalid() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Utils.loadXMLInModel("Car2.xml").compile().write(bytes);
+        byte[] data = bytes.toByteArray();
+        try {
+            CompiledModel.read(new ByteArrayInputStream(data, 1,
+                    data.length - 1));
+            fail("Invalid data accepted");
+        } catch (IOException e) {
+        }
+        try {
+            CompiledModel.read(new ByteArrayInputStream(data, 0,
+                    data.length - 1));
+            fail("Truncated data accepted");
+        } catch (IOException e) {
+        }
+    }
+
+    public void testReadInvalidProgram() throws IOException {
+        // input a of size 3, outputs x and y of size 2
+        CompiledModel.read(new ByteArrayInputStream(program(3, new int[][] {
+                { 0, 0, 3 }, { 1, ~0, 2 } })));
+        try {
+            CompiledModel.read(new ByteArrayInputStream(program(3,
+                    new int[][] { { 0, 0, 2 } })));
+            fail("Wrong argument size accepted");
+        } catch (IOException e) {
+        }
+        try {
+            CompiledModel.read(new ByteArrayInputStream(program(3,
+                    new int[][] { { 1, ~0, 2 }, { 0, 0, 3 } })));
+            fail("Output used before evaluation accepted");
+        } catch (IOException e) {
+        }
+        try {
+            CompiledModel.read(new ByteArrayInputStream(program(3,
+                    new int[][] { { 0, 0, 3 } })));
+            fail("Output never evaluated accepted");
+        } catch (IOException e) {
+        }
+        try {
+            CompiledModel.read(new ByteArrayInputStream(program(65535,
+                    new int[][] { { 0, 0, 65535, 0, 65535, 0, 65535 } })));
+            fail("Overflowing function size accepted");
+        } catch (IOException e) {
+        }
+    }
+
+    /**
+     * Binary form of a compiled model with input a of size inputSize and
+     * outputs x and y of size 2. Each step is given by its target followed by
+     * pairs of argument and size. Function values are 0, and at most 16 of
+     * them are written, which is enough for the valid steps used here.
+     */
+    private byte[] program(int inputSize, int[][] steps) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(CompiledModel.MAGIC);
+        out.writeShort(1);
+        out.writeUTF("a");
+        out.writeShort(inputSize);
+        out.writeShort(2);
+        out.writeUTF("x");
+        out.writeShort(2);
+        out.writeUTF("y");
+        out.writeShort(2);
+        out.writeInt(steps.length);
+        for (int s = 0; s < steps.length; s++) {
+            out.writeShort(steps[s][0]);
+            out.writeShort(steps[s].length / 2);
+            int size = 1;
+            for (int i = 1; i < steps[s].length; i += 2) {
+                out.writeShort(steps[s][i]);
+                out.writeShort(steps[s][i + 1]);
+                size *= steps[s][i + 1];
+            }
+            out.writeInt(size);
+            for (int i = 0; i < size && i < 16; i++) {
+                out.writeByte(0);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public void testInvalidOrdinal() throws IOException {
+        CompiledModel compiled = Utils.loadXMLInModel("Car2.xml").compile();
+        try {
+            compiled.evaluate(new int[] { 0, -1, 0, 0, 0, 0 }, new int[4]);
+            fail("Invalid ordinal accepted");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
@@ -0,0 +1,142 @@
+////////////////////////////////////////////////////////////////////////////////
+//JDEXi2:   Implements evaluation of decision alternatives based on
+//          qualitative multi-attribute models produced by DEXi software
+//          (http://kt.ijs.si/MarkoBohanec/dexi.html)
+//
+//          Authors: Marko Bohanec, Dusan Omercevic, Andrej Kogovsek
+//          (http://kt.ijs.si/MarkoBohanec/jdexi.html)
+//
+//JDEXi2 library is free software; you can redistribute it and/or
+//modify it under the terms of the GNU Lesser General Public
+//License as published by the Free Software Foundation; either
+//version 2.1 of the License, or (at your option) any later version.
+//
+//This library is distributed in the hope that it will be useful,
+//but WITHOUT ANY WARRANTY; without even the implied warranty of
+//MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+//Lesser General Public License for more details.
+//
+//You should have received a copy of the GNU Lesser General Public
+//License along with this library; if not, write to the Free Software
+//Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+////////////////////////////////////////////////////////////////////////////////
+
+package test.JDEXi;
+
+import junit.framework.TestCase;
+
+import si.JDEXi.Distribution;
+import si.JDEXi.DistributionEvaluator;
+import si.JDEXi.Model;
+
+import java.io.IOException;
+
+import java.util.Random;
+
+/**
+ * @version 2.0
+ * @since 2026-10-17
+ */
+public class DistributionEvaluatorTest extends TestCase {
+
+    public void testHandles() throws IOException {
+        DistributionEvaluator evaluator = new DistributionEvaluator(
+                Utils.loadXMLInModel("Car2.xml"));
+        assertEquals(6, evaluator.getInputs());
+        assertEquals(4, evaluator.getOutputs());
+        assertEquals(3, evaluator.getInputHandle("#DOORS"));
+        assertEquals(4, evaluator.getInputScaleSize(3));
+        assertEquals(1, evaluator.getOutputHandle("PRICE"));
+        try {
+            evaluator.getOutputHandle("SAFETY");
+            fail("Basic attribute accepted as output");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    public void testSingleValues() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        DistributionEvaluator evaluator = new DistributionEvaluator(model);
+        double[][] distr = new double[evaluator.getInputs()][];
+        int[] values = { 2, 2, 2, 3, 2, 2 };
+        for (int i = 0; i < distr.length; i++) {
+            distr[i] = new double[evaluator.getInputScaleSize(i)];
+            distr[i][values[i]] = 1.0;
+        }
+        evaluator.evaluate(Model.Evaluation.SET, true, distr);
+        assertEquals(3, evaluator.getOutputValue(0));
+        model.setInputValues(values);
+        model.evaluate();
+        for (int j = 0; j < evaluator.getOutputs(); j++) {
+            assertEquals(model.getOutputValue(j).getOrdinal().intValue(),
+                    evaluator.getOutputValue(j));
+        }
+    }
+
+    public void testSameAsModel() throws IOException {
+        assertSameAsModel(Utils.loadXMLInModel("Car2.xml"));
+    }
+
+    public void testSameAsModelIntervals() throws IOException {
+        Model model = new Model(Utils.loadXML("Car2.xml").replace(
+                "<LOW>000012022</LOW>",
+                "<LOW>000012022</LOW><HIGH>011122122</HIGH>"));
+        assertFalse(model.getExplicitness().booleanValue());
+        assertSameAsModel(model);
+    }
+
+    public void testInvalidSize() throws IOException {
+        DistributionEvaluator evaluator = new DistributionEvaluator(
+                Utils.loadXMLInModel("Car2.xml"));
+        double[][] distr = new double[evaluator.getInputs()][];
+        distr[3] = new double[] { 1.0, 0.0, 0.0 };
+        try {
+            evaluator.evaluate(Model.Evaluation.PROB, true, distr);
+            fail("Distribution of wrong size accepted");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    /**
+     * Compare the evaluator with Model.evaluate(evalType, normalize) on
+     * random input distributions, including unknown (null) inputs and zero
+     * elements.
+     */
+    private void assertSameAsModel(Model model) {
+        DistributionEvaluator evaluator = new DistributionEvaluator(model);
+        Random random = new Random(15);
+        double[][] distr = new double[evaluator.getInputs()][];
+        for (int r = 0; r < 300; r++) {
+            Model.Evaluation evalType = Model.Evaluation.values()[r % 3];
+            boolean normalize = r % 2 == 0;
+            model.clearInputValues();
+            for (int i = 0; i < distr.length; i++) {
+                if (random.nextInt(5) == 0) {
+                    distr[i] = null;
+                    continue;
+                }
+                distr[i] = new double[evaluator.getInputScaleSize(i)];
+                for (int j = 0; j < distr[i].length; j++) {
+                    distr[i][j] = random.nextInt(3) == 0 ? 0.0 : random
+                            .nextDouble();
+                }
+                model.setInputValue(i, distr[i].clone());
+            }
+            model.evaluate(evalType, normalize);
+            evaluator.evaluate(evalType, normalize, distr);
+            for (int j = 0; j < evaluator.getOutputs(); j++) {
+                Distribution expected = model.getOutputDistr(j);
+                double[] actual = evaluator.getOutputDistr(j);
+                if (expected == null) {
+                    assertNull(actual);
+                    continue;
+                }
+                assertEquals(expected.size(), actual.length);
+                for (int k = 0; k < actual.length; k++) {
+                    assertEquals(expected.getValue(k), actual[k], 0.0);
+                }
+                assertEquals(expected.getSingle(), evaluator.getOutputValue(j));
+            }
+        }
+    }
+}
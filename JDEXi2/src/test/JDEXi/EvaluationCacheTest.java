@@ -0,0 +1,134 @@
+////////////////////////////////////////////////////////////////////////////////
+//JDEXi2:   Implements evaluation of decision alternatives based on
+//          qualitative multi-attribute models produced by DEXi software
+//          (http://kt.ijs.si/MarkoBohanec/dexi.html)
+//
+//          Authors: Marko Bohanec, Dusan Omercevic, Andrej Kogovsek
+//          (http://kt.ijs.si/MarkoBohanec/jdexi.html)
+//
+//JDEXi2 library is free software; you can redistribute it and/or
+//modify it under the terms of the GNU Lesser General Public
+//License as published by the Free Software Foundation; either
+//version 2.1 of the License, or (at your option) any later version.
+//
+//This library is distributed in the hope that it will be useful,
+//but WITHOUT ANY WARRANTY; without even the implied warranty of
+//MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+//Lesser General Public License for more details.
+//
+//You should have received a copy of the GNU Lesser General Public
+//License along with this library; if not, write to the Free Software
+//Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+////////////////////////////////////////////////////////////////////////////////
+
+package test.JDEXi;
+
+import junit.framework.TestCase;
+
+import si.JDEXi.Distribution;
+import si.JDEXi.Model;
+
+import java.io.IOException;
+
+import java.util.Random;
+
+/**
+ * @version 2.0
+ * @since 2026-10-17
+ */
+public class EvaluationCacheTest extends TestCase {
+
+    public void testDisabledByDefault() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        assertEquals(0, model.getCacheSize());
+        model.setInputValues(new int[] { 2, 2, 2, 3, 2, 2 });
+        model.evaluate();
+        model.evaluate();
+        assertEquals(0, model.getCacheHits());
+        assertEquals(0, model.getCacheMisses());
+    }
+
+    public void testSingleValues() throws IOException {
+        Model plain = Utils.loadXMLInModel("Car2.xml");
+        Model cached = Utils.loadXMLInModel("Car2.xml");
+        cached.setCacheSize(100);
+        Random random = new Random(16);
+        int[] values = new int[6];
+        for (int r = 0; r < 1000; r++) {
+            for (int i = 0; i < values.length; i++) {
+                // few distinct combinations
+                values[i] = random.nextInt(2);
+            }
+            plain.setInputValues(values);
+            plain.evaluate();
+            cached.setInputValues(values);
+            cached.evaluate();
+            assertEquals(plain.getOutputValues(), cached.getOutputValues());
+        }
+        assertEquals(1000, cached.getCacheHits() + cached.getCacheMisses());
+        assertEquals(64, cached.getCacheMisses());
+    }
+
+    public void testDistributions() throws IOException {
+        Model plain = Utils.loadXMLInModel("Car2.xml");
+        Model cached = Utils.loadXMLInModel("Car2.xml");
+        cached.setCacheSize(20);
+        Random random = new Random(16);
+        double[][][] inputs = new double[5][6][];
+        for (int k = 0; k < inputs.length; k++) {
+            for (int i = 0; i < inputs[k].length; i++) {
+                inputs[k][i] = new double[i == 3 ? 4 : 3];
+                for (int j = 0; j < inputs[k][i].length; j++) {
+                    inputs[k][i][j] = random.nextInt(2) * random.nextDouble();
+                }
+            }
+        }
+        for (int r = 0; r < 60; r++) {
+            Model.Evaluation evalType = Model.Evaluation.values()[r % 3];
+            double[][] input = inputs[r % inputs.length];
+            for (int i = 0; i < input.length; i++) {
+                plain.setInputValue(i, input[i].clone());
+                cached.setInputValue(i, input[i].clone());
+            }
+            plain.evaluate(evalType, true);
+            cached.evaluate(evalType, true);
+            for (int j = 0; j < 4; j++) {
+                Distribution expected = plain.getOutputDistr(j);
+                Distribution actual = cached.getOutputDistr(j);
+                if (expected == null) {
+                    assertNull(actual);
+                    continue;
+                }
+                for (int k = 0; k < expected.size(); k++) {
+                    assertEquals(expected.getValue(k), actual.getValue(k), 0.0);
+                }
+                assertEquals(plain.getOutputDistrString(j), cached
+                        .getOutputDistrString(j));
+            }
+        }
+        assertEquals(15, cached.getCacheMisses());
+        assertEquals(45, cached.getCacheHits());
+    }
+
+    public void testEviction() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        model.setCacheSize(2);
+        int[] a = { 0, 0, 0, 0, 0, 0 };
+        int[] b = { 1, 1, 1, 1, 1, 1 };
+        int[] c = { 2, 2, 2, 2, 2, 2 };
+        int[][] sequence = { a, b, a, c, a, b };
+        for (int i = 0; i < sequence.length; i++) {
+            model.setInputValues(sequence[i]);
+            model.evaluate();
+        }
+        // c evicts b, the least recently used
+        assertEquals(2, model.getCacheHits());
+        assertEquals(4, model.getCacheMisses());
+        model.clearCache();
+        assertEquals(0, model.getCacheHits());
+        assertEquals(0, model.getCacheMisses());
+        assertEquals(2, model.getCacheSize());
+        model.setCacheSize(0);
+        assertEquals(0, model.getCacheSize());
+    }
+}
@@ -0,0 +1,133 @@
+////////////////////////////////////////////////////////////////////////////////
+//JDEXi2:   Implements evaluation of decision alternatives based on
+//          qualitative multi-attribute models produced by DEXi software
+//          (http://kt.ijs.si/MarkoBohanec/dexi.html)
+//
+//          Authors: Marko Bohanec, Dusan Omercevic, Andrej Kogovsek
+//          (http://kt.ijs.si/MarkoBohanec/jdexi.html)
+//
+//JDEXi2 library is free software; you can redistribute it and/or
+//modify it under the terms of the GNU Lesser General Public
+//License as published by the Free Software Foundation; either
+//version 2.1 of the License, or (at your option) any later version.
+//
+//This library is distributed in the hope that it will be useful,
+//but WITHOUT ANY WARRANTY; without even the implied warranty of
+//MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+//Lesser General Public License for more details.
+//
+//You should have received a copy of the GNU Lesser General Public
+//License along with this library; if not, write to the Free Software
+//Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+////////////////////////////////////////////////////////////////////////////////
+
+package test.JDEXi;
+
+import junit.framework.TestCase;
+
+import si.JDEXi.FunctionTable;
+import si.JDEXi.Rule;
+
+import java.util.Arrays;
+
+/**
+ * @version 2.0
+ * @since 2026-10-17
+ */
+public class FunctionTableTest extends TestCase {
+
+    public void testBytePacking() {
+        int[] low = { 0, 1, 127, 128, 255 };
+        int[] high = { 0, 200, 128, 255, 255 };
+        FunctionTable table = new FunctionTable(low, high, null);
+        assertEquals(low.length, table.size());
+        for (int i = 0; i < low.length; i++) {
+            assertEquals(low[i], table.getLow(i));
+            assertEquals(high[i], table.getHigh(i));
+        }
+        assertTrue(Arrays.equals(low, table.getLow()));
+        assertTrue(Arrays.equals(high, table.getHigh()));
+    }
+
+    public void testCharPacking() {
+        int[] low = { 0, 255, 256, 1000, FunctionTable.MAX_VALUE };
+        int[] high = { 255, 256, 256, 40000, FunctionTable.MAX_VALUE };
+        FunctionTable table = new FunctionTable(low, high, null);
+        for (int i = 0; i < low.length; i++) {
+            assertEquals(low[i], table.getLow(i));
+            assertEquals(high[i], table.getHigh(i));
+        }
+        assertTrue(Arrays.equals(low, table.getLow()));
+        assertTrue(Arrays.equals(high, table.getHigh()));
+    }
+
+    public void testTooLarge() {
+        try {
+            new FunctionTable(new int[] { 0 },
+                    new int[] { FunctionTable.MAX_VALUE + 1 }, null);
+            fail("Value above MAX_VALUE accepted");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    public void testInvalidRules() {
+        try {
+            new FunctionTable(new int[] { -1 }, new int[] { 0 }, null);
+            fail("Negative low accepted");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            new FunctionTable(new int[] { 2 }, new int[] { 1 }, null);
+            fail("Low > High accepted");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    public void testExplicitness() {
+        FunctionTable table = new FunctionTable(new int[] { 1, 2, 300 },
+                new int[] { 1, 2, 300 }, null);
+        assertTrue(table.isExplicit());
+
+        table = new FunctionTable(new int[] { 1, 2 }, new int[] { 1, 2 },
+                new boolean[] { true, false });
+        assertTrue(table.isExplicit(0));
+        assertFalse(table.isExplicit(1));
+        assertFalse(table.isEntered(1));
+        assertFalse(table.isExplicit());
+
+        table = new FunctionTable(new int[] { 1, 0 }, new int[] { 1, 2 },
+                null);
+        assertTrue(table.isExplicit(0));
+        assertFalse(table.isExplicit(1));
+        assertTrue(table.isEntered(1));
+        assertFalse(table.isExplicit());
+    }
+
+    public void testGetRule() {
+        int[] low = { 0, 1, 0, 255, 256 };
+        int[] high = { 0, 1, 3, 256, 256 };
+        boolean[] entered = { true, false, true, true, false };
+        FunctionTable table = new FunctionTable(low, high, entered);
+        for (int i = 0; i < low.length; i++) {
+            Rule expected = new Rule(Integer.valueOf(low[i]), Integer
+                    .valueOf(high[i]), Boolean.valueOf(entered[i]));
+            Rule rule = table.getRule(i);
+            assertEquals(expected.getLow(), rule.getLow());
+            assertEquals(expected.getHigh(), rule.getHigh());
+            assertEquals(expected.getEntered(), rule.getEntered());
+            assertEquals(expected.getExplicitness(), rule.getExplicitness());
+            assertEquals(expected.getExplicitness().booleanValue(), table
+                    .isExplicit(i));
+        }
+    }
+
+    public void testIndexOutOfBounds() {
+        FunctionTable table = new FunctionTable(new int[] { 0 },
+                new int[] { 0 }, null);
+        try {
+            table.getLow(1);
+            fail("Index out of bounds accepted");
+        } catch (IndexOutOfBoundsException e) {
+        }
+    }
+}
@@ -0,0 +1,105 @@
+////////////////////////////////////////////////////////////////////////////////
+//JDEXi2:   Implements evaluation of decision alternatives based on
+//          qualitative multi-attribute models produced by DEXi software
+//          (http://kt.ijs.si/MarkoBohanec/dexi.html)
+//
+//          Authors: Marko Bohanec, Dusan Omercevic, Andrej Kogovsek
+//          (http://kt.ijs.si/MarkoBohanec/jdexi.html)
+//
+//JDEXi2 library is free software; you can redistribute it and/or
+//modify it under the terms of the GNU Lesser General Public
+//License as published by the Free Software Foundation; either
+//version 2.1 of the License, or (at your option) any later version.
+//
+//This library is distributed in the hope that it will be useful,
+//but WITHOUT ANY WARRANTY; without even the implied warranty of
+//MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+//Lesser General Public License for more details.
+//
+//You should have received a copy of the GNU Lesser General Public
+//License along with this library; if not, write to the Free Software
+//Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+////////////////////////////////////////////////////////////////////////////////
+
+package test.JDEXi;
+
+import junit.framework.TestCase;
+
+import si.JDEXi.LookupTable;
+import si.JDEXi.Model;
+
+import java.io.IOException;
+
+/**
+ * @version 2.0
+ * @since 2026-10-17
+ */
+public class LookupTableTest extends TestCase {
+
+    public void testSize() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        LookupTable table = new LookupTable(model.compile());
+        assertEquals("CAR", table.getName());
+        assertEquals(6, table.getInputs());
+        assertEquals(3 * 3 * 3 * 4 * 3 * 3, table.size());
+        assertEquals(4, table.getScaleSize(3));
+    }
+
+    public void testEvaluate() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        LookupTable table = new LookupTable(model.compile());
+        // BUY.PRICE=low;MAINT.PRICE=low;#PERS=more;#DOORS=more;LUGGAGE=big;SAFETY=high
+        assertEquals(3, table.evaluate(new int[] { 2, 2, 2, 3, 2, 2 }));
+        assertEquals(0, table.evaluate(new int[] { 0, 0, 0, 0, 0, 0 }));
+    }
+
+    public void testModelUnchanged() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        model.setInputValues(new int[] { 2, 2, 2, 3, 2, 2 });
+        model.evaluate();
+        new LookupTable(model.compile(), "PRICE");
+        assertEquals("exc", model.getOutputValue("CAR").getName());
+        assertEquals(2, model.getOutputValue("PRICE").getOrdinal().intValue());
+    }
+
+    public void testAllCombinations() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        LookupTable car = new LookupTable(model.compile());
+        LookupTable price = new LookupTable(model.compile(), "PRICE");
+        int[] args = new int[car.getInputs()];
+        for (int index = 0; index < car.size(); index++) {
+            assertEquals(index, car.index(args));
+            model.setInputValues(args);
+            model.evaluate();
+            assertEquals(model.getOutputValue("CAR").getOrdinal().intValue(),
+                    car.evaluate(index));
+            assertEquals(model.getOutputValue("PRICE").getOrdinal()
+                    .intValue(), price.evaluate(args));
+            for (int i = args.length - 1; i >= 0; i--) {
+                if (++args[i] < car.getScaleSize(i)) {
+                    break;
+                }
+                args[i] = 0;
+            }
+        }
+    }
+
+    public void testUnknownAttribute() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        try {
+            new LookupTable(model.compile(), "BUY.PRICE");
+            fail("Basic attribute accepted as output");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    public void testInvalidOrdinal() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        LookupTable table = new LookupTable(model.compile());
+        try {
+            table.evaluate(new int[] { 0, 0, 0, 4, 0, 0 });
+            fail("Invalid ordinal accepted");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
@@ -0,0 +1,115 @@
+////////////////////////////////////////////////////////////////////////////////
+//JDEXi2:   Implements evaluation of decision alternatives based on
+//          qualitative multi-attribute models produced by DEXi software
+//          (http://kt.ijs.si/MarkoBohanec/dexi.html)
+//
+//          Authors: Marko Bohanec, Dusan Omercevic, Andrej Kogovsek
+//          (http://kt.ijs.si/MarkoBohanec/jdexi.html)
+//
+//JDEXi2 library is free software; you can redistribute it and/or
+//modify it under the terms of the GNU Lesser General Public
+//License as published by the Free Software Foundation; either
+//version 2.1 of the License, or (at your option) any later version.
+//
+//This library is distributed in the hope that it will be useful,
+//but WITHOUT ANY WARRANTY; without even the implied warranty of
+//MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+//Lesser General Public License for more details.
+//
+//You should have received a copy of the GNU Lesser General Public
+//License along with this library; if not, write to the Free Software
+//Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+////////////////////////////////////////////////////////////////////////////////
+
+package test.JDEXi;
+
+import junit.framework.TestCase;
+
+import si.JDEXi.Model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Paths;
+
+/**
+ * @version 2.0
+ * @since 2026-10-17
+ */
+public class ModelReaderTest extends TestCase {
+
+    public void testSameAsDOM() throws IOException {
+        String[] files = { "Car.xml", "Car2.xml" };
+        for (int f = 0; f < files.length; f++) {
+            Model dom = Utils.loadXMLInModel(files[f]);
+            InputStream stream = ModelReaderTest.class
+                    .getResourceAsStream(files[f]);
+            Model stax = new Model(stream);
+            stream.close();
+            assertEquals(print(dom), print(stax));
+            assertEquals(dom.tabbedInputs(), stax.tabbedInputs());
+            assertEquals(dom.tabbedOutputs(), stax.tabbedOutputs());
+            assertEquals(dom.getExplicitness(), stax.getExplicitness());
+            assertEquals(dom.getCompleteness(), stax.getCompleteness());
+        }
+    }
+
+    public void testEvaluate() throws IOException, URISyntaxException {
+        Model dom = Utils.loadXMLInModel("Car2.xml");
+        URL url = ModelReaderTest.class.getResource("Car2.xml");
+        Model stax = Model.loadModel(Paths.get(url.toURI()));
+        int[] inputs = new int[dom.basic.size()];
+        int[] expected = new int[dom.aggregate.size()];
+        int[] actual = new int[stax.aggregate.size()];
+        for (int r = 0; r < 972; r++) {
+            int rest = r;
+            for (int i = inputs.length - 1; i >= 0; i--) {
+                int size = dom.basic.get(i).getScaleSize().intValue();
+                inputs[i] = rest % size;
+                rest /= size;
+            }
+            dom.evaluate(inputs, expected);
+            stax.evaluate(inputs, actual);
+            for (int j = 0; j < expected.length; j++) {
+                assertEquals(expected[j], actual[j]);
+            }
+        }
+    }
+
+    public void testInvalidXml() {
+        try {
+            new Model(new ByteArrayInputStream("<DEXi><ATTRIBUTE>"
+                    .getBytes()));
+            fail("Invalid xml accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Model: Invalid xml data", e.getMessage());
+        }
+        try {
+            new Model(new ByteArrayInputStream("<DEX></DEX>".getBytes()));
+            fail("Invalid root accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Model: Xml root must be DEXi", e.getMessage());
+        }
+    }
+
+    public void testUnnamedAttribute() {
+        try {
+            new Model(new ByteArrayInputStream(
+                    "<DEXi><ATTRIBUTE><DESCRIPTION>x</DESCRIPTION></ATTRIBUTE></DEXi>"
+                            .getBytes()));
+            fail("Attribute without name accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Attribute: Name is undefined", e.getMessage());
+        }
+    }
+
+    private String print(Model model) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        model.print(out);
+        return out.toString();
+    }
+}
@@ -42,12 +42,7 @@ import junit.framework.TestCase;
 import si.JDEXi.Model;
 import si.JDEXi.Value;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-
-import java.net.URL;
-
 
 /**
  * @author Andrej Kogov\u0161ek, Du\u0161an Omer\u010Devi\u0107, Marko Bohanec
@@ -55,8 +50,8 @@ import java.net.URL;
  */
 @SuppressWarnings(value={"all"})  
 public class ModelTest extends TestCase {
-    public void testOKXmlModel() {
-        Model model = loadXMLInModel("Car2.xml");
+    public void testOKXmlModel() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
         String strAttribute = "CAR";
         String variables = "BUY.PRICE=low;MAINT.PRICE=low;#PERS=more;#DOORS=more;LUGGAGE=big;SAFETY=high";
         Value value = model.evaluate(strAttribute, variables);
@@ -69,7 +64,7 @@ public class ModelTest extends TestCase {
         String variables = "PRICE=medium;MAINT.PRICE=low";
 
         try {
-            Model model = loadXMLInModel(xmlFile);
+            Model model = Utils.loadXMLInModel(xmlFile);
             fail("Invalid XML model");
             model.evaluate(strAttribute, variables);
         } catch (Exception e) {
@@ -78,7 +73,7 @@ public class ModelTest extends TestCase {
 
     public void testInvalidVariable() {
         try {
-            Model model = loadXMLInModel("Car2.xml");
+            Model model = Utils.loadXMLInModel("Car2.xml");
             String strAttribute = "CAR";
             String variables = "PRICE=invalid;MAINT.INVALID=low";
             model.evaluate(strAttribute, variables);
@@ -87,16 +82,16 @@ public class ModelTest extends TestCase {
         }
     }
 
-    public void testGetExplicit() {
-        Model model = loadXMLInModel("Car2.xml");
+    public void testGetExplicit() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
         String strAttribute = "CAR";
         String variables = "BUY.PRICE=low;MAINT.PRICE=low;#PERS=more;#DOORS=more;LUGGAGE=big;SAFETY=small";
         Value value = model.evaluate(strAttribute, variables);
         assertTrue(model.getExplicitness().booleanValue());
     }
 
-    public void testGetComplete() {
-        Model model = loadXMLInModel("Car2.xml");
+    public void testGetComplete() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
         String strAttribute = "CAR";
         String variables = "PRICE=medium;MAINT.PRICE=low";
         variables = "BUY.PRICE=low;MAINT.PRICE=low;#PERS=more;#DOORS=more;LUGGAGE=big;SAFETY=high";
@@ -105,8 +100,8 @@ public class ModelTest extends TestCase {
         assertTrue(model.getCompleteness().booleanValue());
     }
 
-    public void testNULLAttributeName() {
-        Model model = loadXMLInModel("Car2.xml");
+    public void testNULLAttributeName() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
         String strAttribute = null;
         String variables = "BUY.PRICE=low;MAINT.PRICE=low;#PERS=more;#DOORS=more;LUGGAGE=big;SAFETY=small";
 
@@ -117,8 +112,8 @@ public class ModelTest extends TestCase {
         }
     }
 
-    public void testInvalidAttributeName() {
-        Model model = loadXMLInModel("Car2.xml");
+    public void testInvalidAttributeName() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
         String strAttribute = "INVALIDNAME";
         String variables = "BUY.PRICE=low;MAINT.PRICE=low;#PERS=more;#DOORS=more;LUGGAGE=big;SAFETY=small";
 
@@ -131,26 +126,95 @@ public class ModelTest extends TestCase {
         }
     }
 
-    private Model loadXMLInModel(String xmlFile) {
-        StringBuffer sb = new StringBuffer();
+    public void testHandles() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        assertEquals(0, model.getInputHandle("BUY.PRICE"));
+        assertEquals(5, model.getInputHandle("SAFETY"));
+        assertEquals(0, model.getOutputHandle("CAR"));
+        assertEquals(1, model.getOutputHandle("PRICE"));
 
         try {
-            URL url = ModelTest.class.getResource(xmlFile);
-            BufferedReader in = new BufferedReader(new InputStreamReader(
-                        url.openStream()));
-
-            String xml;
+            model.getInputHandle("CAR");
+            fail("Aggregate attribute accepted as input");
+        } catch (IllegalArgumentException e) {
+        }
+    }
 
-            while ((xml = in.readLine()) != null) {
-                sb.append(xml);
+    public void testPrimitiveEvaluate() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        int[] inputs = new int[model.basic.size()];
+        int[] outputs = new int[model.aggregate.size()];
+        inputs[model.getInputHandle("BUY.PRICE")] = 2;
+        inputs[model.getInputHandle("MAINT.PRICE")] = 2;
+        inputs[model.getInputHandle("#PERS")] = 2;
+        inputs[model.getInputHandle("#DOORS")] = 3;
+        inputs[model.getInputHandle("LUGGAGE")] = 2;
+        inputs[model.getInputHandle("SAFETY")] = 2;
+        model.evaluate(inputs, outputs);
+        assertEquals(3, outputs[model.getOutputHandle("CAR")]);
+
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < inputs.length; j++) {
+                inputs[j] = (i * (j + 7)) % model.basic.get(j).getScaleSize();
+            }
+            model.setInputValues(inputs);
+            model.evaluate();
+            model.evaluate(inputs, outputs);
+            for (int j = 0; j < outputs.length; j++) {
+                assertEquals(model.getOutputValue(j).getOrdinal().intValue(),
+                        outputs[j]);
             }
+        }
+    }
 
-            in.close();
-        } catch (IOException e) {
+    public void testIncrementalEvaluate() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        int[] inputs = new int[model.basic.size()];
+        int[] outputs = new int[model.aggregate.size()];
+        model.setInputValues(inputs);
+        model.evaluateIncremental();
+        for (int i = 0; i < 300; i++) {
+            int j = (i * 5) % inputs.length;
+            inputs[j] = (inputs[j] + 1 + i % 2)
+                    % model.basic.get(j).getScaleSize();
+            model.setInputValue(j, inputs[j]);
+            model.evaluateIncremental();
+            model.evaluate(inputs, outputs);
+            for (int k = 0; k < outputs.length; k++) {
+                assertEquals(outputs[k], model.getOutputValue(k).getOrdinal()
+                        .intValue());
+            }
         }
+    }
 
-        Model model = new Model(sb.toString());
+    public void testIncrementalUnaffected() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        Model full = Utils.loadXMLInModel("Car2.xml");
+        model.setInputValues(new int[] { 2, 2, 2, 3, 2, 2 });
+        model.evaluate();
+        Value price = model.getOutputValue("PRICE");
+        model.setInputValue("SAFETY", 0);
+        model.evaluateIncremental();
+        assertSame(price, model.getOutputValue("PRICE"));
+        full.setInputValues(new int[] { 2, 2, 2, 3, 2, 0 });
+        full.evaluate();
+        assertEquals(full.getOutputValues(), model.getOutputValues());
+
+        model.evaluate(Model.Evaluation.SET, true);
+        model.setInputValue("BUY.PRICE", 0);
+        model.evaluateIncremental();
+        full.setInputValue("BUY.PRICE", 0);
+        full.evaluate();
+        assertEquals(full.getOutputValues(), model.getOutputValues());
+    }
 
-        return model;
+    public void testPrimitiveInvalidOrdinal() throws IOException {
+        Model model = Utils.loadXMLInModel("Car2.xml");
+        try {
+            model.evaluate(new int[] { 0, 0, 3, 0, 0, 0 },
+                    new int[model.aggregate.size()]);
+            fail("Invalid ordinal accepted");
+        } catch (IllegalArgumentException e) {
+        }
     }
 }
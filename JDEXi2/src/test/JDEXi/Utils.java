@@ -41,8 +41,16 @@ import org.w3c.dom.Element;
 
 import org.xml.sax.InputSource;
 
+import si.JDEXi.Model;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.StringReader;
 
+import java.net.URL;
+
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 
@@ -71,4 +79,48 @@ public class Utils {
 
         return element;
     }
+
+    /**
+     * Reads an XML test resource from this package into a single string,
+     * dropping line breaks.
+     *
+     * @param xmlFile resource name relative to this package
+     * @return the file contents
+     * @throws IOException if the resource is missing or cannot be read
+     */
+    public static String loadXML(String xmlFile) throws IOException {
+        URL url = Utils.class.getResource(xmlFile);
+
+        if (url == null) {
+            throw new FileNotFoundException("Utils: Missing test file "
+                + xmlFile);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        BufferedReader in = new BufferedReader(new InputStreamReader(
+                    url.openStream()));
+
+        try {
+            String xml;
+
+            while ((xml = in.readLine()) != null) {
+                sb.append(xml);
+            }
+        } finally {
+            in.close();
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Loads a DEXi model from an XML test resource in this package.
+     *
+     * @param xmlFile resource name relative to this package
+     * @return the loaded model
+     * @throws IOException if the resource is missing or cannot be read
+     */
+    public static Model loadXMLInModel(String xmlFile) throws IOException {
+        return new Model(loadXML(xmlFile));
+    }
 }
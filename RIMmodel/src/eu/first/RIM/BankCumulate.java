@@ -2,6 +2,7 @@ package eu.first.RIM;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 
 /**
  * BankCumulate class. Accumulates Data evaluations in order to produce
@@ -17,9 +18,15 @@ public class BankCumulate {
     /**
      * Date obtained from Data. Used only for checking whether data of
      * consecutive Data objects match (because aggregating Data for different
-     * dates does not make sense and indicates an error).
+     * dates does not make sense and indicates an error). Id in dictionary, -1
+     * before the first ProdCumulate is cumulated.
      */
-    private String date;
+    private int dateId;
+
+    /**
+     * Dictionary of dateId, that of the first cumulate added; null before.
+     */
+    private Dictionary dictionary;
 
     /**
      * List of ProdCumulate that were cumulated into this BankCumulate.
@@ -31,6 +38,13 @@ public class BankCumulate {
      */
     private ArrayList<CtptCumulate> counterparts;
 
+    /**
+     * Sets of the same objects as products and counterparts, for testing
+     * membership. Cumulates are compared by identity.
+     */
+    private HashSet<ProdCumulate> productSet;
+    private HashSet<CtptCumulate> counterpartSet;
+
     /**
      * Cumulative RNp for all products
      */
@@ -52,9 +66,12 @@ public class BankCumulate {
      * Clears contents of all private objects.
      */
     public void clear() {
-        date = null;
+        dateId = -1;
+        dictionary = null;
         products = new ArrayList<ProdCumulate>();
         counterparts = new ArrayList<CtptCumulate>();
+        productSet = new HashSet<ProdCumulate>();
+        counterpartSet = new HashSet<CtptCumulate>();
         cRNp = 0.0;
         cRVp = 0.0;
     }
@@ -65,19 +82,19 @@ public class BankCumulate {
      * @return String
      */
     public String getDate() {
-        return new String(date);
+        return new String(dictionary.get(dateId));
     }
 
     /**
-     * Test whether two date strings match, i.e., one or both are null, or they
-     * are equal.
+     * Test whether two date ids match, i.e., one or both are undefined (-1),
+     * or they are equal.
      * 
      * @param date1
      * @param date2
      * @return boolean
      */
-    private boolean datesMatch(String date1, String date2) {
-        return (date1 == null) || (date2 == null) || (date1.equals(date2));
+    private boolean datesMatch(int date1, int date2) {
+        return (date1 < 0) || (date2 < 0) || (date1 == date2);
     }
 
     /**
@@ -88,21 +105,64 @@ public class BankCumulate {
      *             When this.date and d.date do not match.
      */
     public void cumulate(ProdCumulate p, CtptCumulate c) {
-        if (!datesMatch(date, p.getDate())) {
+        if (!datesMatch(dateId, p.getDateId())) {
             throw new UnsupportedOperationException(
                     "BankCumulate.cumulate(): Dates do not match");
         }
-        if (date == null) {
-            date = p.getDate();
+        if (dateId < 0) {
+            dateId = p.getDateId();
+            dictionary = p.dictionary;
         }
-        if (!counterparts.contains(c)) {
+        if (counterpartSet.add(c)) {
             counterparts.add(c);
         }
-        if (!products.contains(p)) {
+        if (productSet.add(p)) {
             products.add(p);
         }
     }
 
+    /**
+     * Adds ProdCumulate object, unless it has been added before.
+     * 
+     * @param p
+     * @throws UnsupportedOperationException
+     *             When this.date and p.date do not match.
+     */
+    void addProduct(ProdCumulate p) {
+        if (!datesMatch(dateId, p.getDateId())) {
+            throw new UnsupportedOperationException(
+                    "BankCumulate.addProduct(): Dates do not match");
+        }
+        if (dateId < 0) {
+            dateId = p.getDateId();
+            dictionary = p.dictionary;
+        }
+        if (productSet.add(p)) {
+            products.add(p);
+        }
+    }
+
+    /**
+     * Adds CtptCumulate object, unless it has been added before.
+     * 
+     * @param c
+     * @throws UnsupportedOperationException
+     *             When this.date and c.date do not match.
+     */
+    void addCounterpart(CtptCumulate c) {
+        if (!datesMatch(dateId, c.getDateId())) {
+            throw new UnsupportedOperationException(
+                    "BankCumulate.addCounterpart(): Dates do not match");
+        }
+        if (dateId < 0) {
+            dateId = c.getDateId();
+            dictionary = c.dictionary;
+        }
+        if (counterpartSet.add(c)) {
+            counterparts.add(c);
+        }
+    }
+
     public void calcWeights() {
 
         cRNp = 0.0;
@@ -153,7 +213,7 @@ public class BankCumulate {
             cnt = 0;
             for (int i = 0; i < products.size(); i++) {
                 ProdCumulate p = products.get(i);
-                String ctpt = p.getCounterparts()[0];
+                String ctpt = p.getCounterpart(0);
                 if (ctpt.equals(counterpart))
                     cnt++;
             }
@@ -162,7 +222,7 @@ public class BankCumulate {
         int j = 0;
         for (int i = 0; i < products.size(); i++) {
             ProdCumulate p = products.get(i);
-            String ctpt = p.getCounterparts()[0];
+            String ctpt = p.getCounterpart(0);
             if (counterpart == "" || counterpart.equals(ctpt)) {
                 result[j++] = p;
             }
@@ -0,0 +1,379 @@
+package eu.first.RIM;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import eu.first.RIM.Data;
+
+/**
+ * DataSource extension that reads Data objects from a binary columnar "RIM
+ * Binary" file, written by BinaryFileWriter.
+ *
+ * <p>
+ * File format (all numbers big-endian):
+ * <ul>
+ * <li>head: the line "RIM Binary", followed by a line exactly matching
+ * Data.tabbedInputNames(), both UTF-8 and terminated by '\n';</li>
+ * <li>a sequence of row groups, each consisting of:
+ * <ul>
+ * <li>int rows, int number of new dictionary entries, int size of new
+ * dictionary entries in bytes;</li>
+ * <li>new dictionary entries, each as int length followed by UTF-8 bytes;
+ * entries get consecutive ids, continuing from the previous group;</li>
+ * <li>columns of all input fields, in the order of Data.tabbedInputNames(),
+ * each holding rows values: int dictionary ids for counterpart, product,
+ * client and date, and double, long or int values, according to the type of
+ * the corresponding Data field;</li>
+ * </ul>
+ * </li>
+ * <li>an end mark: int 0.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Row groups are read in bulk, so no text parsing is involved. Dictionary
+ * entries are interned in the Dictionary of the source once per file, and ids
+ * in columns are translated to its ids once per row group. Rows are
+ * returned in the order they were written. Conversion errors cannot occur;
+ * getLineNumber() returns the row number.
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+public class BinaryFileDataSource extends DataSource {
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * First line of a "RIM Binary" file.
+     */
+    static final String MAGIC = "RIM Binary";
+
+    /**
+     * Size of a single row in columns: 6 int, 5 long and 7 double values.
+     */
+    static final int ROW_BYTES = 6 * 4 + 5 * 8 + 7 * 8;
+
+    private FileChannel channel;
+    private String fileName;
+
+    /**
+     * Dictionary ids of dictionary entries read so far, indexed by file
+     * ids.
+     */
+    private int[] ids = new int[16];
+    private int entries = 0;
+    private ByteBuffer buffer = ByteBuffer.allocate(0);
+
+    /**
+     * Columns of the current row group.
+     */
+    private int rows = 0;
+    private int[] counterpart, product, client, date, SRI, RP;
+    private long[] TN, Np, Vp, V1, Vc;
+    private double[] Slp, Ssp, TA, PP, BP, dB, P;
+
+    /**
+     * Index of the next row in the current row group.
+     */
+    private int idx = 0;
+
+    private boolean end = false;
+    private long lineNumber = 0;
+
+    /**
+     * Constructor from file name.
+     *
+     * @param fileName
+     * @throws IOException
+     *             When file head does not correspond to requirements.
+     */
+    public BinaryFileDataSource(String fileName) throws IOException {
+        this(fileName, new Dictionary());
+    }
+
+    /**
+     * Constructor from file name and the Dictionary strings are interned in.
+     *
+     * @param fileName
+     * @param dictionary
+     * @throws IOException
+     *             When file head does not correspond to requirements.
+     */
+    public BinaryFileDataSource(String fileName, Dictionary dictionary)
+            throws IOException {
+
+        super(dictionary);
+        this.fileName = fileName;
+        channel = new FileInputStream(fileName).getChannel();
+        testFileHead();
+    }
+
+    /**
+     * Tests whether file starts with the "RIM Binary" head.
+     *
+     * @param fileName
+     * @return true for binary files.
+     * @throws IOException
+     */
+    public static boolean isBinary(String fileName) throws IOException {
+        byte[] magic = (MAGIC + "\n").getBytes(UTF8);
+        byte[] head = new byte[magic.length];
+        FileInputStream in = new FileInputStream(fileName);
+        try {
+            int n = 0;
+            while (n < head.length) {
+                int k = in.read(head, n, head.length - n);
+                if (k < 0) {
+                    return false;
+                }
+                n += k;
+            }
+        } finally {
+            in.close();
+        }
+        return Arrays.equals(head, magic);
+    }
+
+    /**
+     * Read exactly n bytes into buffer, which is left flipped.
+     *
+     * @param n
+     * @throws IOException
+     *             At premature end of file.
+     */
+    private void read(int n) throws IOException {
+        if (buffer.capacity() < n) {
+            buffer = ByteBuffer.allocate(Math.max(n, 2 * buffer.capacity()));
+        }
+        buffer.clear();
+        buffer.limit(n);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException(String.format(
+                        "BinaryFileDataSource: File %s is truncated", fileName));
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Tests file head.
+     *
+     * @throws IOException
+     *             When head is inappropriate.
+     */
+    private void testFileHead() throws IOException {
+
+        byte[] head = (MAGIC + "\n" + Data.tabbedInputNames() + "\n")
+                .getBytes(UTF8);
+        ByteBuffer expected = ByteBuffer.wrap(head);
+        try {
+            read(head.length);
+        } catch (IOException e) {
+            buffer.limit(0);
+        }
+        if (!buffer.equals(expected)) {
+            throw new IOException(String.format(
+                    "BinaryFileDataSource: File %s is not a RIM Binary file "
+                            + "with input fields:\n\"%s\"", fileName,
+                    Data.tabbedInputNames()));
+        }
+    }
+
+    /**
+     * Read the next row group.
+     *
+     * @throws IOException
+     */
+    private void readGroup() throws IOException {
+        read(12);
+        rows = buffer.getInt();
+        int added = buffer.getInt();
+        int bytes = buffer.getInt();
+        if (rows == 0) {
+            end = true;
+            return;
+        }
+        read(bytes);
+        if (entries + added > ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(entries + added, 2 * ids.length));
+        }
+        for (int i = 0; i < added; i++) {
+            int len = buffer.getInt();
+            ids[entries++] = getDictionary().id(new String(buffer.array(),
+                    buffer.position(), len, UTF8));
+            buffer.position(buffer.position() + len);
+        }
+        if (counterpart == null || counterpart.length < rows) {
+            allocate(rows);
+        }
+        read(rows * ROW_BYTES);
+        getIds(counterpart);
+        getIds(product);
+        getIds(client);
+        getIds(date);
+        getDoubles(Slp);
+        getDoubles(Ssp);
+        getLongs(TN);
+        getDoubles(TA);
+        getInts(SRI);
+        getLongs(Np);
+        getLongs(Vp);
+        getInts(RP);
+        getLongs(V1);
+        getLongs(Vc);
+        getDoubles(PP);
+        getDoubles(BP);
+        getDoubles(dB);
+        getDoubles(P);
+        idx = 0;
+    }
+
+    private void allocate(int n) {
+        counterpart = new int[n];
+        product = new int[n];
+        client = new int[n];
+        date = new int[n];
+        SRI = new int[n];
+        RP = new int[n];
+        TN = new long[n];
+        Np = new long[n];
+        Vp = new long[n];
+        V1 = new long[n];
+        Vc = new long[n];
+        Slp = new double[n];
+        Ssp = new double[n];
+        TA = new double[n];
+        PP = new double[n];
+        BP = new double[n];
+        dB = new double[n];
+        P = new double[n];
+    }
+
+    private void getIds(int[] column) {
+        getInts(column);
+        for (int i = 0; i < rows; i++) {
+            column[i] = ids[column[i]];
+        }
+    }
+
+    private void getInts(int[] column) {
+        buffer.asIntBuffer().get(column, 0, rows);
+        buffer.position(buffer.position() + 4 * rows);
+    }
+
+    private void getLongs(long[] column) {
+        buffer.asLongBuffer().get(column, 0, rows);
+        buffer.position(buffer.position() + 8 * rows);
+    }
+
+    private void getDoubles(double[] column) {
+        buffer.asDoubleBuffer().get(column, 0, rows);
+        buffer.position(buffer.position() + 8 * rows);
+    }
+
+    /**
+     * Tests whether there is another row available for getNext().
+     *
+     * @throws IOException
+     */
+    public boolean hasNext() throws IOException {
+
+        while (!end && idx >= rows) {
+            readGroup();
+            if (end) {
+                channel.close();
+            }
+        }
+        return !end;
+    }
+
+    /**
+     * Returns Data object made of the next row.
+     *
+     * @throws IOException
+     */
+    public Data getNext() throws IOException {
+
+        if (!hasNext()) {
+            throw new IOException("BinaryFileDataSource: No more data in "
+                    + fileName);
+        }
+        int i = idx++;
+        lineNumber++;
+        return new Data(getDictionary(), counterpart[i], product[i],
+                client[i], date[i], Slp[i], Ssp[i], TN[i], TA[i], SRI[i],
+                Np[i], Vp[i], RP[i], V1[i], Vc[i], PP[i], BP[i], dB[i], P[i]);
+    }
+
+    /**
+     * Copies up to block.capacity next rows straight from columns into block.
+     *
+     * @throws IOException
+     */
+    public int nextBatch(DataBlock block) throws IOException {
+
+        block.clear();
+        block.dictionary = getDictionary();
+        while (block.size < block.capacity && hasNext()) {
+            int n = Math.min(block.capacity - block.size, rows - idx);
+            int k = block.size;
+            System.arraycopy(counterpart, idx, block.counterpartId, k, n);
+            System.arraycopy(product, idx, block.productId, k, n);
+            System.arraycopy(client, idx, block.clientId, k, n);
+            System.arraycopy(date, idx, block.dateId, k, n);
+            System.arraycopy(Slp, idx, block.Slp, k, n);
+            System.arraycopy(Ssp, idx, block.Ssp, k, n);
+            System.arraycopy(TN, idx, block.TN, k, n);
+            System.arraycopy(TA, idx, block.TA, k, n);
+            System.arraycopy(SRI, idx, block.SRI, k, n);
+            System.arraycopy(Np, idx, block.Np, k, n);
+            System.arraycopy(Vp, idx, block.Vp, k, n);
+            System.arraycopy(RP, idx, block.RP, k, n);
+            System.arraycopy(V1, idx, block.V1, k, n);
+            System.arraycopy(Vc, idx, block.Vc, k, n);
+            System.arraycopy(PP, idx, block.PP, k, n);
+            System.arraycopy(BP, idx, block.BP, k, n);
+            System.arraycopy(dB, idx, block.dB, k, n);
+            System.arraycopy(P, idx, block.P, k, n);
+            for (int i = k; i < k + n; i++) {
+                block.valid[i] = true;
+                block.error[i] = null;
+                block.lineNumber[i] = ++lineNumber;
+                block.fileName[i] = fileName;
+            }
+            idx += n;
+            block.size += n;
+        }
+        return block.size;
+    }
+
+    /**
+     * Binary files contain no conversion errors.
+     */
+    public String getLastError() {
+        return null;
+    }
+
+    /**
+     * Row number of the item last returned by getNext().
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Name of the input file.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+}
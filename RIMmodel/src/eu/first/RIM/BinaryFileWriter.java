@@ -0,0 +1,262 @@
+package eu.first.RIM;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import eu.first.RIM.Data;
+
+/**
+ * BinaryFileWriter class. Writes input fields of Data objects to a binary
+ * columnar "RIM Binary" file, which can be read back by BinaryFileDataSource.
+ * See BinaryFileDataSource for the description of the format.
+ *
+ * <p>
+ * Used as a program, it converts one or more "RIM Data" tab-delimited files
+ * into a single binary file:<br/>
+ * <code>java -cp RIM.jar eu.first.RIM.BinaryFileWriter input_file [input_file...] output_file</code>
+ * <br/>
+ * Lines that cannot be converted are reported and skipped.
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+public class BinaryFileWriter {
+
+    /**
+     * Default number of rows in a row group.
+     */
+    public static final int GROUP = 1 << 16;
+
+    private FileChannel channel;
+    private Dictionary dictionary = new Dictionary();
+
+    /**
+     * Number of dictionary entries already written.
+     */
+    private int written = 0;
+
+    /**
+     * Columns of the current row group.
+     */
+    private int rows = 0;
+    private int[] counterpart, product, client, date, SRI, RP;
+    private long[] TN, Np, Vp, V1, Vc;
+    private double[] Slp, Ssp, TA, PP, BP, dB, P;
+
+    private ByteBuffer buffer;
+
+    /**
+     * Constructor from file name and row group size. Creates the file and
+     * writes its head.
+     *
+     * @param fileName
+     * @param group
+     *            Number of rows in a row group.
+     * @throws IOException
+     */
+    public BinaryFileWriter(String fileName, int group) throws IOException {
+
+        channel = new FileOutputStream(fileName).getChannel();
+        counterpart = new int[group];
+        product = new int[group];
+        client = new int[group];
+        date = new int[group];
+        SRI = new int[group];
+        RP = new int[group];
+        TN = new long[group];
+        Np = new long[group];
+        Vp = new long[group];
+        V1 = new long[group];
+        Vc = new long[group];
+        Slp = new double[group];
+        Ssp = new double[group];
+        TA = new double[group];
+        PP = new double[group];
+        BP = new double[group];
+        dB = new double[group];
+        P = new double[group];
+        buffer = ByteBuffer.allocate(12 + group
+                * BinaryFileDataSource.ROW_BYTES);
+        write(ByteBuffer.wrap((BinaryFileDataSource.MAGIC + "\n"
+                + Data.tabbedInputNames() + "\n")
+                .getBytes(BinaryFileDataSource.UTF8)));
+    }
+
+    /**
+     * Constructor assuming default row group size.
+     *
+     * @param fileName
+     * @throws IOException
+     */
+    public BinaryFileWriter(String fileName) throws IOException {
+        this(fileName, GROUP);
+    }
+
+    /**
+     * Appends input fields of data.
+     *
+     * @param data
+     * @throws IOException
+     */
+    public void write(Data data) throws IOException {
+        int i = rows;
+        counterpart[i] = dictionary.id(data.counterpart);
+        product[i] = dictionary.id(data.product);
+        client[i] = dictionary.id(data.client);
+        date[i] = dictionary.id(data.date);
+        Slp[i] = data.Slp;
+        Ssp[i] = data.Ssp;
+        TN[i] = data.TN;
+        TA[i] = data.TA;
+        SRI[i] = data.SRI;
+        Np[i] = data.Np;
+        Vp[i] = data.Vp;
+        RP[i] = data.RP;
+        V1[i] = data.V1;
+        Vc[i] = data.Vc;
+        PP[i] = data.PP;
+        BP[i] = data.BP;
+        dB[i] = data.dB;
+        P[i] = data.P;
+        if (++rows == counterpart.length) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the current row group, if not empty.
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        int entries = dictionary.size() - written;
+        byte[][] strings = new byte[entries][];
+        int bytes = 0;
+        for (int i = 0; i < entries; i++) {
+            strings[i] = dictionary.get(written + i).getBytes(
+                    BinaryFileDataSource.UTF8);
+            bytes += 4 + strings[i].length;
+        }
+        ByteBuffer head = ByteBuffer.allocate(12 + bytes);
+        head.putInt(rows).putInt(entries).putInt(bytes);
+        for (int i = 0; i < entries; i++) {
+            head.putInt(strings[i].length).put(strings[i]);
+        }
+        head.flip();
+        write(head);
+        written += entries;
+
+        buffer.clear();
+        putInts(counterpart);
+        putInts(product);
+        putInts(client);
+        putInts(date);
+        putDoubles(Slp);
+        putDoubles(Ssp);
+        putLongs(TN);
+        putDoubles(TA);
+        putInts(SRI);
+        putLongs(Np);
+        putLongs(Vp);
+        putInts(RP);
+        putLongs(V1);
+        putLongs(Vc);
+        putDoubles(PP);
+        putDoubles(BP);
+        putDoubles(dB);
+        putDoubles(P);
+        buffer.flip();
+        write(buffer);
+        rows = 0;
+    }
+
+    /**
+     * Writes the remaining rows and the end mark, and closes the file.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        flush();
+        ByteBuffer end = ByteBuffer.allocate(12);
+        end.putInt(0).putInt(0).putInt(0).flip();
+        write(end);
+        channel.close();
+    }
+
+    private void write(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+
+    private void putInts(int[] column) {
+        buffer.asIntBuffer().put(column, 0, rows);
+        buffer.position(buffer.position() + 4 * rows);
+    }
+
+    private void putLongs(long[] column) {
+        buffer.asLongBuffer().put(column, 0, rows);
+        buffer.position(buffer.position() + 8 * rows);
+    }
+
+    private void putDoubles(double[] column) {
+        buffer.asDoubleBuffer().put(column, 0, rows);
+        buffer.position(buffer.position() + 8 * rows);
+    }
+
+    /**
+     * Usage: java -cp RIM.jar eu.first.RIM.BinaryFileWriter input_file
+     * [input_file...] output_file
+     *
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+
+        if (args.length < 2) {
+            System.out
+                    .println("Usage: java -cp RIM.jar eu.first.RIM.BinaryFileWriter input_file [input_file...] output_file");
+            System.exit(1);
+        }
+        for (int i = 0; i < args.length - 1; i++) {
+            File file = new File(args[i]);
+            if (!file.exists()) {
+                System.out.println("Input file does not exist: " + args[i]);
+                System.exit(2);
+            }
+        }
+        int dataCount = 0;
+        int dataErrorsCount = 0;
+        BinaryFileWriter writer = new BinaryFileWriter(args[args.length - 1]);
+        for (int i = 0; i < args.length - 1; i++) {
+            System.out.println("Converting file " + args[i]);
+            DataSource source = new MappedFileDataSource(args[i]);
+            while (source.hasNext()) {
+                Data data = source.getNext();
+                if (data == null) {
+                    System.out.println(String.format(
+                            "Error reading data item in line %d: %s",
+                            source.getLineNumber(), source.getLastError()));
+                    dataErrorsCount++;
+                } else {
+                    writer.write(data);
+                    dataCount++;
+                }
+            }
+        }
+        writer.close();
+        System.out.println("Data items written: " + dataCount);
+        if (dataErrorsCount > 0) {
+            System.out.println("Input data warnings: " + dataErrorsCount);
+        }
+    }
+
+}
@@ -0,0 +1,274 @@
+package eu.first.RIM;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * InputStream that decompresses block gzip data in parallel.
+ *
+ * <p>
+ * Block gzip (as written by BlockGzipOutputStream, or by the bgzip tool) is a
+ * sequence of independent gzip members of at most 64 KB each, whose compressed
+ * size is stored in a "BC" extra field of the gzip header. Block gzip files are
+ * valid gzip files, but, unlike plain gzip, the blocks can be located without
+ * decompressing and can therefore be inflated independently.
+ * </p>
+ *
+ * <p>
+ * Compressed blocks are read in the caller's thread and inflated on a thread
+ * pool. A few blocks per thread are inflated ahead of the reader; decompressed
+ * data is returned strictly in file order.
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+public class BlockGzipInputStream extends InputStream {
+
+    /**
+     * Number of blocks inflated ahead of the reader, per thread.
+     */
+    private static final int AHEAD = 4;
+
+    private InputStream in;
+    private ExecutorService pool;
+    private int ahead;
+    private boolean eof = false;
+
+    /**
+     * Blocks submitted for inflating, in file order.
+     */
+    private ArrayDeque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+
+    /**
+     * Block currently being read and the position of its next byte.
+     */
+    private byte[] block = new byte[0];
+    private int pos = 0;
+
+    /**
+     * Task inflating a single block.
+     */
+    private static class Inflate implements Callable<byte[]> {
+
+        private byte[] raw;
+
+        Inflate(byte[] raw) {
+            this.raw = raw;
+        }
+
+        @Override
+        public byte[] call() throws IOException {
+            int n = raw.length;
+            int size = (raw[n - 4] & 0xff) | (raw[n - 3] & 0xff) << 8
+                    | (raw[n - 2] & 0xff) << 16 | (raw[n - 1] & 0xff) << 24;
+            long crc = (raw[n - 8] & 0xff) | (raw[n - 7] & 0xff) << 8
+                    | (raw[n - 6] & 0xff) << 16 | (raw[n - 5] & 0xffL) << 24;
+            byte[] data = new byte[size];
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(raw, 0, n - 8);
+                int len = 0;
+                while (len < size && !inflater.finished()) {
+                    int k = inflater.inflate(data, len, size - len);
+                    if (k == 0 && (inflater.needsInput() || inflater
+                            .needsDictionary())) {
+                        break;
+                    }
+                    len += k;
+                }
+                if (len != size) {
+                    throw new IOException(
+                            "BlockGzipInputStream: Corrupt block, size mismatch");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("BlockGzipInputStream: Corrupt block", e);
+            } finally {
+                inflater.end();
+            }
+            CRC32 check = new CRC32();
+            check.update(data, 0, size);
+            if (check.getValue() != crc) {
+                throw new IOException(
+                        "BlockGzipInputStream: Corrupt block, CRC mismatch");
+            }
+            return data;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param in
+     *            Block gzip data.
+     * @param threads
+     *            Number of inflating threads.
+     */
+    public BlockGzipInputStream(InputStream in, int threads) {
+        this.in = in;
+        ahead = AHEAD * threads;
+        pool = Executors.newFixedThreadPool(threads, new DaemonThreadFactory(
+                "BlockGzipInputStream"));
+    }
+
+    /**
+     * Tests whether head, the first bytes of a file, is the head of a block
+     * gzip file.
+     *
+     * @param head
+     * @param len
+     *            Number of valid bytes in head.
+     * @return boolean
+     */
+    public static boolean isBlockGzip(byte[] head, int len) {
+        return len >= 16 && (head[0] & 0xff) == 0x1f
+                && (head[1] & 0xff) == 0x8b && head[2] == 8
+                && (head[3] & 4) != 0 && head[12] == 'B' && head[13] == 'C'
+                && head[14] == 2 && head[15] == 0;
+    }
+
+    /**
+     * Read exactly n bytes into b.
+     *
+     * @param b
+     * @param off
+     * @param n
+     * @return false if end of stream occurs before the first byte.
+     * @throws IOException
+     *             If end of stream occurs after the first byte.
+     */
+    private boolean readFully(byte[] b, int off, int n) throws IOException {
+        int len = 0;
+        while (len < n) {
+            int k = in.read(b, off + len, n - len);
+            if (k < 0) {
+                if (len == 0) {
+                    return false;
+                }
+                throw new IOException("BlockGzipInputStream: Truncated block");
+            }
+            len += k;
+        }
+        return true;
+    }
+
+    /**
+     * Read the next compressed block and submit it for inflating.
+     *
+     * @return false at end of stream.
+     * @throws IOException
+     */
+    private boolean submit() throws IOException {
+        byte[] head = new byte[12];
+        if (!readFully(head, 0, head.length)) {
+            return false;
+        }
+        int xlen = (head[10] & 0xff) | (head[11] & 0xff) << 8;
+        if ((head[0] & 0xff) != 0x1f || (head[1] & 0xff) != 0x8b
+                || head[2] != 8 || (head[3] & 4) == 0 || xlen < 6) {
+            throw new IOException("BlockGzipInputStream: Not a block gzip block");
+        }
+        byte[] extra = new byte[xlen];
+        if (!readFully(extra, 0, xlen)) {
+            throw new IOException("BlockGzipInputStream: Truncated block");
+        }
+        int bsize = -1;
+        for (int i = 0; i + 4 <= xlen;) {
+            int slen = (extra[i + 2] & 0xff) | (extra[i + 3] & 0xff) << 8;
+            if (extra[i] == 'B' && extra[i + 1] == 'C' && slen == 2) {
+                bsize = (extra[i + 4] & 0xff) | (extra[i + 5] & 0xff) << 8;
+            }
+            i += 4 + slen;
+        }
+        if (bsize < 0) {
+            throw new IOException("BlockGzipInputStream: Missing block size");
+        }
+        int rest = bsize + 1 - 12 - xlen;
+        if (rest < 8) {
+            throw new IOException("BlockGzipInputStream: Invalid block size");
+        }
+        byte[] raw = new byte[rest];
+        if (!readFully(raw, 0, rest)) {
+            throw new IOException("BlockGzipInputStream: Truncated block");
+        }
+        pending.add(pool.submit(new Inflate(raw)));
+        return true;
+    }
+
+    /**
+     * Make the next non-empty block current.
+     *
+     * @return false at end of stream.
+     * @throws IOException
+     */
+    private boolean nextBlock() throws IOException {
+        while (pos >= block.length) {
+            while (!eof && pending.size() < ahead) {
+                eof = !submit();
+            }
+            Future<byte[]> task = pending.poll();
+            if (task == null) {
+                return false;
+            }
+            try {
+                block = task.get();
+            } catch (ExecutionException e) {
+                close();
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                close();
+                throw new IOException("BlockGzipInputStream: Interrupted", e);
+            }
+            pos = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextBlock()) {
+            return -1;
+        }
+        return block[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextBlock()) {
+            return -1;
+        }
+        int n = Math.min(len, block.length - pos);
+        System.arraycopy(block, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return block.length - pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        pool.shutdownNow();
+        pending.clear();
+        in.close();
+    }
+
+}
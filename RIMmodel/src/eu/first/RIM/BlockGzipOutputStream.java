@@ -0,0 +1,195 @@
+package eu.first.RIM;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * OutputStream that compresses data into block gzip format, which can be
+ * decompressed in parallel by BlockGzipInputStream. See BlockGzipInputStream
+ * for the description of the format. The output is a valid gzip file.
+ *
+ * <p>
+ * Used as a program, it compresses a single file:<br/>
+ * <code>java -cp RIM.jar eu.first.RIM.BlockGzipOutputStream input_file output_file</code>
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+public class BlockGzipOutputStream extends OutputStream {
+
+    /**
+     * Maximum size of uncompressed data in a block, chosen so that the
+     * compressed block always fits into 64 KB.
+     */
+    private static final int BLOCK = 0xff00;
+
+    /**
+     * Maximum size of a compressed block.
+     */
+    private static final int MAX_BLOCK = 0x10000;
+
+    /**
+     * Size of block head and tail.
+     */
+    private static final int HEAD = 18;
+    private static final int TAIL = 8;
+
+    private OutputStream out;
+    private Deflater deflater;
+    private CRC32 crc = new CRC32();
+    private byte[] data = new byte[BLOCK];
+    private int size = 0;
+    private byte[] block = new byte[MAX_BLOCK];
+
+    /**
+     * Constructor.
+     *
+     * @param out
+     * @param level
+     *            Compression level, 0-9.
+     */
+    public BlockGzipOutputStream(OutputStream out, int level) {
+        this.out = out;
+        deflater = new Deflater(level, true);
+    }
+
+    /**
+     * Constructor with default compression level.
+     *
+     * @param out
+     */
+    public BlockGzipOutputStream(OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (size == BLOCK) {
+            writeBlock();
+        }
+        data[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (size == BLOCK) {
+                writeBlock();
+            }
+            int n = Math.min(len, BLOCK - size);
+            System.arraycopy(b, off, data, size, n);
+            size += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    private static void putShort(byte[] b, int off, int v) {
+        b[off] = (byte) v;
+        b[off + 1] = (byte) (v >> 8);
+    }
+
+    private static void putInt(byte[] b, int off, int v) {
+        putShort(b, off, v);
+        putShort(b, off + 2, v >> 16);
+    }
+
+    /**
+     * Compress and write buffered data as a single block. An empty block marks
+     * the end of file.
+     *
+     * @throws IOException
+     */
+    private void writeBlock() throws IOException {
+        deflater.reset();
+        deflater.setInput(data, 0, size);
+        deflater.finish();
+        int len = 0;
+        while (!deflater.finished()) {
+            len += deflater.deflate(block, HEAD + len, MAX_BLOCK - HEAD - TAIL
+                    - len);
+            if (HEAD + len + TAIL == MAX_BLOCK && !deflater.finished()) {
+                throw new IOException(
+                        "BlockGzipOutputStream: Compressed block too large");
+            }
+        }
+        crc.reset();
+        crc.update(data, 0, size);
+        int bsize = HEAD + len + TAIL;
+        block[0] = 0x1f;
+        block[1] = (byte) 0x8b;
+        block[2] = 8; // deflate
+        block[3] = 4; // FEXTRA
+        putInt(block, 4, 0); // MTIME
+        block[8] = 0; // XFL
+        block[9] = (byte) 0xff; // OS unknown
+        putShort(block, 10, 6); // XLEN
+        block[12] = 'B';
+        block[13] = 'C';
+        putShort(block, 14, 2);
+        putShort(block, 16, bsize - 1);
+        putInt(block, HEAD + len, (int) crc.getValue());
+        putInt(block, HEAD + len + 4, size);
+        out.write(block, 0, bsize);
+        size = 0;
+    }
+
+    /**
+     * Writes buffered data as a block, if any.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (size > 0) {
+            writeBlock();
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes buffered data and the end-of-file block, and closes the
+     * underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (size > 0) {
+            writeBlock();
+        }
+        writeBlock();
+        deflater.end();
+        out.close();
+    }
+
+    /**
+     * Usage: java -cp RIM.jar eu.first.RIM.BlockGzipOutputStream input_file
+     * output_file
+     *
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+
+        if (args.length != 2) {
+            System.out
+                    .println("Usage: java -cp RIM.jar eu.first.RIM.BlockGzipOutputStream input_file output_file");
+            System.exit(1);
+        }
+        InputStream in = new FileInputStream(args[0]);
+        OutputStream out = new BlockGzipOutputStream(new FileOutputStream(
+                args[1]));
+        byte[] buffer = new byte[BLOCK];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        out.close();
+    }
+
+}
@@ -0,0 +1,128 @@
+package eu.first.RIM;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import eu.first.RIM.Data;
+
+/**
+ * ColumnMap class. Maps input fields of Data, in the order of
+ * Data.tabbedInputNames(), to columns of a delimited "RIM Data" file, as named
+ * in line 2 of the file. Columns may appear in any order; columns with other
+ * names are ignored. Names are compared ignoring case and surrounding blanks.
+ *
+ * <p>
+ * The map is compiled once per file into a flat table of column positions,
+ * indexed by field, so that a line is still parsed field by field with the
+ * parser of the field's type, only reading each field from its mapped column.
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+class ColumnMap {
+
+    private static final String[] names = Data.tabbedInputNames().split("\t");
+
+    /**
+     * Map of a file whose line 2 is exactly Data.tabbedInputNames().
+     */
+    static final ColumnMap identity = new ColumnMap(identityColumns());
+
+    /**
+     * Column position of each input field.
+     */
+    final int[] columns;
+
+    /**
+     * Number of columns needed to read all fields, that is, the last mapped
+     * column position + 1. Further columns of a line are never looked at.
+     */
+    final int width;
+
+    private ColumnMap(int[] columns) {
+        this.columns = columns;
+        int w = 0;
+        for (int c : columns) {
+            w = Math.max(w, c + 1);
+        }
+        width = w;
+    }
+
+    private static int[] identityColumns() {
+        int[] columns = new int[names.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = i;
+        }
+        return columns;
+    }
+
+    /**
+     * Tests whether fields are read from leading columns in their own order.
+     *
+     * @return boolean
+     */
+    boolean isIdentity() {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compiles the map from the tab-delimited column names of file.
+     *
+     * @param fileName
+     *            Used in messages.
+     * @param header
+     *            Line 2 of file.
+     * @return ColumnMap
+     * @throws IOException
+     *             When some field has no column or more than one.
+     */
+    static ColumnMap compile(String fileName, String header)
+            throws IOException {
+
+        if (header.equals(Data.tabbedInputNames())) {
+            return identity;
+        }
+        HashMap<String, Integer> fields = new HashMap<String, Integer>();
+        for (int i = 0; i < names.length; i++) {
+            fields.put(names[i].toLowerCase(), i);
+        }
+        int[] columns = new int[names.length];
+        Arrays.fill(columns, -1);
+        String[] head = header.split("\t");
+        for (int c = 0; c < head.length; c++) {
+            Integer field = fields.get(head[c].trim().toLowerCase());
+            if (field == null) {
+                continue;
+            }
+            if (columns[field] >= 0) {
+                throw new IOException(String.format(
+                        "ColumnMap: Column %s appears twice in file %s",
+                        names[field], fileName));
+            }
+            columns[field] = c;
+        }
+        StringBuffer missing = new StringBuffer();
+        for (int i = 0; i < names.length; i++) {
+            if (columns[i] < 0) {
+                missing.append(missing.length() > 0 ? ", " : "").append(
+                        names[i]);
+            }
+        }
+        if (missing.length() > 0) {
+            throw new IOException(String.format(
+                    "ColumnMap: Line 2 of file %s has no column %s; it should contain:\n\"%s\"",
+                    fileName, missing, Data.tabbedInputNames()));
+        }
+        ColumnMap map = new ColumnMap(columns);
+        return map.isIdentity() ? identity : map;
+    }
+
+}
@@ -0,0 +1,140 @@
+package eu.first.RIM;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * CompressedInput class. Opens input files or streams that are possibly
+ * compressed, recognizing the format by the first bytes of the input:
+ * <ul>
+ * <li>block gzip: decompressed in parallel by BlockGzipInputStream;</li>
+ * <li>gzip: decompressed by GZIPInputStream in a background thread;</li>
+ * <li>anything else: read as is.</li>
+ * </ul>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+class CompressedInput {
+
+    /**
+     * File name that stands for standard input.
+     */
+    public static final String STDIN = "-";
+
+    private static final int HEAD = 16;
+
+    /**
+     * Read up to HEAD first bytes of in, leaving in at its start.
+     *
+     * @param in
+     *            Stream supporting mark().
+     * @param head
+     * @return Number of bytes read.
+     * @throws IOException
+     */
+    private static int head(InputStream in, byte[] head) throws IOException {
+        in.mark(head.length);
+        int len = 0;
+        int k;
+        while (len < head.length
+                && (k = in.read(head, len, head.length - len)) >= 0) {
+            len += k;
+        }
+        in.reset();
+        return len;
+    }
+
+    private static boolean isGzip(byte[] head, int len) {
+        return len >= 2 && (head[0] & 0xff) == 0x1f
+                && (head[1] & 0xff) == 0x8b;
+    }
+
+    /**
+     * Tests whether fileName stands for a regular file, as opposed to standard
+     * input, a named pipe or a device. Input that is not a regular file can be
+     * read only once, as a stream.
+     *
+     * @param fileName
+     * @return boolean
+     */
+    public static boolean isRegularFile(String fileName) {
+        return !STDIN.equals(fileName) && new File(fileName).isFile();
+    }
+
+    /**
+     * Open raw (possibly compressed) input: standard input for STDIN, file
+     * otherwise.
+     *
+     * @param fileName
+     * @return InputStream
+     * @throws IOException
+     */
+    public static InputStream raw(String fileName) throws IOException {
+        if (STDIN.equals(fileName)) {
+            return System.in;
+        }
+        return new FileInputStream(fileName);
+    }
+
+    /**
+     * Tests whether file is compressed (in gzip or block gzip format).
+     *
+     * @param fileName
+     * @return boolean
+     * @throws IOException
+     */
+    public static boolean isCompressed(String fileName) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(fileName),
+                HEAD);
+        try {
+            byte[] head = new byte[HEAD];
+            return isGzip(head, head(in, head));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Open stream for reading, decompressing it if needed.
+     *
+     * @param raw
+     *            Possibly compressed input.
+     * @param threads
+     *            Number of threads used for block gzip decompression.
+     * @return InputStream of uncompressed data.
+     * @throws IOException
+     */
+    public static InputStream open(InputStream raw, int threads)
+            throws IOException {
+        InputStream in = new BufferedInputStream(raw, 1 << 16);
+        byte[] head = new byte[HEAD];
+        int len = head(in, head);
+        if (BlockGzipInputStream.isBlockGzip(head, len)) {
+            return new BlockGzipInputStream(in, threads);
+        }
+        if (isGzip(head, len)) {
+            return new ReadAheadInputStream(new GZIPInputStream(in, 1 << 16));
+        }
+        return in;
+    }
+
+    /**
+     * Open stream for reading, decompressing it if needed, with one block gzip
+     * decompression thread per available processor.
+     *
+     * @param raw
+     *            Possibly compressed input.
+     * @return InputStream of uncompressed data.
+     * @throws IOException
+     */
+    public static InputStream open(InputStream raw) throws IOException {
+        return open(raw, Runtime.getRuntime().availableProcessors());
+    }
+
+}
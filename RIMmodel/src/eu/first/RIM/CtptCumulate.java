@@ -17,14 +17,25 @@ public class CtptCumulate extends ProdCumulate {
     // Counterpart sentiment
     public double S;
 
-    private SortedMap<String, ProdCumulate> prods;
+    private SortedMap<Key, ProdCumulate> prods;
 
     /**
-     * Constructor. Only creates empty private objects.
+     * Constructor. Only creates empty private objects, with a Dictionary of
+     * their own.
      */
     public CtptCumulate() {
-        super();
-        prods = new TreeMap<String, ProdCumulate>();
+        this(new Dictionary());
+    }
+
+    /**
+     * Constructor. Only creates empty private objects; strings of Data are
+     * interned in dictionary.
+     * 
+     * @param dictionary
+     */
+    public CtptCumulate(Dictionary dictionary) {
+        super(dictionary);
+        prods = new TreeMap<Key, ProdCumulate>();
     }
 
     public void cumulate(Data d) {
@@ -32,6 +43,11 @@ public class CtptCumulate extends ProdCumulate {
         S = d.S;
     }
 
+    public void cumulate(DataBlock b, int i) {
+        super.cumulate(b, i);
+        S = b.S[i];
+    }
+
     @Override
     protected void cumulateRNp(double RNp, boolean newProd) {
         if (newProd) {
@@ -51,8 +67,47 @@ public class CtptCumulate extends ProdCumulate {
         }
     }
 
+    @Override
+    protected void mergeRNp(double RNp, boolean later) {
+        cRNp += RNp;
+    }
+
+    @Override
+    protected void mergeRVp(double RVp, boolean later) {
+        cRVp += RVp;
+    }
+
+    /**
+     * Merges counterpart cumulate c into this one. The products of c must
+     * not be in this cumulate, as their cRNp and cRVp are added.
+     * 
+     * @param c
+     */
+    public void merge(CtptCumulate c) {
+        boolean later = c.last > last;
+        super.merge(c);
+        if (later) {
+            S = c.S;
+        }
+        for (SortedMap.Entry<Key, ProdCumulate> entry : c.prods.entrySet()) {
+            if (!prods.containsKey(entry.getKey())) {
+                prods.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
     public void addProduct(ProdCumulate p) {
-        String key = p.getProducts()[0];
+        addProduct(p.products.get(0), p);
+    }
+
+    /**
+     * Add product cumulate p, given the dictionary id of its product.
+     * 
+     * @param productId
+     * @param p
+     */
+    public void addProduct(int productId, ProdCumulate p) {
+        Key key = new Key(dictionary, productId);
         ProdCumulate cumul = prods.get(key);
         if (cumul == null) {
             prods.put(key, p);
@@ -70,7 +125,7 @@ public class CtptCumulate extends ProdCumulate {
 
         double sumW = 0.0;
         double weiRI = 0.0;
-        for (SortedMap.Entry<String, ProdCumulate> entry : prods.entrySet()) {
+        for (SortedMap.Entry<Key, ProdCumulate> entry : prods.entrySet()) {
             ProdCumulate p = entry.getValue();
             double w = p.getRXp(Wv);
             weiRI += w * p.getRI(Ww);
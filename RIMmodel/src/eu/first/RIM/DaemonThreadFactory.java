@@ -0,0 +1,34 @@
+package eu.first.RIM;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * DaemonThreadFactory class. Makes named daemon threads for background input
+ * tasks, which must not keep the JVM alive when the consumer stops early.
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+class DaemonThreadFactory implements ThreadFactory {
+
+    private String name;
+
+    /**
+     * Constructor.
+     *
+     * @param name
+     *            Name of threads.
+     */
+    public DaemonThreadFactory(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+}
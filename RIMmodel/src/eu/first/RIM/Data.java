@@ -1,5 +1,9 @@
 package eu.first.RIM;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * Data class. Stores data manipulated by Model class. Data corresponds to a
  * single product/customer pair. Data includes both input data, which represent
@@ -20,22 +24,34 @@ public class Data {
     /**
      * Counterpart name. Input. ID.
      */
-    public String counterpart;
+    public final String counterpart;
 
     /**
      * Product name. Input. ID.
      */
-    public String product;
+    public final String product;
 
     /**
      * Client name. Input. ID.
      */
-    public String client;
+    public final String client;
 
     /**
      * Date. Input. ID.
      */
-    public String date;
+    public final String date;
+
+    /**
+     * Ids of counterpart, product, client and date in the Dictionary Data was
+     * made with; the corresponding strings above are then the ones held by
+     * the dictionary, so each distinct string is stored only once. Ids are -1
+     * for Data made from strings without a Dictionary. Strings and ids are
+     * both final, so they always agree.
+     */
+    public final int counterpartId;
+    public final int productId;
+    public final int clientId;
+    public final int dateId;
 
     // SENTIMENT
 
@@ -201,6 +217,7 @@ public class Data {
 
     /**
      * Constructor with arguments corresponding to all input variables.
+     * Strings are not interned, and their ids are -1; see intern().
      * 
      * @param counterpart
      * @param product
@@ -225,10 +242,56 @@ public class Data {
             double Slp, double Ssp, long TN, double TA, int SRI, long Np,
             long Vp, int RP, long V1, long Vc, double PP, double BP, double dB,
             double P) {
+        this(counterpart, product, client, date, -1, -1, -1, -1, Slp, Ssp, TN,
+                TA, SRI, Np, Vp, RP, V1, Vc, PP, BP, dB, P);
+    }
+
+    /**
+     * Constructor with arguments corresponding to all input variables, which
+     * interns counterpart, product, client and date in dictionary.
+     * 
+     * @param dictionary
+     * @see #Data(String, String, String, String, double, double, long,
+     *      double, int, long, long, int, long, long, double, double, double,
+     *      double)
+     */
+    public Data(Dictionary dictionary, String counterpart, String product,
+            String client, String date, double Slp, double Ssp, long TN,
+            double TA, int SRI, long Np, long Vp, int RP, long V1, long Vc,
+            double PP, double BP, double dB, double P) {
+        this(dictionary, dictionary.id(counterpart), dictionary.id(product),
+                dictionary.id(client), dictionary.id(date), Slp, Ssp, TN, TA,
+                SRI, Np, Vp, RP, V1, Vc, PP, BP, dB, P);
+    }
+
+    /**
+     * Constructor from dictionary ids of counterpart, product, client and
+     * date, and the remaining input variables. Used by DataSource
+     * implementations that intern strings themselves.
+     */
+    Data(Dictionary dictionary, int counterpartId, int productId,
+            int clientId, int dateId, double Slp, double Ssp, long TN,
+            double TA, int SRI, long Np, long Vp, int RP, long V1, long Vc,
+            double PP, double BP, double dB, double P) {
+        this(dictionary.get(counterpartId), dictionary.get(productId),
+                dictionary.get(clientId), dictionary.get(dateId),
+                counterpartId, productId, clientId, dateId, Slp, Ssp, TN, TA,
+                SRI, Np, Vp, RP, V1, Vc, PP, BP, dB, P);
+    }
+
+    private Data(String counterpart, String product, String client,
+            String date, int counterpartId, int productId, int clientId,
+            int dateId, double Slp, double Ssp, long TN, double TA, int SRI,
+            long Np, long Vp, int RP, long V1, long Vc, double PP, double BP,
+            double dB, double P) {
         this.counterpart = counterpart;
         this.product = product;
         this.client = client;
         this.date = date;
+        this.counterpartId = counterpartId;
+        this.productId = productId;
+        this.clientId = clientId;
+        this.dateId = dateId;
         this.Slp = Slp;
         this.Ssp = Ssp;
         this.TN = TN;
@@ -245,6 +308,116 @@ public class Data {
         this.P = P;
     }
 
+    /**
+     * Returns this Data if its ids are those of its strings in dictionary,
+     * otherwise a copy, with all input and output variables, whose strings
+     * are interned in dictionary.
+     * 
+     * @param dictionary
+     * @return Data
+     */
+    Data intern(Dictionary dictionary) {
+        int c = dictionary.id(counterpart, counterpartId);
+        int p = dictionary.id(product, productId);
+        int cl = dictionary.id(client, clientId);
+        int d = dictionary.id(date, dateId);
+        if (c == counterpartId && p == productId && cl == clientId
+                && d == dateId) {
+            return this;
+        }
+        Data data = new Data(dictionary, c, p, cl, d, Slp, Ssp, TN, TA, SRI,
+                Np, Vp, RP, V1, Vc, PP, BP, dB, P);
+        data.S = S;
+        data.qS = qS;
+        data.qP = qP;
+        data.dM = dM;
+        data.qM = qM;
+        data.RV1c = RV1c;
+        data.qRV1c = qRV1c;
+        data.RVc = RVc;
+        data.RV1p = RV1p;
+        data.RNp = RNp;
+        data.RVp = RVp;
+        data.qPM = qPM;
+        data.qRI1 = qRI1;
+        return data;
+    }
+
+    /**
+     * Writes all variables to out, in binary form that can be read by
+     * read(). Counterpart, product, client and date are written as ids of
+     * the Dictionary Data was made with, so the data can only be read back
+     * with the same dictionary.
+     * 
+     * @param out
+     * @throws IOException
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(counterpartId);
+        out.writeInt(productId);
+        out.writeInt(clientId);
+        out.writeInt(dateId);
+        out.writeDouble(Slp);
+        out.writeDouble(Ssp);
+        out.writeLong(TN);
+        out.writeDouble(TA);
+        out.writeInt(SRI);
+        out.writeLong(Np);
+        out.writeLong(Vp);
+        out.writeInt(RP);
+        out.writeLong(V1);
+        out.writeLong(Vc);
+        out.writeDouble(PP);
+        out.writeDouble(BP);
+        out.writeDouble(dB);
+        out.writeDouble(P);
+        out.writeDouble(S);
+        out.writeInt(qS);
+        out.writeInt(qP);
+        out.writeDouble(dM);
+        out.writeInt(qM);
+        out.writeDouble(RV1c);
+        out.writeInt(qRV1c);
+        out.writeDouble(RVc);
+        out.writeDouble(RV1p);
+        out.writeDouble(RNp);
+        out.writeDouble(RVp);
+        out.writeInt(qPM);
+        out.writeInt(qRI1);
+    }
+
+    /**
+     * Reads Data written by write().
+     * 
+     * @param in
+     * @param dictionary
+     *            Dictionary of the Data written.
+     * @return Data
+     * @throws IOException
+     */
+    static Data read(DataInput in, Dictionary dictionary) throws IOException {
+        Data data = new Data(dictionary, in.readInt(), in.readInt(),
+                in.readInt(), in.readInt(), in.readDouble(), in.readDouble(),
+                in.readLong(), in.readDouble(), in.readInt(), in.readLong(),
+                in.readLong(), in.readInt(), in.readLong(), in.readLong(),
+                in.readDouble(), in.readDouble(), in.readDouble(),
+                in.readDouble());
+        data.S = in.readDouble();
+        data.qS = in.readInt();
+        data.qP = in.readInt();
+        data.dM = in.readDouble();
+        data.qM = in.readInt();
+        data.RV1c = in.readDouble();
+        data.qRV1c = in.readInt();
+        data.RVc = in.readDouble();
+        data.RV1p = in.readDouble();
+        data.RNp = in.readDouble();
+        data.RVp = in.readDouble();
+        data.qPM = in.readInt();
+        data.qRI1 = in.readInt();
+        return data;
+    }
+
     /**
      * Index to variables[][] for obtaining variable names.
      */
@@ -0,0 +1,332 @@
+package eu.first.RIM;
+
+import eu.first.RIM.Data;
+
+/**
+ * DataBlock class. Stores a block of rows of Data in structure-of-arrays
+ * form: one array per Data variable, indexed by row. Rows are filled by
+ * DataSource.nextBatch(), evaluated by ModelRIM.evaluate() and accumulated by
+ * Reporter.cumulate(). A DataBlock is meant to be allocated once and reused
+ * for all batches.
+ *
+ * <p>
+ * Rows that could not be read have valid[i] false and error[i] set to the
+ * error message; their other variables are undefined.
+ * </p>
+ *
+ * <p>
+ * Counterpart, product, client and date are stored as ids of dictionary,
+ * which DataSource.nextBatch() sets to the Dictionary of the source.
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+public class DataBlock {
+
+    /**
+     * Maximum number of rows.
+     */
+    public final int capacity;
+
+    /**
+     * Number of rows currently in the block.
+     */
+    public int size = 0;
+
+    /**
+     * Per-row read information: validity, error message, offending column
+     * (see DataSource.getLastErrorColumn()) and raw line (the last three for
+     * invalid rows only), line number and file name.
+     */
+    public final boolean[] valid;
+    public final String[] error;
+    public final int[] errorColumn;
+    public final String[] errorLine;
+    public final long[] lineNumber;
+    public final String[] fileName;
+
+    /**
+     * Dictionary of the ids of counterpart, product, client and date.
+     */
+    public Dictionary dictionary;
+
+    // <== INPUT DATA, see Data
+
+    public final int[] counterpartId;
+    public final int[] productId;
+    public final int[] clientId;
+    public final int[] dateId;
+    public final double[] Slp;
+    public final double[] Ssp;
+    public final long[] TN;
+    public final double[] TA;
+    public final int[] SRI;
+    public final long[] Np;
+    public final long[] Vp;
+    public final int[] RP;
+    public final long[] V1;
+    public final long[] Vc;
+    public final double[] PP;
+    public final double[] BP;
+    public final double[] dB;
+    public final double[] P;
+
+    // ==> OUTPUT DATA, see Data
+
+    public final double[] S;
+    public final int[] qS;
+    public final int[] qP;
+    public final double[] dM;
+    public final int[] qM;
+    public final double[] RV1c;
+    public final int[] qRV1c;
+    public final double[] RVc;
+    public final double[] RV1p;
+    public final double[] RNp;
+    public final double[] RVp;
+    public final int[] qPM;
+    public final int[] qRI1;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            Maximum number of rows.
+     */
+    public DataBlock(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            Maximum number of rows.
+     * @param dictionary
+     *            Dictionary of ids.
+     */
+    public DataBlock(int capacity, Dictionary dictionary) {
+        this.capacity = capacity;
+        this.dictionary = dictionary;
+        valid = new boolean[capacity];
+        error = new String[capacity];
+        errorColumn = new int[capacity];
+        errorLine = new String[capacity];
+        lineNumber = new long[capacity];
+        fileName = new String[capacity];
+        counterpartId = new int[capacity];
+        productId = new int[capacity];
+        clientId = new int[capacity];
+        dateId = new int[capacity];
+        Slp = new double[capacity];
+        Ssp = new double[capacity];
+        TN = new long[capacity];
+        TA = new double[capacity];
+        SRI = new int[capacity];
+        Np = new long[capacity];
+        Vp = new long[capacity];
+        RP = new int[capacity];
+        V1 = new long[capacity];
+        Vc = new long[capacity];
+        PP = new double[capacity];
+        BP = new double[capacity];
+        dB = new double[capacity];
+        P = new double[capacity];
+        S = new double[capacity];
+        qS = new int[capacity];
+        qP = new int[capacity];
+        dM = new double[capacity];
+        qM = new int[capacity];
+        RV1c = new double[capacity];
+        qRV1c = new int[capacity];
+        RVc = new double[capacity];
+        RV1p = new double[capacity];
+        RNp = new double[capacity];
+        RVp = new double[capacity];
+        qPM = new int[capacity];
+        qRI1 = new int[capacity];
+    }
+
+    /**
+     * Removes all rows.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Tests whether row i has been read without error.
+     *
+     * @param i
+     * @return boolean
+     */
+    public boolean isValid(int i) {
+        return valid[i];
+    }
+
+    /**
+     * Sets input variables of row i from data. Counterpart, product, client
+     * and date of data are interned in dictionary, unless data has been made
+     * with it.
+     *
+     * @param i
+     * @param data
+     */
+    public void set(int i, Data data) {
+        valid[i] = true;
+        error[i] = null;
+        errorLine[i] = null;
+        counterpartId[i] = dictionary.id(data.counterpart, data.counterpartId);
+        productId[i] = dictionary.id(data.product, data.productId);
+        clientId[i] = dictionary.id(data.client, data.clientId);
+        dateId[i] = dictionary.id(data.date, data.dateId);
+        Slp[i] = data.Slp;
+        Ssp[i] = data.Ssp;
+        TN[i] = data.TN;
+        TA[i] = data.TA;
+        SRI[i] = data.SRI;
+        Np[i] = data.Np;
+        Vp[i] = data.Vp;
+        RP[i] = data.RP;
+        V1[i] = data.V1;
+        Vc[i] = data.Vc;
+        PP[i] = data.PP;
+        BP[i] = data.BP;
+        dB[i] = data.dB;
+        P[i] = data.P;
+    }
+
+    /**
+     * Appends count rows of source, starting with row from, to this block:
+     * read information and input variables are copied column by column. Both
+     * blocks must have the same dictionary.
+     *
+     * @param source
+     * @param from
+     * @param count
+     *            At most capacity - size.
+     */
+    public void append(DataBlock source, int from, int count) {
+        int i = size;
+        System.arraycopy(source.valid, from, valid, i, count);
+        System.arraycopy(source.error, from, error, i, count);
+        System.arraycopy(source.errorColumn, from, errorColumn, i, count);
+        System.arraycopy(source.errorLine, from, errorLine, i, count);
+        System.arraycopy(source.lineNumber, from, lineNumber, i, count);
+        System.arraycopy(source.fileName, from, fileName, i, count);
+        System.arraycopy(source.counterpartId, from, counterpartId, i, count);
+        System.arraycopy(source.productId, from, productId, i, count);
+        System.arraycopy(source.clientId, from, clientId, i, count);
+        System.arraycopy(source.dateId, from, dateId, i, count);
+        System.arraycopy(source.Slp, from, Slp, i, count);
+        System.arraycopy(source.Ssp, from, Ssp, i, count);
+        System.arraycopy(source.TN, from, TN, i, count);
+        System.arraycopy(source.TA, from, TA, i, count);
+        System.arraycopy(source.SRI, from, SRI, i, count);
+        System.arraycopy(source.Np, from, Np, i, count);
+        System.arraycopy(source.Vp, from, Vp, i, count);
+        System.arraycopy(source.RP, from, RP, i, count);
+        System.arraycopy(source.V1, from, V1, i, count);
+        System.arraycopy(source.Vc, from, Vc, i, count);
+        System.arraycopy(source.PP, from, PP, i, count);
+        System.arraycopy(source.BP, from, BP, i, count);
+        System.arraycopy(source.dB, from, dB, i, count);
+        System.arraycopy(source.P, from, P, i, count);
+        size += count;
+    }
+
+    /**
+     * Sets row i to a copy of row j of source: read information, input and
+     * output variables. Both blocks must have the same dictionary.
+     *
+     * @param i
+     * @param source
+     * @param j
+     */
+    public void set(int i, DataBlock source, int j) {
+        valid[i] = source.valid[j];
+        error[i] = source.error[j];
+        errorColumn[i] = source.errorColumn[j];
+        errorLine[i] = source.errorLine[j];
+        lineNumber[i] = source.lineNumber[j];
+        fileName[i] = source.fileName[j];
+        counterpartId[i] = source.counterpartId[j];
+        productId[i] = source.productId[j];
+        clientId[i] = source.clientId[j];
+        dateId[i] = source.dateId[j];
+        Slp[i] = source.Slp[j];
+        Ssp[i] = source.Ssp[j];
+        TN[i] = source.TN[j];
+        TA[i] = source.TA[j];
+        SRI[i] = source.SRI[j];
+        Np[i] = source.Np[j];
+        Vp[i] = source.Vp[j];
+        RP[i] = source.RP[j];
+        V1[i] = source.V1[j];
+        Vc[i] = source.Vc[j];
+        PP[i] = source.PP[j];
+        BP[i] = source.BP[j];
+        dB[i] = source.dB[j];
+        P[i] = source.P[j];
+        S[i] = source.S[j];
+        qS[i] = source.qS[j];
+        qP[i] = source.qP[j];
+        dM[i] = source.dM[j];
+        qM[i] = source.qM[j];
+        RV1c[i] = source.RV1c[j];
+        qRV1c[i] = source.qRV1c[j];
+        RVc[i] = source.RVc[j];
+        RV1p[i] = source.RV1p[j];
+        RNp[i] = source.RNp[j];
+        RVp[i] = source.RVp[j];
+        qPM[i] = source.qPM[j];
+        qRI1[i] = source.qRI1[j];
+    }
+
+    /**
+     * Marks row i as not read because of error.
+     *
+     * @param i
+     * @param message
+     *            Error message.
+     * @param column
+     *            Offending column or -1.
+     * @param line
+     *            Raw line or null.
+     */
+    public void setError(int i, String message, int column, String line) {
+        valid[i] = false;
+        error[i] = message;
+        errorColumn[i] = column;
+        errorLine[i] = line;
+    }
+
+    /**
+     * Makes a Data object of input and output variables of row i.
+     *
+     * @param i
+     * @return Data
+     */
+    public Data get(int i) {
+        Data data = new Data(dictionary, counterpartId[i], productId[i],
+                clientId[i], dateId[i], Slp[i], Ssp[i], TN[i], TA[i], SRI[i],
+                Np[i], Vp[i], RP[i], V1[i], Vc[i], PP[i], BP[i], dB[i], P[i]);
+        data.S = S[i];
+        data.qS = qS[i];
+        data.qP = qP[i];
+        data.dM = dM[i];
+        data.qM = qM[i];
+        data.RV1c = RV1c[i];
+        data.qRV1c = qRV1c[i];
+        data.RVc = RVc[i];
+        data.RV1p = RV1p[i];
+        data.RNp = RNp[i];
+        data.RVp = RVp[i];
+        data.qPM = qPM[i];
+        data.qRI1 = qRI1[i];
+        return data;
+    }
+
+}
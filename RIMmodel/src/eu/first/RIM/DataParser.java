@@ -0,0 +1,536 @@
+package eu.first.RIM;
+
+import java.nio.ByteBuffer;
+
+import eu.first.RIM.Data;
+
+/**
+ * DataParser class. Converts a single line of a delimited "RIM Data" file,
+ * held in a ByteBuffer, into a Data object.
+ *
+ * <p>
+ * Numeric fields are parsed straight from the buffer bytes, without creating
+ * intermediate Strings. The locale rules are the same as in
+ * DelimitedFileDataSource: "." is a thousands separator and "," is a decimal
+ * point. Fields that do not fit the fast path (exponents, very long mantissas,
+ * surrounding blanks, malformed numbers) are converted through the same
+ * String-based code as in DelimitedFileDataSource, so that both results and
+ * error messages are identical.
+ * </p>
+ *
+ * <p>
+ * Counterpart, product, client and date are interned in the Dictionary given
+ * to the constructor, and blocks parsed into must belong to it.
+ * Their Strings are made only when the field differs from the same field of
+ * the previous line, which is typical for files sorted by these fields.
+ * </p>
+ *
+ * <p>
+ * Fields are read from the columns given by a ColumnMap, by default from the
+ * leading columns in the order of Data.tabbedInputNames(). With any other map,
+ * the bounds of columns are recorded as the line is scanned, up to the last
+ * column needed, so each byte of the line is still scanned at most once.
+ * </p>
+ *
+ * <p>
+ * DataParser is not thread-safe; use one instance per thread.
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+class DataParser {
+
+    /**
+     * Exact powers of ten used by the fast path of parseDouble().
+     */
+    private static final double[] pow10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5,
+            1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+            1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private byte delimiter;
+    private String error;
+    private int errorColumn;
+    private String errorLine;
+
+    /**
+     * Scratch array for copying bytes out of direct (mapped) buffers.
+     */
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Bounds of the current field: [fieldStart, fieldEnd).
+     */
+    private int fieldStart;
+    private int fieldEnd;
+
+    /**
+     * Column position of each field, see ColumnMap; null when fields are read
+     * sequentially from the leading columns.
+     */
+    private int[] columns = null;
+
+    /**
+     * Bounds of columns of the current line scanned so far, used with
+     * columns only.
+     */
+    private int[] columnStart = new int[0];
+    private int[] columnEnd = new int[0];
+    private int scanned;
+
+    /**
+     * Start of the current line.
+     */
+    private int lineStart;
+
+    /**
+     * Bounds of counterpart, product, client and date fields of the current
+     * line.
+     */
+    private int[] idStart = new int[4];
+    private int[] idEnd = new int[4];
+
+    /**
+     * Bytes and ids of counterpart, product, client and date fields of the
+     * last interned line.
+     */
+    private byte[][] lastBytes = new byte[4][];
+    private int[] lastIds = new int[4];
+
+    private final Dictionary dictionary;
+
+    /**
+     * Constructor from data item delimiter and the Dictionary strings are
+     * interned in.
+     *
+     * @param delimiter
+     *            Single-byte delimiter, typically '\t'.
+     * @param dictionary
+     */
+    public DataParser(byte delimiter, Dictionary dictionary) {
+        this.delimiter = delimiter;
+        this.dictionary = dictionary;
+        row = new DataBlock(1, dictionary);
+    }
+
+    /**
+     * Set the columns fields are read from.
+     *
+     * @param map
+     */
+    public void setColumnMap(ColumnMap map) {
+        if (map.isIdentity()) {
+            columns = null;
+        } else {
+            columns = map.columns;
+            columnStart = new int[map.width];
+            columnEnd = new int[map.width];
+        }
+    }
+
+    /**
+     * Single-row block used by parse() into Data.
+     */
+    private DataBlock row;
+
+    /**
+     * Parse line buf[start, end) into Data object. The line must not include
+     * line terminator characters. In case of conversion error, returns null
+     * and stores error message, which can be later retrieved by
+     * getLastError().
+     *
+     * @param buf
+     * @param start
+     * @param end
+     * @return Data or null.
+     */
+    public Data parse(ByteBuffer buf, int start, int end) {
+        if (!parse(buf, start, end, row, 0)) {
+            return null;
+        }
+        return row.get(0);
+    }
+
+    /**
+     * Parse line buf[start, end) into row i of block. The line must not
+     * include line terminator characters. In case of conversion error, marks
+     * the row with the error message, which can also be retrieved by
+     * getLastError().
+     *
+     * @param buf
+     * @param start
+     * @param end
+     * @param block
+     * @param i
+     * @return true if the line has been parsed successfully.
+     */
+    public boolean parse(ByteBuffer buf, int start, int end, DataBlock block,
+            int i) {
+        error = null;
+        lineStart = start;
+        fieldEnd = start - 1;
+        scanned = 0;
+        int idx = 0;
+        try {
+            idField(buf, end, idx++);
+            idField(buf, end, idx++);
+            idField(buf, end, idx++);
+            idField(buf, end, idx++);
+            block.Slp[i] = doubleField(buf, end, idx++);
+            block.Ssp[i] = doubleField(buf, end, idx++);
+            block.TN[i] = longField(buf, end, idx++);
+            block.TA[i] = doubleField(buf, end, idx++);
+            block.SRI[i] = intField(buf, end, idx++);
+            block.Np[i] = longField(buf, end, idx++);
+            block.Vp[i] = longField(buf, end, idx++);
+            block.RP[i] = intField(buf, end, idx++);
+            block.V1[i] = longField(buf, end, idx++);
+            block.Vc[i] = longField(buf, end, idx++);
+            block.PP[i] = doubleField(buf, end, idx++);
+            block.BP[i] = doubleField(buf, end, idx++);
+            block.dB[i] = doubleField(buf, end, idx++);
+            block.P[i] = doubleField(buf, end, idx++);
+
+            block.counterpartId[i] = intern(buf, 0);
+            block.productId[i] = intern(buf, 1);
+            block.clientId[i] = intern(buf, 2);
+            block.dateId[i] = intern(buf, 3);
+            block.valid[i] = true;
+            block.error[i] = null;
+            block.errorLine[i] = null;
+            return true;
+
+        } catch (Exception e) {
+            error = e.getMessage();
+            errorColumn = idx - 1;
+            errorLine = string(buf, start, end);
+        }
+        block.setError(i, error, errorColumn, errorLine);
+        return false;
+    }
+
+    /**
+     * After parse() has returned null because of data conversion error,
+     * getLastError() returns the error message string.
+     */
+    public String getLastError() {
+        return error;
+    }
+
+    /**
+     * After parse() has returned null because of data conversion error,
+     * returns the index of the offending field.
+     */
+    public int getLastErrorColumn() {
+        return errorColumn;
+    }
+
+    /**
+     * After parse() has returned null because of data conversion error,
+     * returns the offending line.
+     */
+    public String getLastErrorLine() {
+        return errorLine;
+    }
+
+    /**
+     * Advance to field idx of the line ending at end: the next field of the
+     * line or, with a column map, its mapped column.
+     *
+     * @param buf
+     * @param end
+     * @param idx
+     *            Field index.
+     * @throws ArrayIndexOutOfBoundsException
+     *             When the line has too few fields.
+     */
+    private void nextField(ByteBuffer buf, int end, int idx) {
+        int column = columns == null ? idx : columns[idx];
+        if (columns == null) {
+            if (!scanField(buf, end)) {
+                throw missingColumn(buf, end, column);
+            }
+        } else {
+            while (scanned <= column) {
+                if (!scanField(buf, end)) {
+                    throw missingColumn(buf, end, column);
+                }
+                columnStart[scanned] = fieldStart;
+                columnEnd[scanned++] = fieldEnd;
+            }
+            fieldStart = columnStart[column];
+            fieldEnd = columnEnd[column];
+        }
+        if (fieldStart == fieldEnd && column >= splitLength(buf, end)) {
+            throw missingColumn(buf, end, column);
+        }
+    }
+
+    /**
+     * Scan the column following the last scanned one.
+     *
+     * @param buf
+     * @param end
+     * @return false when the line has no more columns.
+     */
+    private boolean scanField(ByteBuffer buf, int end) {
+        int i = (columns == null || scanned == 0 ? fieldEnd
+                : columnEnd[scanned - 1]) + 1;
+        if (i > end) {
+            return false;
+        }
+        fieldStart = i;
+        while (i < end && buf.get(i) != delimiter) {
+            i++;
+        }
+        fieldEnd = i;
+        return true;
+    }
+
+    /**
+     * Number of columns DelimitedFileDataSource gets from the current line
+     * with String.split(), which drops trailing empty columns.
+     *
+     * @param buf
+     * @param end
+     * @return int
+     */
+    private int splitLength(ByteBuffer buf, int end) {
+        int length = 0;
+        int column = 0;
+        int start = lineStart;
+        for (int i = lineStart; i < end; i++) {
+            if (buf.get(i) == delimiter) {
+                if (i > start) {
+                    length = column + 1;
+                }
+                column++;
+                start = i + 1;
+            }
+        }
+        if (column == 0) {
+            // no delimiter: split() returns the whole line
+            return 1;
+        }
+        return end > start ? column + 1 : length;
+    }
+
+    /**
+     * The exception DelimitedFileDataSource gets when reading column of the
+     * current line, which is missing or empty like all columns after it.
+     *
+     * @param buf
+     * @param end
+     * @param column
+     * @return ArrayIndexOutOfBoundsException
+     */
+    private ArrayIndexOutOfBoundsException missingColumn(ByteBuffer buf,
+            int end, int column) {
+        return DelimitedFileDataSource.missingColumn(column, splitLength(buf,
+                end));
+    }
+
+    private void idField(ByteBuffer buf, int end, int idx) {
+        nextField(buf, end, idx);
+        idStart[idx] = fieldStart;
+        idEnd[idx] = fieldEnd;
+    }
+
+    /**
+     * Intern string field idx of the current line (0: counterpart, 1: product,
+     * 2: client, 3: date) and return its Dictionary id.
+     *
+     * @param buf
+     * @param idx
+     * @return id
+     */
+    private int intern(ByteBuffer buf, int idx) {
+        int start = idStart[idx];
+        int len = idEnd[idx] - start;
+        byte[] last = lastBytes[idx];
+        if (last != null && last.length == len) {
+            int i = 0;
+            while (i < len && buf.get(start + i) == last[i]) {
+                i++;
+            }
+            if (i == len) {
+                return lastIds[idx];
+            }
+        }
+        last = new byte[len];
+        for (int i = 0; i < len; i++) {
+            last[i] = buf.get(start + i);
+        }
+        lastBytes[idx] = last;
+        lastIds[idx] = dictionary.id(new String(last));
+        return lastIds[idx];
+    }
+
+    private double doubleField(ByteBuffer buf, int end, int idx) {
+        nextField(buf, end, idx);
+        return parseDouble(buf, fieldStart, fieldEnd);
+    }
+
+    private long longField(ByteBuffer buf, int end, int idx) {
+        nextField(buf, end, idx);
+        return parseLong(buf, fieldStart, fieldEnd);
+    }
+
+    private int intField(ByteBuffer buf, int end, int idx) {
+        nextField(buf, end, idx);
+        return parseInt(buf, fieldStart, fieldEnd);
+    }
+
+    /**
+     * Make a String of buf[start, end), using the platform default charset
+     * (as FileReader does).
+     *
+     * @param buf
+     * @param start
+     * @param end
+     * @return String
+     */
+    public String string(ByteBuffer buf, int start, int end) {
+        int len = end - start;
+        if (buf.hasArray()) {
+            return new String(buf.array(), buf.arrayOffset() + start, len);
+        }
+        if (scratch.length < len) {
+            scratch = new byte[Math.max(len, 2 * scratch.length)];
+        }
+        for (int i = 0; i < len; i++) {
+            scratch[i] = buf.get(start + i);
+        }
+        return new String(scratch, 0, len);
+    }
+
+    /**
+     * Parse buf[start, end) into double. Equivalent to
+     * DelimitedFileDataSource.parseDouble().
+     *
+     * @param buf
+     * @param start
+     * @param end
+     * @return double
+     */
+    public double parseDouble(ByteBuffer buf, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < end; i++) {
+            byte c = buf.get(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 15) {
+                    return slowParseDouble(buf, start, end);
+                }
+                mantissa = 10 * mantissa + (c - '0');
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else if (c == '.') {
+                // thousands separator
+            } else if (c == ',' && decimals < 0) {
+                decimals = 0;
+            } else {
+                return slowParseDouble(buf, start, end);
+            }
+        }
+        if (digits == 0 || decimals >= pow10.length) {
+            return slowParseDouble(buf, start, end);
+        }
+        // Both operands are exact, so a single division is correctly rounded.
+        double d = decimals > 0 ? mantissa / pow10[decimals] : mantissa;
+        return negative ? -d : d;
+    }
+
+    /**
+     * Parse buf[start, end) into long. Equivalent to
+     * DelimitedFileDataSource.parseLong().
+     *
+     * @param buf
+     * @param start
+     * @param end
+     * @return long
+     */
+    public long parseLong(ByteBuffer buf, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        long result = 0;
+        int digits = 0;
+        for (; i < end; i++) {
+            byte c = buf.get(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 18) {
+                    return slowParseLong(buf, start, end);
+                }
+                result = 10 * result + (c - '0');
+            } else if (c != '.' && c != ',') {
+                return slowParseLong(buf, start, end);
+            }
+        }
+        if (digits == 0) {
+            return slowParseLong(buf, start, end);
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parse buf[start, end) into int. Equivalent to
+     * DelimitedFileDataSource.parseInt().
+     *
+     * @param buf
+     * @param start
+     * @param end
+     * @return int
+     */
+    public int parseInt(ByteBuffer buf, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        int result = 0;
+        int digits = 0;
+        for (; i < end; i++) {
+            byte c = buf.get(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 9) {
+                    return slowParseInt(buf, start, end);
+                }
+                result = 10 * result + (c - '0');
+            } else if (c != '.' && c != ',') {
+                return slowParseInt(buf, start, end);
+            }
+        }
+        if (digits == 0) {
+            return slowParseInt(buf, start, end);
+        }
+        return negative ? -result : result;
+    }
+
+    private double slowParseDouble(ByteBuffer buf, int start, int end) {
+        return Double.parseDouble(string(buf, start, end).replaceAll("[.]", "")
+                .replaceAll(",", "."));
+    }
+
+    private long slowParseLong(ByteBuffer buf, int start, int end) {
+        return Long.parseLong(string(buf, start, end).replaceAll("[.,]", ""));
+    }
+
+    private int slowParseInt(ByteBuffer buf, int start, int end) {
+        return Integer.parseInt(string(buf, start, end).replaceAll("[.,]", ""));
+    }
+
+}
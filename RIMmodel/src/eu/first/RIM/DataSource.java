@@ -13,6 +13,38 @@ import eu.first.RIM.Data;
  * 
  */
  public abstract class DataSource {
+
+    /**
+     * Dictionary interning counterpart, product, client and date strings of
+     * the Data read.
+     */
+    private final Dictionary dictionary;
+
+    /**
+     * Constructor of a source with a Dictionary of its own.
+     */
+    protected DataSource() {
+        this(new Dictionary());
+    }
+
+    /**
+     * Constructor of a source interning strings in dictionary, typically that
+     * of the Reporter the Data is cumulated by, see Reporter.getDictionary().
+     * 
+     * @param dictionary
+     */
+    protected DataSource(Dictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Dictionary of the ids of Data and DataBlock rows read from this source.
+     * 
+     * @return Dictionary
+     */
+    public Dictionary getDictionary() {
+        return dictionary;
+    }
     
     public abstract boolean hasNext() throws IOException;
     
@@ -22,4 +54,74 @@ import eu.first.RIM.Data;
         return "";
     }
 
+    /**
+     * After getNext() has returned null because of data conversion error,
+     * returns the index of the offending input field (column), in the order of
+     * Data.tabbedInputNames().
+     * 
+     * @return Column index or -1 if unknown.
+     */
+    public int getLastErrorColumn() {
+        return -1;
+    }
+
+    /**
+     * After getNext() has returned null because of data conversion error,
+     * returns the raw text of the offending line.
+     * 
+     * @return Line or null if unknown.
+     */
+    public String getLastErrorLine() {
+        return null;
+    }
+
+    /**
+     * Line number of the item last returned by getNext(), counting from 1 at
+     * the beginning of input file. Used for error reporting.
+     * 
+     * @return Line number or 0 if unknown.
+     */
+    public long getLineNumber() {
+        return 0;
+    }
+
+    /**
+     * Name of the file the item last returned by getNext() was read from.
+     * Used for error reporting.
+     * 
+     * @return File name or null if unknown.
+     */
+    public String getFileName() {
+        return null;
+    }
+
+    /**
+     * Reads up to block.capacity next items into block, replacing its
+     * contents. Items that cannot be read are stored as rows with an error
+     * message. The dictionary of block is set to getDictionary(). This default
+     * implementation uses hasNext() and getNext(); subclasses may fill the
+     * block directly.
+     * 
+     * @param block
+     * @return Number of rows read, 0 at the end of input.
+     * @throws IOException
+     */
+    public int nextBatch(DataBlock block) throws IOException {
+        block.clear();
+        block.dictionary = dictionary;
+        while (block.size < block.capacity && hasNext()) {
+            Data data = getNext();
+            int i = block.size++;
+            if (data == null) {
+                block.setError(i, getLastError(), getLastErrorColumn(),
+                        getLastErrorLine());
+            } else {
+                block.set(i, data);
+            }
+            block.lineNumber[i] = getLineNumber();
+            block.fileName[i] = getFileName();
+        }
+        return block.size;
+    }
+
 }
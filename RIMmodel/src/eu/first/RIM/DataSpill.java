@@ -0,0 +1,465 @@
+package eu.first.RIM;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * DataSpill class. External merge sort of product/client Data, used by
+ * Reporter instead of holding all Data in memory.
+ *
+ * <p>
+ * Data is collected in a buffer of runSize items. A full buffer is sorted by
+ * keys (counterpart, product, client, date) and written as a run to a
+ * temporary file, in the binary form of Data.write(); each item is preceded
+ * by a marker byte and the run ends with an end marker, so that a truncated
+ * run is detected. finish() writes the last run and, while there are more
+ * than MERGE runs, merges groups of MERGE runs into longer ones. Iterators
+ * then merge all runs, reading each sequentially, and return Data in the
+ * order of keys; memory holds one Data per run. Iterators that are not read
+ * to the end keep their runs open until close(). Temporary files are deleted
+ * by delete().
+ * </p>
+ *
+ * <p>
+ * Duplicate keys are removed exactly while sorting and merging, where they
+ * are adjacent: of Data with equal keys, only the one added first is kept.
+ * Runs contain the ids of the Dictionary given to the constructor and can
+ * only be read back with it.
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+class DataSpill implements Iterable<Map.Entry<Key, Data>> {
+
+    /**
+     * Default number of Data items in a run.
+     */
+    static final int RUN = 1 << 17;
+
+    /**
+     * Largest number of runs merged at once.
+     */
+    static final int MERGE = 64;
+
+    /**
+     * Markers preceding each Data item and ending a run.
+     */
+    private static final int ITEM = 1;
+    private static final int END = 0;
+
+    private static final Comparator<Map.Entry<Key, Data>> ORDER = new Comparator<Map.Entry<Key, Data>>() {
+        @Override
+        public int compare(Map.Entry<Key, Data> a, Map.Entry<Key, Data> b) {
+            return a.getKey().compareTo(b.getKey());
+        }
+    };
+
+    /**
+     * Folder for temporary files, null for the default one.
+     */
+    private File dir;
+    private int runSize;
+    private final Dictionary dictionary;
+
+    private ArrayList<Map.Entry<Key, Data>> buffer;
+    private ArrayList<File> runs = new ArrayList<File>();
+
+    /**
+     * Iterators with open runs.
+     */
+    private ArrayList<Merge> open = new ArrayList<Merge>();
+
+    /**
+     * Number of Data items added and number of duplicates removed so far.
+     */
+    private int size = 0;
+    private int duplicates = 0;
+
+    /**
+     * Whether duplicates of the final merge have been counted, by the first
+     * iterator that was read to the end.
+     */
+    private boolean counted = false;
+
+    /**
+     * Constructor.
+     *
+     * @param dir
+     *            Folder for temporary files, null for the default one.
+     * @param runSize
+     *            Number of Data items in a run, at least 1.
+     * @param dictionary
+     *            Dictionary of the ids of Data added.
+     */
+    DataSpill(File dir, int runSize, Dictionary dictionary) {
+        if (runSize < 1) {
+            throw new IllegalArgumentException(
+                    "DataSpill: Run size must be positive");
+        }
+        this.dir = dir;
+        this.runSize = runSize;
+        this.dictionary = dictionary;
+        buffer = new ArrayList<Map.Entry<Key, Data>>();
+    }
+
+    /**
+     * Returns the key of data.
+     *
+     * @param data
+     * @return Key
+     */
+    private Key key(Data data) {
+        return new Key(dictionary, data.counterpartId, data.productId,
+                data.clientId, data.dateId);
+    }
+
+    /**
+     * Adds data, writing a run when the buffer is full.
+     *
+     * @param data
+     * @throws IOException
+     */
+    void add(Data data) throws IOException {
+        buffer.add(new AbstractMap.SimpleImmutableEntry<Key, Data>(key(data),
+                data));
+        size++;
+        if (buffer.size() >= runSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Sorts the buffer and writes it as a run.
+     *
+     * @throws IOException
+     */
+    void flush() throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        // stable, so the first of Data with equal keys comes first
+        Collections.sort(buffer, ORDER);
+        File run = newRun();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(run), 1 << 16));
+        try {
+            Key previous = null;
+            for (int i = 0; i < buffer.size(); i++) {
+                Key key = buffer.get(i).getKey();
+                if (key.equals(previous)) {
+                    duplicates++;
+                    continue;
+                }
+                previous = key;
+                out.writeByte(ITEM);
+                buffer.get(i).getValue().write(out);
+            }
+            out.writeByte(END);
+        } finally {
+            out.close();
+        }
+        runs.add(run);
+        buffer.clear();
+    }
+
+    /**
+     * Takes over the runs of other, which is flushed first.
+     *
+     * @param other
+     * @throws IOException
+     */
+    void addRuns(DataSpill other) throws IOException {
+        other.flush();
+        runs.addAll(other.runs);
+        size += other.size;
+        duplicates += other.duplicates;
+        other.runs.clear();
+        other.size = 0;
+        other.duplicates = 0;
+    }
+
+    /**
+     * Writes the last run and merges runs until there are at most MERGE.
+     * Must be called before iterating.
+     *
+     * @throws IOException
+     */
+    void finish() throws IOException {
+        flush();
+        while (runs.size() > MERGE) {
+            ArrayList<File> merged = new ArrayList<File>();
+            for (int i = 0; i < runs.size(); i += MERGE) {
+                ArrayList<File> group = new ArrayList<File>(runs.subList(i,
+                        Math.min(i + MERGE, runs.size())));
+                File run = newRun();
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(run),
+                                1 << 16));
+                Merge merge = null;
+                try {
+                    merge = new Merge(group, false);
+                    while (merge.hasNext()) {
+                        out.writeByte(ITEM);
+                        merge.next().getValue().write(out);
+                    }
+                    out.writeByte(END);
+                    duplicates += merge.duplicates;
+                } finally {
+                    if (merge != null) {
+                        merge.close();
+                    }
+                    out.close();
+                }
+                for (int j = 0; j < group.size(); j++) {
+                    group.get(j).delete();
+                }
+                merged.add(run);
+            }
+            runs = merged;
+        }
+    }
+
+    /**
+     * Returns the folder for temporary files, null for the default one.
+     */
+    File dir() {
+        return dir;
+    }
+
+    /**
+     * Returns the number of Data items in a run.
+     */
+    int runSize() {
+        return runSize;
+    }
+
+    /**
+     * Returns the number of Data items, less duplicates removed so far.
+     */
+    int size() {
+        return size - duplicates;
+    }
+
+    /**
+     * Returns the number of duplicates removed so far. All duplicates are
+     * counted once an iterator has been read to the end.
+     */
+    int duplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Closes the runs of all iterators that have not been read to the end.
+     */
+    void close() {
+        while (!open.isEmpty()) {
+            open.get(open.size() - 1).close();
+        }
+    }
+
+    /**
+     * Deletes all runs, closing iterators first.
+     */
+    void delete() {
+        close();
+        for (int i = 0; i < runs.size(); i++) {
+            runs.get(i).delete();
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    /**
+     * Returns an iterator that merges all runs. finish() must have been
+     * called. Read errors are thrown as RuntimeException.
+     */
+    @Override
+    public Iterator<Map.Entry<Key, Data>> iterator() {
+        if (!buffer.isEmpty()) {
+            throw new IllegalStateException(
+                    "DataSpill.iterator(): Runs are not finished");
+        }
+        try {
+            return new Merge(runs, true);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private File newRun() throws IOException {
+        return File.createTempFile("RIM", ".run", dir);
+    }
+
+    /**
+     * Run being merged, with its next entry. Runs are numbered in the order
+     * of adding, which decides among equal keys.
+     */
+    private static class Head {
+        File file;
+        int run;
+        DataInputStream in;
+        Map.Entry<Key, Data> entry;
+    }
+
+    /**
+     * K-way merge of runs, without duplicates. Runs are closed at their ends,
+     * or all at once by close().
+     */
+    private class Merge implements Iterator<Map.Entry<Key, Data>>, Closeable {
+
+        private PriorityQueue<Head> heads;
+        private ArrayList<Head> all = new ArrayList<Head>();
+
+        /**
+         * Whether this is the final merge, whose duplicates are counted when
+         * it ends.
+         */
+        private boolean last;
+
+        private Key previous = null;
+        int duplicates = 0;
+
+        Merge(ArrayList<File> runs, boolean last) throws IOException {
+            this.last = last;
+            heads = new PriorityQueue<Head>(Math.max(1, runs.size()),
+                    new Comparator<Head>() {
+                        @Override
+                        public int compare(Head a, Head b) {
+                            int c = ORDER.compare(a.entry, b.entry);
+                            return c != 0 ? c : a.run - b.run;
+                        }
+                    });
+            open.add(this);
+            try {
+                for (int i = 0; i < runs.size(); i++) {
+                    Head head = new Head();
+                    head.file = runs.get(i);
+                    head.run = i;
+                    head.in = new DataInputStream(new BufferedInputStream(
+                            new FileInputStream(head.file), 1 << 16));
+                    all.add(head);
+                    advance(head);
+                }
+                skipDuplicates();
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Close all runs.
+         */
+        @Override
+        public void close() {
+            for (int i = 0; i < all.size(); i++) {
+                try {
+                    all.get(i).in.close();
+                } catch (IOException e) {
+                    // nothing more to read
+                }
+            }
+            heads.clear();
+            open.remove(this);
+        }
+
+        /**
+         * Read the next entry of head and put it in the queue, or close it
+         * at the end of its run.
+         * 
+         * @throws IOException
+         *             When the run is truncated or invalid.
+         */
+        private void advance(Head head) throws IOException {
+            Data data;
+            try {
+                int marker = head.in.read();
+                if (marker == END) {
+                    head.in.close();
+                    return;
+                }
+                if (marker != ITEM) {
+                    head.in.close();
+                    throw new IOException("DataSpill: "
+                            + (marker < 0 ? "Truncated" : "Invalid") + " run "
+                            + head.file);
+                }
+                data = Data.read(head.in, dictionary);
+            } catch (EOFException e) {
+                head.in.close();
+                throw new IOException("DataSpill: Truncated run " + head.file);
+            }
+            head.entry = new AbstractMap.SimpleImmutableEntry<Key, Data>(
+                    key(data), data);
+            heads.add(head);
+        }
+
+        /**
+         * Drop entries with the key of the entry returned last.
+         * 
+         * @throws IOException
+         */
+        private void skipDuplicates() throws IOException {
+            while (!heads.isEmpty()
+                    && heads.peek().entry.getKey().equals(previous)) {
+                Head head = heads.poll();
+                duplicates++;
+                advance(head);
+            }
+            if (heads.isEmpty()) {
+                if (last && !counted) {
+                    DataSpill.this.duplicates += duplicates;
+                    counted = true;
+                }
+                open.remove(this);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Map.Entry<Key, Data> next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<Key, Data> entry = head.entry;
+            previous = entry.getKey();
+            try {
+                advance(head);
+                skipDuplicates();
+            } catch (IOException e) {
+                close();
+                throw new RuntimeException(e);
+            }
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
@@ -1,13 +1,16 @@
 package eu.first.RIM;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 
 import eu.first.RIM.Data;
 
 /**
- * DataSource extension that reads Data objects from a delimited text file.
+ * DataSource extension that reads Data objects from a delimited text file or
+ * stream, such as standard input, a named pipe or a socket. The input may be
+ * compressed in gzip or block gzip format (see CompressedInput).
  * 
  * @author Marko Bohanec (marko.bohanec@ijs.si)
  * @version 1.0
@@ -19,12 +22,23 @@ public class DelimitedFileDataSource extends DataSource {
     private BufferedReader file;
     private String fileName;
     private String delimiter;
+    private int[] columns;
     private String error;
+    private int errorColumn;
+    private String errorLine;
+    private long lineNumber = 0;
+
+    /**
+     * Line read ahead by hasNext(), null if none.
+     */
+    private String next = null;
 
     /**
      * Constructor from file name and data item delimiter. File must have a
      * strictly defined header: first line: "RIM Data", second line:
-     * tab-delimited string exactly matching Data.tabbedInputNames().
+     * tab-delimited column names, containing each of Data.tabbedInputNames()
+     * exactly once, in any order, possibly among other columns, which are
+     * ignored (see ColumnMap). File name "-" stands for standard input.
      * 
      * @param fileName
      * @param delimiter
@@ -33,9 +47,43 @@ public class DelimitedFileDataSource extends DataSource {
      */
     public DelimitedFileDataSource(String fileName, String delimiter) throws IOException
             {
+        this(CompressedInput.raw(fileName), fileName, delimiter);
+    }
+
+    /**
+     * Constructor from input stream, its name (used in messages) and data item
+     * delimiter. The stream is read sequentially, exactly once, so it can be a
+     * pipe or a socket. The format is the same as for files.
+     * 
+     * @param in
+     * @param name
+     * @param delimiter
+     * @throws IOException
+     *             When header does not correspond to requirements.
+     */
+    public DelimitedFileDataSource(InputStream in, String name,
+            String delimiter) throws IOException {
+        this(in, name, delimiter, new Dictionary());
+    }
 
-        this.fileName = fileName;
-        file = new BufferedReader(new FileReader(fileName));
+    /**
+     * Constructor from input stream, its name, data item delimiter and the
+     * Dictionary strings are interned in.
+     * 
+     * @param in
+     * @param name
+     * @param delimiter
+     * @param dictionary
+     * @throws IOException
+     *             When header does not correspond to requirements.
+     */
+    public DelimitedFileDataSource(InputStream in, String name,
+            String delimiter, Dictionary dictionary) throws IOException {
+
+        super(dictionary);
+        this.fileName = name;
+        file = new BufferedReader(new InputStreamReader(
+                CompressedInput.open(in)), 1 << 16);
         this.delimiter = delimiter;
         testFileHead();
     }
@@ -50,6 +98,19 @@ public class DelimitedFileDataSource extends DataSource {
         this(fileName, "\t");
     }
 
+    /**
+     * Constructor assuming default delimiter "\t", interning strings in
+     * dictionary.
+     * 
+     * @param fileName
+     * @param dictionary
+     * @throws IOException
+     */
+    public DelimitedFileDataSource(String fileName, Dictionary dictionary)
+            throws IOException {
+        this(CompressedInput.raw(fileName), fileName, "\t", dictionary);
+    }
+
     /**
      * Tests file head.
      * 
@@ -59,33 +120,63 @@ public class DelimitedFileDataSource extends DataSource {
     private void testFileHead() throws IOException {
 
         String line = file.readLine();
+        columns = testFileHead(fileName, line,
+                line == null ? null : file.readLine()).columns;
+        lineNumber = 2;
+    }
+
+    /**
+     * Tests file head, given its first two lines, and compiles its column map.
+     * Shared by all DataSource implementations that read the "RIM Data"
+     * format.
+     *
+     * @param fileName
+     * @param line1
+     *            First line of file, null if missing.
+     * @param line2
+     *            Second line of file, null if missing.
+     * @return ColumnMap
+     * @throws IOException
+     *             When header is inappropriate.
+     */
+    static ColumnMap testFileHead(String fileName, String line1, String line2)
+            throws IOException {
+
+        String line = line1;
         if (line == null || !line.equals("RIM Data")) {
             throw new IOException(
                     String.format(
                             "DelimitedFileSource: File %s header is \"%s\", should have been \"%s\"",
                             fileName, line, "RIM Data"));
         }
-        line = file.readLine();
+        line = line2;
         String dataNames = Data.tabbedInputNames();
-        if (line == null || !line.equals(dataNames)) {
+        if (line == null) {
             throw new IOException(
                     String.format(
                             "DelimitedFileSource: Line 2 of file %s should be:\n\"%s\"",
                             fileName, dataNames));
         }
+        return ColumnMap.compile(fileName, line);
     }
 
     /**
-     * Tests whether there is another line available for getNext().
+     * Tests whether there is another line available for getNext(). Reads the
+     * line ahead, blocking if needed, as BufferedReader.ready() is not an
+     * end-of-file test: pipes, sockets and decompressing streams may have no
+     * data available before the end.
      * @throws IOException 
      */
     public boolean hasNext() throws IOException {
 
-        boolean ready = file.ready();
-        if (!ready) {
-            file.close();
+        if (next == null && file != null) {
+            next = file.readLine();
+            if (next == null) {
+                file.close();
+                file = null;
+            }
         }
-        return ready;
+        return next != null;
     }
 
     /**
@@ -97,39 +188,78 @@ public class DelimitedFileDataSource extends DataSource {
      */
     public Data getNext() throws IOException {
 
-        String line = file.readLine();
+        if (!hasNext()) {
+            throw new IOException("DelimitedFileDataSource: No more data in "
+                    + fileName);
+        }
+        String line = next;
+        next = null;
+        lineNumber++;
         String[] element = line.split(delimiter);
         error = null;
+        int idx = 0;
         try {
-            int idx = 0;
-            String counterpart = element[idx++];
-            String product = element[idx++];
-            String client = element[idx++];
-            String date = parseDate(element[idx++]);
-            double Slp = parseDouble(element[idx++]);
-            double Ssp = parseDouble(element[idx++]);
-            long N = parseLong(element[idx++]);
-            double TA = parseDouble(element[idx++]);
-            int SRI = parseInt(element[idx++]);
-            long Np = parseLong(element[idx++]);
-            long Vp = parseLong(element[idx++]);
-            int RP = parseInt(element[idx++]);
-            long V1 = parseLong(element[idx++]);
-            long Vc = parseLong(element[idx++]);
-            double PP = parseDouble(element[idx++]);
-            double BP = parseDouble(element[idx++]);
-            double dB = parseDouble(element[idx++]);
-            double P = parseDouble(element[idx++]);
-
-            return new Data(counterpart, product, client, date, Slp, Ssp, N,
-                    TA, SRI, Np, Vp, RP, V1, Vc, PP, BP, dB, P);
+            String counterpart = field(element, columns[idx++]);
+            String product = field(element, columns[idx++]);
+            String client = field(element, columns[idx++]);
+            String date = parseDate(field(element, columns[idx++]));
+            double Slp = parseDouble(field(element, columns[idx++]));
+            double Ssp = parseDouble(field(element, columns[idx++]));
+            long N = parseLong(field(element, columns[idx++]));
+            double TA = parseDouble(field(element, columns[idx++]));
+            int SRI = parseInt(field(element, columns[idx++]));
+            long Np = parseLong(field(element, columns[idx++]));
+            long Vp = parseLong(field(element, columns[idx++]));
+            int RP = parseInt(field(element, columns[idx++]));
+            long V1 = parseLong(field(element, columns[idx++]));
+            long Vc = parseLong(field(element, columns[idx++]));
+            double PP = parseDouble(field(element, columns[idx++]));
+            double BP = parseDouble(field(element, columns[idx++]));
+            double dB = parseDouble(field(element, columns[idx++]));
+            double P = parseDouble(field(element, columns[idx++]));
+
+            return new Data(getDictionary(), counterpart, product, client,
+                    date, Slp, Ssp, N, TA, SRI, Np, Vp, RP, V1, Vc, PP, BP, dB,
+                    P);
 
         } catch (Exception e) {
             error = e.getMessage();
+            errorColumn = idx - 1;
+            errorLine = line;
         }
         return null;
     }
 
+    /**
+     * Returns column of the split line element.
+     * 
+     * @param element
+     * @param column
+     * @return String
+     * @throws ArrayIndexOutOfBoundsException
+     *             When the line has too few columns.
+     */
+    private static String field(String[] element, int column) {
+        if (column >= element.length) {
+            throw missingColumn(column, element.length);
+        }
+        return element[column];
+    }
+
+    /**
+     * The exception for column missing from a line of length columns. Its
+     * message is made explicitly, as the JVM may leave out the message of
+     * exceptions it throws often.
+     * 
+     * @param column
+     * @param length
+     * @return ArrayIndexOutOfBoundsException
+     */
+    static ArrayIndexOutOfBoundsException missingColumn(int column, int length) {
+        return new ArrayIndexOutOfBoundsException("Index " + column
+                + " out of bounds for length " + length);
+    }
+
     /**
      * After getNext() has returned null because of data conversion error,
      * getLastError() returns the error message string.
@@ -138,6 +268,34 @@ public class DelimitedFileDataSource extends DataSource {
         return error;
     }
 
+    /**
+     * Offending column of the last conversion error.
+     */
+    public int getLastErrorColumn() {
+        return errorColumn;
+    }
+
+    /**
+     * Offending line of the last conversion error.
+     */
+    public String getLastErrorLine() {
+        return errorLine;
+    }
+
+    /**
+     * Line number of the item last returned by getNext().
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Name of the input file.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
     /**
      * Parse file date string into internal date string. Internal representation
      * should be sortable, that is, the format YYYY-MM-DD or similar is strongly
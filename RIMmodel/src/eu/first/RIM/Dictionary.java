@@ -0,0 +1,121 @@
+package eu.first.RIM;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary class. Assigns consecutive int ids, starting with 0, to distinct
+ * strings, and maps ids back to strings.
+ *
+ * <p>
+ * Dictionary is thread-safe. Lookups of known strings do not lock; adding a
+ * new string does.
+ * </p>
+ *
+ * <p>
+ * Each Reporter owns a Dictionary, see Reporter.getDictionary(), which
+ * interns the counterpart, product, client and date strings of the Data it
+ * cumulates. DataSources given the same Dictionary intern strings as they
+ * read, so their ids need no translation. A Dictionary only grows, and is
+ * released together with the Reporter, so runs do not share ids.
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+public class Dictionary {
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+    private volatile String[] strings = new String[16];
+    private int size = 0;
+
+    /**
+     * Returns id of string s, adding s to the dictionary if needed.
+     *
+     * @param s
+     * @return id
+     */
+    public int id(String s) {
+        Integer id = ids.get(s);
+        if (id == null) {
+            id = add(s);
+        }
+        return id;
+    }
+
+    /**
+     * Returns id of string s, like id(s), but without a lookup when s is the
+     * very string this dictionary holds under id known.
+     *
+     * @param s
+     * @param known
+     *            Id of s in this or another dictionary, or -1.
+     * @return id
+     */
+    public int id(String s, int known) {
+        String[] a = strings;
+        if (known >= 0 && known < a.length && a[known] == s) {
+            return known;
+        }
+        return id(s);
+    }
+
+    private synchronized int add(String s) {
+        Integer id = ids.get(s);
+        if (id != null) {
+            return id;
+        }
+        if (size == strings.length) {
+            strings = Arrays.copyOf(strings, 2 * size);
+        }
+        strings[size] = s;
+        ids.put(s, size);
+        return size++;
+    }
+
+    /**
+     * Returns string with the given id.
+     *
+     * @param id
+     * @return String
+     */
+    public String get(int id) {
+        return strings[id];
+    }
+
+    /**
+     * Returns the rank of each string in the sorted order of all strings,
+     * indexed by id. Comparing ranks is equivalent to comparing strings, but
+     * much cheaper; strings added later have no rank.
+     *
+     * @return int[]
+     */
+    public synchronized int[] ranks() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        final String[] s = strings;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return s[a].compareTo(s[b]);
+            }
+        });
+        int[] ranks = new int[size];
+        for (int i = 0; i < size; i++) {
+            ranks[order[i]] = i;
+        }
+        return ranks;
+    }
+
+    /**
+     * Returns the number of strings in the dictionary.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+}
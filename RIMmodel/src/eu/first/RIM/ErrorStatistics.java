@@ -0,0 +1,63 @@
+package eu.first.RIM;
+
+import eu.first.RIM.Data;
+
+/**
+ * ErrorStatistics class. Counts input data errors per input field (column),
+ * in the order of Data.tabbedInputNames().
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+public class ErrorStatistics {
+
+    private static final String[] names = Data.tabbedInputNames().split("\t");
+
+    /**
+     * Error counts per column; the last element counts errors of unknown
+     * column.
+     */
+    private long[] counts = new long[names.length + 1];
+
+    /**
+     * Count an error in column.
+     *
+     * @param column
+     *            Column index or -1 if unknown.
+     */
+    public void add(int column) {
+        if (column < 0 || column >= names.length) {
+            column = names.length;
+        }
+        counts[column]++;
+    }
+
+    /**
+     * Get error count of column.
+     *
+     * @param column
+     *            Column index or -1 for unknown column.
+     * @return long
+     */
+    public long getCount(int column) {
+        return counts[column < 0 ? names.length : column];
+    }
+
+    /**
+     * Make a report of non-zero counts, one column per line.
+     *
+     * @return String
+     */
+    public String report() {
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                sb.append(String.format("  %-12s %d\n",
+                        i < names.length ? names[i] : "(unknown)", counts[i]));
+            }
+        }
+        return sb.toString();
+    }
+
+}
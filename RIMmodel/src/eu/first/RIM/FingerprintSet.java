@@ -0,0 +1,141 @@
+package eu.first.RIM;
+
+/**
+ * FingerprintSet class. A compact set of 64-bit fingerprints of Data keys
+ * (counterpart, product, client, date), used by Reporter to detect duplicate
+ * Data without storing Data or Keys.
+ *
+ * <p>
+ * Fingerprints are kept in an open-addressing table of longs, at most half
+ * full, which takes 16 to 32 bytes per key. When all four ids are below
+ * 65536, the fingerprint packs them and is exact. Otherwise it is a hash of
+ * the ids, and two different keys are taken for duplicates with a
+ * probability of about n * n / 2^65 for n keys.
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+class FingerprintSet {
+
+    /**
+     * Table of fingerprints, 0 for empty slots. Fingerprint 0 is not kept in
+     * the table, but by zero.
+     */
+    private long[] table = new long[1024];
+    private int size = 0;
+    private boolean zero = false;
+
+    /**
+     * Returns the fingerprint of a Data key.
+     *
+     * @param counterpartId
+     * @param productId
+     * @param clientId
+     * @param dateId
+     * @return long
+     */
+    static long fingerprint(int counterpartId, int productId, int clientId,
+            int dateId) {
+        if ((counterpartId | productId | clientId | dateId) >>> 16 == 0) {
+            return ((long) counterpartId << 48) | ((long) productId << 32)
+                    | ((long) clientId << 16) | dateId;
+        }
+        long h = 0x9E3779B97F4A7C15L;
+        h = mix(h ^ counterpartId);
+        h = mix(h ^ productId);
+        h = mix(h ^ clientId);
+        h = mix(h ^ dateId);
+        return h;
+    }
+
+    /**
+     * Adds the fingerprint of data's key if it is not in the set.
+     *
+     * @param data
+     * @return true if added, false for a duplicate.
+     */
+    boolean add(Data data) {
+        return add(fingerprint(data.counterpartId, data.productId,
+                data.clientId, data.dateId));
+    }
+
+    /**
+     * Adds the fingerprint of the key of row i of block if it is not in the
+     * set.
+     *
+     * @param b
+     * @param i
+     * @return true if added, false for a duplicate.
+     */
+    boolean add(DataBlock b, int i) {
+        return add(fingerprint(b.counterpartId[i], b.productId[i],
+                b.clientId[i], b.dateId[i]));
+    }
+
+    /**
+     * Adds fingerprint if it is not in the set.
+     *
+     * @param fingerprint
+     * @return true if added, false for a duplicate.
+     */
+    boolean add(long fingerprint) {
+        long f = fingerprint;
+        if (f == 0) {
+            if (zero) {
+                return false;
+            }
+            zero = true;
+            size++;
+            return true;
+        }
+        int s = slot(table, f);
+        if (table[s] == f) {
+            return false;
+        }
+        table[s] = f;
+        if (2 * ++size > table.length) {
+            long[] old = table;
+            table = new long[2 * old.length];
+            for (int i = 0; i < old.length; i++) {
+                if (old[i] != 0) {
+                    table[slot(table, old[i])] = old[i];
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of fingerprints.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the slot of f in table, or the empty slot where it belongs.
+     */
+    private static int slot(long[] table, long f) {
+        int mask = table.length - 1;
+        int h = (int) (mix(f) >>> 32);
+        while (table[h & mask] != 0 && table[h & mask] != f) {
+            h++;
+        }
+        return h & mask;
+    }
+
+    /**
+     * 64-bit finalizer of MurmurHash3.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
@@ -0,0 +1,156 @@
+package eu.first.RIM;
+
+import java.util.Arrays;
+
+/**
+ * IdSet class. A set of Dictionary ids that keeps the order in which
+ * ids were added, used by cumulates instead of lists of Strings.
+ *
+ * <p>
+ * Small sets are searched linearly. Larger ones also keep an open-addressing
+ * hash table of ids, so that membership is tested in constant time however
+ * many clients a product has.
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+public final class IdSet {
+
+    /**
+     * Largest size searched linearly.
+     */
+    private static final int LINEAR = 8;
+
+    /**
+     * Ids in the order of adding.
+     */
+    private int[] ids = new int[4];
+    private int size = 0;
+
+    /**
+     * Hash table holding id + 1 for each id, 0 for empty slots; null while
+     * size <= LINEAR.
+     */
+    private int[] table = null;
+
+    /**
+     * Returns the number of ids.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the id at index, in the order of adding.
+     *
+     * @param index
+     * @return id
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                    + size);
+        }
+        return ids[index];
+    }
+
+    /**
+     * Tests whether id is in the set.
+     *
+     * @param id
+     * @return boolean
+     */
+    public boolean contains(int id) {
+        if (table == null) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return table[slot(table, id)] != 0;
+    }
+
+    /**
+     * Adds id if it is not in the set.
+     *
+     * @param id
+     *            Non-negative id.
+     * @return true if id was added.
+     */
+    boolean add(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("IdSet: Negative id " + id);
+        }
+        if (contains(id)) {
+            return false;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, 2 * size);
+        }
+        ids[size++] = id;
+        if (table != null && 2 * size <= table.length) {
+            table[slot(table, id)] = id + 1;
+        } else if (size > LINEAR) {
+            rehash();
+        }
+        return true;
+    }
+
+    /**
+     * Removes all ids.
+     */
+    void clear() {
+        size = 0;
+        table = null;
+    }
+
+    /**
+     * Returns the strings of all ids, in the order of adding.
+     *
+     * @param dictionary
+     *            Dictionary of the ids.
+     * @return String[]
+     */
+    public String[] toStrings(Dictionary dictionary) {
+        String[] result = new String[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = dictionary.get(ids[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Make a table at most half full of all ids.
+     */
+    private void rehash() {
+        int length = 16;
+        while (length < 2 * size) {
+            length *= 2;
+        }
+        table = new int[length];
+        for (int i = 0; i < size; i++) {
+            table[slot(table, ids[i])] = ids[i] + 1;
+        }
+    }
+
+    /**
+     * Returns the slot of id in table, or the empty slot where it belongs.
+     *
+     * @param table
+     * @param id
+     * @return int
+     */
+    private static int slot(int[] table, int id) {
+        int mask = table.length - 1;
+        int h = (id * 0x9E3779B9) >>> 7;
+        while (table[h & mask] != 0 && table[h & mask] != id + 1) {
+            h++;
+        }
+        return h & mask;
+    }
+
+}
@@ -0,0 +1,141 @@
+package eu.first.RIM;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Key class. A tuple of Dictionary ids of counterpart, product, client and/or
+ * date strings, used as a key of Reporter maps instead of tab-delimited
+ * Strings. Keys are equal when their ids are, so only keys of the same
+ * Dictionary can be compared.
+ *
+ * <p>
+ * Keys are ordered by the strings their ids stand for, component by
+ * component. This is the same order as that of the corresponding
+ * tab-delimited Strings.
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+public final class Key implements Comparable<Key> {
+
+    private final Dictionary dictionary;
+    private final int[] ids;
+
+    /**
+     * Constructor from ids of dictionary.
+     *
+     * @param dictionary
+     * @param ids
+     */
+    Key(Dictionary dictionary, int... ids) {
+        this.dictionary = dictionary;
+        this.ids = ids;
+    }
+
+    /**
+     * Returns the number of components.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns the id of component i.
+     *
+     * @param i
+     * @return id
+     */
+    public int id(int i) {
+        return ids[i];
+    }
+
+    /**
+     * Returns the string of component i.
+     *
+     * @param i
+     * @return String
+     */
+    public String get(int i) {
+        return dictionary.get(ids[i]);
+    }
+
+    /**
+     * Returns strings of all components.
+     *
+     * @return String[]
+     */
+    public String[] strings() {
+        String[] result = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public int compareTo(Key other) {
+        int n = Math.min(ids.length, other.ids.length);
+        for (int i = 0; i < n; i++) {
+            if (ids[i] != other.ids[i]) {
+                return get(i).compareTo(other.get(i));
+            }
+        }
+        return ids.length - other.ids.length;
+    }
+
+    /**
+     * Returns a comparator equivalent to compareTo(), which compares ids by
+     * their ranks instead of their strings, see Dictionary.ranks(). Ids
+     * without a rank are compared by strings.
+     *
+     * @param ranks
+     * @return Comparator<Key>
+     */
+    static Comparator<Key> order(final int[] ranks) {
+        return new Comparator<Key>() {
+            @Override
+            public int compare(Key a, Key b) {
+                int n = Math.min(a.ids.length, b.ids.length);
+                for (int i = 0; i < n; i++) {
+                    int x = a.ids[i];
+                    int y = b.ids[i];
+                    if (x != y) {
+                        if (x < ranks.length && y < ranks.length) {
+                            return ranks[x] - ranks[y];
+                        }
+                        return a.get(i).compareTo(b.get(i));
+                    }
+                }
+                return a.ids.length - b.ids.length;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Key && Arrays.equals(ids, ((Key) obj).ids);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ids);
+    }
+
+    /**
+     * Returns tab-delimited strings of all components.
+     */
+    @Override
+    public String toString() {
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0)
+                sb.append("\t");
+            sb.append(get(i));
+        }
+        return sb.toString();
+    }
+
+}
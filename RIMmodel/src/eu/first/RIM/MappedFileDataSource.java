@@ -0,0 +1,296 @@
+package eu.first.RIM;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import eu.first.RIM.Data;
+
+/**
+ * DataSource extension that reads Data objects from a memory-mapped delimited
+ * text file. The file format is the same as for DelimitedFileDataSource: first
+ * line: "RIM Data", second line: tab-delimited column names (see ColumnMap).
+ *
+ * <p>
+ * Lines are parsed by DataParser straight from the mapped bytes, without
+ * intermediate line or field Strings. Large files are mapped in consecutive
+ * windows, so file size is not limited by the size of a single mapping.
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+public class MappedFileDataSource extends DataSource {
+
+    /**
+     * Maximum size of a single mapped window.
+     */
+    private static final long WINDOW = 1L << 28;
+
+    private FileChannel channel;
+    private String fileName;
+    private DataParser parser;
+
+    /**
+     * File size.
+     */
+    private long size;
+
+    /**
+     * Currently mapped window and its offset in file.
+     */
+    private MappedByteBuffer buffer;
+    private long base;
+
+    /**
+     * Position of the next line in buffer.
+     */
+    private int pos;
+
+    /**
+     * Number of lines read so far.
+     */
+    private long lineNumber = 0;
+
+    /**
+     * Constructor from file name and data item delimiter.
+     *
+     * @param fileName
+     * @param delimiter
+     *            Single-byte delimiter.
+     * @throws IOException
+     *             When file header does not correspond to requirements.
+     */
+    public MappedFileDataSource(String fileName, char delimiter)
+            throws IOException {
+        this(fileName, delimiter, new Dictionary());
+    }
+
+    /**
+     * Constructor from file name, data item delimiter and the Dictionary
+     * strings are interned in.
+     *
+     * @param fileName
+     * @param delimiter
+     *            Single-byte delimiter.
+     * @param dictionary
+     * @throws IOException
+     *             When file header does not correspond to requirements.
+     */
+    public MappedFileDataSource(String fileName, char delimiter,
+            Dictionary dictionary) throws IOException {
+
+        super(dictionary);
+        this.fileName = fileName;
+        parser = new DataParser((byte) delimiter, dictionary);
+        channel = new RandomAccessFile(fileName, "r").getChannel();
+        boolean opened = false;
+        try {
+            size = channel.size();
+            map(0);
+            testFileHead();
+            opened = true;
+        } finally {
+            if (!opened) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Constructor assuming default delimiter '\t'.
+     *
+     * @param fileName
+     * @throws IOException
+     */
+    public MappedFileDataSource(String fileName) throws IOException {
+        this(fileName, '\t');
+    }
+
+    /**
+     * Constructor assuming default delimiter '\t', interning strings in
+     * dictionary.
+     *
+     * @param fileName
+     * @param dictionary
+     * @throws IOException
+     */
+    public MappedFileDataSource(String fileName, Dictionary dictionary)
+            throws IOException {
+        this(fileName, '\t', dictionary);
+    }
+
+    /**
+     * Map a window of the file, starting at offset.
+     *
+     * @param offset
+     * @throws IOException
+     */
+    private void map(long offset) throws IOException {
+        base = offset;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                Math.min(WINDOW, size - offset));
+        pos = 0;
+    }
+
+    /**
+     * Find the end of line starting at pos, remapping the window when the line
+     * crosses its end.
+     *
+     * @return Index of line terminator ('\n') or buffer limit at end of file.
+     * @throws IOException
+     */
+    private int lineEnd() throws IOException {
+        int i = pos;
+        while (true) {
+            int limit = buffer.limit();
+            while (i < limit) {
+                if (buffer.get(i) == '\n') {
+                    return i;
+                }
+                i++;
+            }
+            if (base + limit >= size) {
+                return limit;
+            }
+            if (pos == 0) {
+                throw new IOException(String.format(
+                        "MappedFileDataSource: Line too long in file %s",
+                        fileName));
+            }
+            i -= pos;
+            map(base + pos);
+        }
+    }
+
+    /**
+     * Read the next line as a String. Used only for file head.
+     *
+     * @return Line without terminator, null at end of file.
+     * @throws IOException
+     */
+    private String readLine() throws IOException {
+        if (!hasNext()) {
+            return null;
+        }
+        int end = lineEnd();
+        int start = pos;
+        pos = end + 1;
+        lineNumber++;
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        return parser.string(buffer, start, end);
+    }
+
+    /**
+     * Tests file head.
+     *
+     * @throws IOException
+     *             When header is inappropriate.
+     */
+    private void testFileHead() throws IOException {
+
+        String line = readLine();
+        parser.setColumnMap(DelimitedFileDataSource.testFileHead(fileName,
+                line, line == null ? null : readLine()));
+    }
+
+    /**
+     * Tests whether there is another line available for getNext().
+     *
+     * @throws IOException
+     */
+    public boolean hasNext() throws IOException {
+
+        boolean ready = base + pos < size;
+        if (!ready) {
+            channel.close();
+        }
+        return ready;
+    }
+
+    /**
+     * Parses another line from input file into Data object. In case of
+     * conversion error, it does not throw IOException, but rather returns null
+     * and stores error message, which can be later retrieved by
+     * getLastError().
+     *
+     * @throws IOException
+     */
+    public Data getNext() throws IOException {
+
+        int end = lineEnd();
+        int start = pos;
+        pos = end + 1;
+        lineNumber++;
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        return parser.parse(buffer, start, end);
+    }
+
+    /**
+     * Parses up to block.capacity next lines straight into block.
+     *
+     * @throws IOException
+     */
+    public int nextBatch(DataBlock block) throws IOException {
+
+        block.clear();
+        block.dictionary = getDictionary();
+        while (block.size < block.capacity && hasNext()) {
+            int end = lineEnd();
+            int start = pos;
+            pos = end + 1;
+            lineNumber++;
+            if (end > start && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            int i = block.size++;
+            parser.parse(buffer, start, end, block, i);
+            block.lineNumber[i] = lineNumber;
+            block.fileName[i] = fileName;
+        }
+        return block.size;
+    }
+
+    /**
+     * After getNext() has returned null because of data conversion error,
+     * getLastError() returns the error message string.
+     */
+    public String getLastError() {
+        return parser.getLastError();
+    }
+
+    /**
+     * Offending column of the last conversion error.
+     */
+    public int getLastErrorColumn() {
+        return parser.getLastErrorColumn();
+    }
+
+    /**
+     * Offending line of the last conversion error.
+     */
+    public String getLastErrorLine() {
+        return parser.getLastErrorLine();
+    }
+
+    /**
+     * Line number of the item last returned by getNext().
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Name of the input file.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+}
@@ -1,8 +1,18 @@
 package eu.first.RIM;
 
+import si.JDEXi.CompiledModel;
 import si.JDEXi.Model;
 import eu.first.RIM.Data;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
 /**
  * ModelRIM class. RIM stands for Reputational Index Model, developed in the
  * framework of EU project FIRST. RIM assesses reputational risk of financial
@@ -21,6 +31,21 @@ import eu.first.RIM.Data;
  * implemented entirely in this code.
  * 
  * <p>
+ * The DEXi model is parsed and compiled into an immutable
+ * si.JDEXi.CompiledModel only once, and is shared by all ModelRIM instances.
+ * A ModelRIM instance is not thread-safe, but it is cheap to make, so that
+ * data can be evaluated on all processors with one instance per thread.
+ * 
+ * <p>
+ * When the resource RIM1.dxc (next to this class) is present, the compiled
+ * model is loaded from it instead of parsing the XML. The resource starts
+ * with a SHA-256 digest of the XML it was compiled from, and is ignored when
+ * the XML has changed since. It is made by running this class from the
+ * RIMmodel/src folder, with the classes on the class path: java
+ * eu.first.RIM.ModelRIM eu/first/RIM/RIM1.dxc, and must be remade and
+ * committed whenever rimXML() changes.
+ * 
+ * <p>
  * The development of eu.first.RIM.* software was financially supported by EU
  * FP7 project FIRST (FP7-ICT-257928) <i>Large scale information extraction and
  * integration infrastructure for supporting financial decision making</i>.
@@ -33,7 +58,41 @@ import eu.first.RIM.Data;
  */
 public class ModelRIM {
 
-    protected Model model;
+    /**
+     * Compiled DEXi model shared by all instances, see rimModel().
+     */
+    private static CompiledModel rim = null;
+
+    /**
+     * Name of the resource with the precompiled DEXi model.
+     */
+    private static final String RIM_COMPILED = "RIM1.dxc";
+
+    /**
+     * DEXi model of this instance, parsed on first call of getModel().
+     */
+    private Model model = null;
+
+    /**
+     * Compiled DEXi model used for evaluation, see rimModel().
+     */
+    private CompiledModel compiled;
+
+    /**
+     * Handles of model attributes and buffers of this instance for
+     * evaluation.
+     */
+    private int hS, hP, hM, hRV1c, hRI1, hPM;
+    private int[] inputs;
+    private int[] outputs;
+
+    /**
+     * Column buffers for evaluate(DataBlock), indexed by handles. Output
+     * columns of attributes other than qRI1 and qPM are scratch columns,
+     * reused for all blocks.
+     */
+    private int[][] inputColumns;
+    private int[][] outputColumns;
     
     /**
      * Weight of long-term sentiment (vs. short time-sentiment), defined on [0,1].
@@ -41,11 +100,117 @@ public class ModelRIM {
     public double Wsl = 0.3;
 
     /**
-     * Constructor. Parses the model from XML string, which is returned by
-     * rimXML() method.
+     * Constructor. Uses the shared compiled DEXi model, see rimModel().
      */
     public ModelRIM() {
-        model = new Model(rimXML());
+        compiled = rimModel();
+        hS = compiled.getInputHandle("qS");
+        hP = compiled.getInputHandle("qP");
+        hM = compiled.getInputHandle("qM");
+        hRV1c = compiled.getInputHandle("qRV1c");
+        hRI1 = compiled.getOutputHandle("qRI1");
+        hPM = compiled.getOutputHandle("qPM");
+        inputs = new int[compiled.getInputs()];
+        outputs = new int[compiled.getOutputs()];
+        inputColumns = new int[compiled.getInputs()][];
+        outputColumns = new int[compiled.getOutputs()][];
+    }
+
+    /**
+     * Get the compiled DEXi model. On first call, the model is loaded from
+     * resource RIM1.dxc, if present, valid and made from the current XML
+     * string, which is returned by rimXML() method; otherwise it is parsed
+     * from the XML string and compiled.
+     * 
+     * @return CompiledModel
+     */
+    protected static synchronized CompiledModel rimModel() {
+        if (rim == null) {
+            InputStream in = ModelRIM.class.getResourceAsStream(RIM_COMPILED);
+            if (in != null) {
+                try {
+                    try {
+                        DataInputStream data = new DataInputStream(
+                                new BufferedInputStream(in));
+                        byte[] digest = new byte[data.readUnsignedShort()];
+                        data.readFully(digest);
+                        if (MessageDigest.isEqual(digest, rimDigest())) {
+                            rim = CompiledModel.read(data);
+                        } else {
+                            System.err.println("Warning: " + RIM_COMPILED
+                                    + " is out of date, using XML model");
+                        }
+                    } finally {
+                        in.close();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Warning: cannot load " + RIM_COMPILED
+                            + ", using XML model: " + e.getMessage());
+                    rim = null;
+                }
+            }
+            if (rim == null) {
+                rim = new Model(rimXML()).compile();
+            }
+        }
+        return rim;
+    }
+
+    /**
+     * Get the DEXi model of this instance, parsed from XML string, which is
+     * returned by rimXML() method, on first call. Evaluation uses the shared
+     * compiled model, so changes of this model do not affect it.
+     * 
+     * @return Model
+     */
+    protected Model getModel() {
+        if (model == null) {
+            model = new Model(rimXML());
+        }
+        return model;
+    }
+
+    /**
+     * Build-time step: write the digest of rimXML() and the compiled DEXi
+     * model in binary form, to be packaged as resource RIM1.dxc.
+     * 
+     * @param args
+     *            Output file name.
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: ModelRIM compiled_file_name");
+            System.exit(1);
+        }
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(
+                args[0]));
+        try {
+            byte[] digest = rimDigest();
+            out.writeShort(digest.length);
+            out.write(digest);
+            new Model(rimXML()).compile().write(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Get the SHA-256 digest of the UTF-8 encoded rimXML() string.
+     * 
+     * @return byte[]
+     */
+    private static byte[] rimDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(
+                    rimXML().getBytes("UTF-8"));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            // every Java platform supports UTF-8
+            throw new RuntimeException(e);
+        }
     }
 
     protected double FuncS(double Ssp, double Slp) {
@@ -164,15 +329,15 @@ public class ModelRIM {
      * @param data
      */
     protected void qualitativeEvaluation(Data data) {
-        model.setInputValue("qS", data.qS);
-        model.setInputValue("qP", data.qP);
-        model.setInputValue("qM", data.qM);
-        model.setInputValue("qRV1c", data.qRV1c);
+        inputs[hS] = data.qS;
+        inputs[hP] = data.qP;
+        inputs[hM] = data.qM;
+        inputs[hRV1c] = data.qRV1c;
 
-        model.evaluate();
+        compiled.evaluate(inputs, outputs);
 
-        data.qRI1 = model.getOutputValue("qRI1").getOrdinal().intValue();
-        data.qPM = model.getOutputValue("qPM").getOrdinal().intValue();
+        data.qRI1 = outputs[hRI1];
+        data.qPM = outputs[hPM];
     }
 
     /**
@@ -185,13 +350,89 @@ public class ModelRIM {
         qualitativeEvaluation(data);
     }
 
+    /**
+     * Basic data processing of row i of block: the column-wise counterpart of
+     * basicDataProcessing(Data), with the same Func and Discretize methods.
+     * A subclass that overrides basicDataProcessing(Data) should override this
+     * method as well.
+     * 
+     * @param b
+     * @param i
+     */
+    protected void basicDataProcessing(DataBlock b, int i) {
+
+        // SENTIMENT
+        b.S[i] = FuncS(b.Ssp[i], b.Slp[i]);
+        b.qS[i] = DiscretizeS(b.S[i]);
+
+        // PERFORMANCE
+        b.qP[i] = DiscretizeP(b.P[i]);
+
+        // MISMATCHING
+        b.dM[i] = FuncdM(b.SRI[i], b.RP[i]);
+        b.qM[i] = DiscretizeM(b.dM[i]);
+
+        // CUSTOMER VOLUMES
+        b.RV1c[i] = FuncRV1c(b.V1[i], b.Vc[i]);
+        b.qRV1c[i] = DiscretizeRV1c(b.RV1c[i]);
+        b.RVc[i] = FuncRVc(b.Vc[i], b.TA[i]);
+
+        // PRODUCT VOLUMES
+        b.RV1p[i] = FuncRV1c(b.V1[i], b.Vp[i]);
+        b.RNp[i] = FuncRNp(b.Np[i], b.TN[i]);
+        b.RVp[i] = FuncRVp(b.Vp[i], b.TA[i]);
+    }
+
+    /**
+     * Perform evaluation of all valid rows of block: basicDataProcessing() of
+     * each row, followed by qualitativeEvaluation() of the whole block.
+     * evaluateProductClient() and the Data variants of these methods are not
+     * called. Output values of invalid rows are undefined.
+     * 
+     * @param block
+     */
+    public void evaluate(DataBlock block) {
+        for (int i = 0; i < block.size; i++) {
+            if (block.valid[i]) {
+                basicDataProcessing(block, i);
+            }
+        }
+        qualitativeEvaluation(block);
+    }
+
+    /**
+     * Qualitative evaluation of the first block.size rows of block by a single
+     * batch evaluation of the DEXi model over its columns: the column-wise
+     * counterpart of qualitativeEvaluation(Data). Invalid rows are evaluated
+     * as well, from whatever discretized values their columns hold.
+     * 
+     * @param block
+     */
+    protected void qualitativeEvaluation(DataBlock block) {
+        inputColumns[hS] = block.qS;
+        inputColumns[hP] = block.qP;
+        inputColumns[hM] = block.qM;
+        inputColumns[hRV1c] = block.qRV1c;
+        for (int h = 0; h < outputColumns.length; h++) {
+            if (h != hRI1 && h != hPM && (outputColumns[h] == null
+                    || outputColumns[h].length < block.size)) {
+                outputColumns[h] = new int[block.capacity];
+            }
+        }
+        outputColumns[hRI1] = block.qRI1;
+        outputColumns[hPM] = block.qPM;
+        compiled.evaluate(inputColumns, outputColumns, block.size);
+    }
+
     /**
      * Get RIM DEXi model. The model is hard-coded to avoid hassle with
-     * installing and referring to external files.
+     * installing and referring to external files. Non-ASCII characters are
+     * written as unicode escapes, so that the string, and thus its digest in
+     * RIM1.dxc, does not depend on the encoding the source is compiled with.
      * 
      * @return String containing XML representation of RIM.
      */
-    private String rimXML() {
+    private static String rimXML() {
         StringBuffer sb = new StringBuffer();
         sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
         sb.append("<DEXi>");
@@ -203,7 +444,7 @@ public class ModelRIM {
         sb.append("    <LINE/>");
         sb.append("    <LINE>Version 1, 6.11.2012: Derived from RIM v0.5 reverse by: extracting only the qRIcp subtree, renaming qRIcp to qRI1 and renaming qRVc to qRC1c.</LINE>");
         sb.append("    <LINE/>");
-        sb.append("    <LINE>Authors: Giorgio Aprile (MPS), Marko Bohanec (JSI), Maria Costante (MPS), Morena Foti (MPS) , Nejc Trdin (JSI) , Martin nidari (JSI)</LINE>");
+        sb.append("    <LINE>Authors: Giorgio Aprile (MPS), Marko Bohanec (JSI), Maria Costante (MPS), Morena Foti (MPS) , Nejc Trdin (JSI) , Martin \u017Dnidar\u0161i\u010D (JSI)</LINE>");
         sb.append("  </DESCRIPTION>");
         sb.append("  <SETTINGS>");
         sb.append("    <REPORTS>1;2;5</REPORTS>");
@@ -0,0 +1,477 @@
+package eu.first.RIM;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import eu.first.RIM.Data;
+
+/**
+ * DataSource extension that parses a single large delimited text file in
+ * parallel. The file format is the same as for DelimitedFileDataSource.
+ *
+ * <p>
+ * The data part of the file is split into line-aligned byte ranges (chunks),
+ * which are memory-mapped and parsed by DataParser on a ForkJoinPool straight
+ * into DataBlocks. Parsed chunks are handed out strictly in file order, so
+ * that getLastError() and getLineNumber() behave exactly as for sequential
+ * sources. nextBatch() copies rows column by column into the caller's block,
+ * without making Data objects; hasNext()/getNext() make one Data per row.
+ * </p>
+ *
+ * <p>
+ * Chunks are submitted only while the bytes of chunks parsed or being parsed
+ * ahead of the consumer stay within AHEAD, which bounds memory regardless of
+ * the number of workers. Blocks of consumed chunks are reused.
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+public class ParallelFileDataSource extends DataSource {
+
+    /**
+     * Largest and smallest nominal size of a chunk in bytes.
+     */
+    private static final long CHUNK = 1L << 24;
+    private static final long MIN_CHUNK = 1L << 20;
+
+    /**
+     * Largest number of bytes in chunks submitted but not yet consumed,
+     * unless a single chunk is larger.
+     */
+    private static final long AHEAD = 1L << 25;
+
+    /**
+     * Capacity of blocks that chunks are parsed into.
+     */
+    private static final int ROWS = 1024;
+
+    private FileChannel channel;
+    private String fileName;
+    private byte delimiter;
+    private ColumnMap columnMap;
+    private ForkJoinPool pool;
+
+    /**
+     * File size, start and nominal size of the next chunk to be submitted,
+     * and bytes of chunks submitted but not yet consumed.
+     */
+    private long size;
+    private long next;
+    private long chunkSize;
+    private long ahead = 0;
+
+    /**
+     * Chunks submitted to the pool, in file order.
+     */
+    private ArrayDeque<ForkJoinTask<Chunk>> pending = new ArrayDeque<ForkJoinTask<Chunk>>();
+
+    /**
+     * Blocks of consumed chunks, to be reused by ChunkTask.
+     */
+    private ConcurrentLinkedQueue<DataBlock> free = new ConcurrentLinkedQueue<DataBlock>();
+
+    /**
+     * Chunk currently being consumed, the index of its current block and the
+     * next row in that block.
+     */
+    private Chunk chunk = null;
+    private int blockIdx = 0;
+    private int row = 0;
+
+    /**
+     * Line number of the first line of the current chunk.
+     */
+    private long firstLine;
+
+    private String error;
+    private int errorColumn;
+    private String errorLine;
+    private long lineNumber;
+
+    /**
+     * Parsed contents of a chunk of bytes bytes and lines lines, in full
+     * blocks except for the last one. The lineNumber of each row is its index
+     * in the chunk, counting from 0.
+     */
+    private static class Chunk {
+        ArrayList<DataBlock> blocks = new ArrayList<DataBlock>();
+        long bytes;
+        long lines = 0;
+    }
+
+    /**
+     * Task parsing byte range [start, end) of the file, which contains whole
+     * lines only.
+     */
+    private class ChunkTask extends RecursiveTask<Chunk> {
+
+        private static final long serialVersionUID = 1L;
+
+        private long start;
+        private long end;
+
+        ChunkTask(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Chunk compute() {
+            Chunk result = new Chunk();
+            result.bytes = end - start;
+            DataParser parser = new DataParser(delimiter, getDictionary());
+            parser.setColumnMap(columnMap);
+            MappedByteBuffer buf;
+            try {
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end
+                        - start);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            int limit = buf.limit();
+            int pos = 0;
+            DataBlock block = null;
+            while (pos < limit) {
+                int eol = pos;
+                while (eol < limit && buf.get(eol) != '\n') {
+                    eol++;
+                }
+                int last = eol;
+                if (last > pos && buf.get(last - 1) == '\r') {
+                    last--;
+                }
+                if (block == null || block.size == block.capacity) {
+                    block = free.poll();
+                    if (block == null) {
+                        block = new DataBlock(ROWS, getDictionary());
+                    }
+                    block.clear();
+                    result.blocks.add(block);
+                }
+                int i = block.size++;
+                parser.parse(buf, pos, last, block, i);
+                block.lineNumber[i] = result.lines++;
+                block.fileName[i] = fileName;
+                pos = eol + 1;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Constructor from file name, data item delimiter and parallelism.
+     *
+     * @param fileName
+     * @param delimiter
+     *            Single-byte delimiter.
+     * @param parallelism
+     *            Number of parsing threads.
+     * @throws IOException
+     *             When file header does not correspond to requirements.
+     */
+    public ParallelFileDataSource(String fileName, char delimiter,
+            int parallelism) throws IOException {
+        this(fileName, delimiter, parallelism, new Dictionary());
+    }
+
+    /**
+     * Constructor from file name, data item delimiter, parallelism and the
+     * Dictionary strings are interned in.
+     *
+     * @param fileName
+     * @param delimiter
+     *            Single-byte delimiter.
+     * @param parallelism
+     *            Number of parsing threads.
+     * @param dictionary
+     * @throws IOException
+     *             When file header does not correspond to requirements.
+     */
+    public ParallelFileDataSource(String fileName, char delimiter,
+            int parallelism, Dictionary dictionary) throws IOException {
+        super(dictionary);
+
+        this.fileName = fileName;
+        this.delimiter = (byte) delimiter;
+        channel = new RandomAccessFile(fileName, "r").getChannel();
+        boolean opened = false;
+        try {
+            size = channel.size();
+            testFileHead();
+            opened = true;
+        } finally {
+            if (!opened) {
+                channel.close();
+            }
+        }
+        firstLine = 3;
+        lineNumber = 2;
+        pool = new ForkJoinPool(parallelism);
+        chunkSize = Math.max(MIN_CHUNK,
+                Math.min(CHUNK, AHEAD / (2 * parallelism)));
+        submit();
+    }
+
+    /**
+     * Constructor assuming default delimiter '\t' and one thread per
+     * available processor.
+     *
+     * @param fileName
+     * @throws IOException
+     */
+    public ParallelFileDataSource(String fileName) throws IOException {
+        this(fileName, '\t', Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor assuming default delimiter '\t' and one thread per
+     * available processor, interning strings in dictionary.
+     *
+     * @param fileName
+     * @param dictionary
+     * @throws IOException
+     */
+    public ParallelFileDataSource(String fileName, Dictionary dictionary)
+            throws IOException {
+        this(fileName, '\t', Runtime.getRuntime().availableProcessors(),
+                dictionary);
+    }
+
+    /**
+     * Find the start of the line that follows offset, that is, the position
+     * after the first '\n' at or after offset.
+     *
+     * @param offset
+     * @return Line start or file size.
+     * @throws IOException
+     */
+    private long lineStart(long offset) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        while (offset < size) {
+            buf.clear();
+            int n = channel.read(buf, offset);
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += n;
+        }
+        return size;
+    }
+
+    /**
+     * Read line starting at offset. Used only for file head.
+     *
+     * @param offset
+     * @return Line without terminator, null at end of file.
+     * @throws IOException
+     */
+    private String readLine(long offset) throws IOException {
+        if (offset >= size) {
+            return null;
+        }
+        long end = lineStart(offset);
+        ByteBuffer buf = ByteBuffer.allocate((int) (end - offset));
+        channel.read(buf, offset);
+        int last = buf.limit();
+        if (last > 0 && buf.get(last - 1) == '\n') {
+            last--;
+        }
+        if (last > 0 && buf.get(last - 1) == '\r') {
+            last--;
+        }
+        return new String(buf.array(), 0, last);
+    }
+
+    /**
+     * Tests file head and sets next to the start of data.
+     *
+     * @throws IOException
+     *             When header is inappropriate.
+     */
+    private void testFileHead() throws IOException {
+
+        String line1 = readLine(0);
+        long offset = lineStart(0);
+        String line2 = line1 == null ? null : readLine(offset);
+        columnMap = DelimitedFileDataSource.testFileHead(fileName, line1,
+                line2);
+        next = lineStart(offset);
+    }
+
+    /**
+     * Submit further chunks for parsing, if any, while the bytes ahead of the
+     * consumer stay within AHEAD; at least one chunk is always pending.
+     *
+     * @throws IOException
+     */
+    private void submit() throws IOException {
+        while (next < size
+                && (pending.isEmpty() || ahead + chunkSize <= AHEAD)) {
+            long end = next + chunkSize >= size ? size : lineStart(next
+                    + chunkSize);
+            pending.add(pool.submit(new ChunkTask(next, end)));
+            ahead += end - next;
+            next = end;
+        }
+    }
+
+    /**
+     * Tests whether there is another line available for getNext(). Waits
+     * until the next chunk is parsed, if needed.
+     *
+     * @throws IOException
+     */
+    public boolean hasNext() throws IOException {
+
+        while (chunk == null || blockIdx >= chunk.blocks.size()) {
+            if (chunk != null) {
+                firstLine += chunk.lines;
+                ahead -= chunk.bytes;
+                free.addAll(chunk.blocks);
+                chunk = null;
+                submit();
+            }
+            ForkJoinTask<Chunk> task = pending.poll();
+            if (task == null) {
+                close();
+                return false;
+            }
+            try {
+                chunk = task.get();
+            } catch (Exception e) {
+                close();
+                throw new IOException("ParallelFileDataSource: Error reading "
+                        + fileName, e);
+            }
+            blockIdx = 0;
+            row = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Move count rows ahead in the current block.
+     *
+     * @param count
+     */
+    private void advance(int count) {
+        row += count;
+        if (row >= chunk.blocks.get(blockIdx).size) {
+            blockIdx++;
+            row = 0;
+        }
+    }
+
+    /**
+     * Returns the next parsed Data object, in file order. In case of
+     * conversion error, it does not throw IOException, but rather returns
+     * null and stores error message, which can be later retrieved by
+     * getLastError().
+     *
+     * @throws IOException
+     */
+    public Data getNext() throws IOException {
+
+        if (!hasNext()) {
+            throw new IOException("ParallelFileDataSource: No more data in "
+                    + fileName);
+        }
+        DataBlock block = chunk.blocks.get(blockIdx);
+        int i = row;
+        advance(1);
+        lineNumber = firstLine + block.lineNumber[i];
+        error = block.error[i];
+        if (!block.valid[i]) {
+            errorColumn = block.errorColumn[i];
+            errorLine = block.errorLine[i];
+            return null;
+        }
+        return block.get(i);
+    }
+
+    /**
+     * Copies up to block.capacity next parsed rows into block.
+     *
+     * @throws IOException
+     */
+    public int nextBatch(DataBlock block) throws IOException {
+
+        block.clear();
+        block.dictionary = getDictionary();
+        while (block.size < block.capacity && hasNext()) {
+            DataBlock parsed = chunk.blocks.get(blockIdx);
+            int count = Math.min(parsed.size - row, block.capacity
+                    - block.size);
+            int first = block.size;
+            block.append(parsed, row, count);
+            advance(count);
+            for (int i = first; i < block.size; i++) {
+                block.lineNumber[i] += firstLine;
+            }
+            lineNumber = block.lineNumber[block.size - 1];
+        }
+        return block.size;
+    }
+
+    /**
+     * After getNext() has returned null because of data conversion error,
+     * getLastError() returns the error message string.
+     */
+    public String getLastError() {
+        return error;
+    }
+
+    /**
+     * Offending column of the last conversion error.
+     */
+    public int getLastErrorColumn() {
+        return errorColumn;
+    }
+
+    /**
+     * Offending line of the last conversion error.
+     */
+    public String getLastErrorLine() {
+        return errorLine;
+    }
+
+    /**
+     * Line number of the item last returned by getNext().
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Name of the input file.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Release parsing threads and the file.
+     *
+     * @throws IOException
+     */
+    private void close() throws IOException {
+        pool.shutdownNow();
+        pending.clear();
+        free.clear();
+        channel.close();
+    }
+
+}
@@ -0,0 +1,338 @@
+package eu.first.RIM;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import eu.first.RIM.Data;
+
+/**
+ * DataSource extension that reads several input files concurrently.
+ *
+ * <p>
+ * Each file is drained by its own reader task, which opens a DataSource by
+ * open() and passes Data in batches to a bounded queue of that file. The
+ * consumer takes batches through the ordinary hasNext()/getNext() interface,
+ * so reading and parsing of input files overlap with evaluation and
+ * cumulation. When a queue is full, its reader blocks until the consumer
+ * catches up, and readers work ahead on at most as many files as there are
+ * reader threads, which keeps memory bounded.
+ * </p>
+ *
+ * <p>
+ * The consumer drains the queues in the order of fileNames, so items are
+ * returned in the same order as by reading the files one after another:
+ * reports whose values depend on the order of data, like the last value kept
+ * by ProdCumulate, are the same with and without the pipeline.
+ * getLastError(), getLineNumber() and getFileName() refer to the item last
+ * returned by getNext().
+ * </p>
+ *
+ * <p>
+ * Sources returned by open() should intern strings in getDictionary(), as the
+ * default one does, so that the ids of their Data need no translation.
+ * </p>
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+public class PipelineDataSource extends DataSource {
+
+    /**
+     * Default number of items in a batch.
+     */
+    public static final int BATCH = 1024;
+
+    /**
+     * Batch of items read from a single file. items[i] is null when the line
+     * could not be converted, in which case errors[i], errorColumns[i] and
+     * errorLines[i] describe the error.
+     * The last batch of each file has last==true; failure holds the exception
+     * that terminated reading of the file, if any.
+     */
+    private static class Batch {
+        String fileName;
+        Data[] items;
+        String[] errors;
+        int[] errorColumns;
+        String[] errorLines;
+        long[] lines;
+        int size = 0;
+        boolean last = false;
+        IOException failure = null;
+
+        Batch(String fileName, int capacity) {
+            this.fileName = fileName;
+            items = new Data[capacity];
+            errors = new String[capacity];
+            errorColumns = new int[capacity];
+            errorLines = new String[capacity];
+            lines = new long[capacity];
+        }
+    }
+
+    /**
+     * Reader task draining a single file into its queue.
+     */
+    private class Reader implements Runnable {
+
+        private int file;
+
+        Reader(int file) {
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            String fileName = fileNames[file];
+            BlockingQueue<Batch> queue = queues.get(file);
+            Batch batch = new Batch(fileName, batchSize);
+            try {
+                synchronized (queues) {
+                    while (file >= current + threads) {
+                        queues.wait();
+                    }
+                }
+                try {
+                    DataSource source = open(fileName);
+                    while (source.hasNext()) {
+                        Data data = source.getNext();
+                        batch.items[batch.size] = data;
+                        if (data == null) {
+                            batch.errors[batch.size] = source.getLastError();
+                            batch.errorColumns[batch.size] = source
+                                    .getLastErrorColumn();
+                            batch.errorLines[batch.size] = source
+                                    .getLastErrorLine();
+                        }
+                        batch.lines[batch.size] = source.getLineNumber();
+                        if (++batch.size == batchSize) {
+                            queue.put(batch);
+                            batch = new Batch(fileName, batchSize);
+                        }
+                    }
+                } catch (IOException e) {
+                    batch.failure = e;
+                } catch (RuntimeException e) {
+                    batch.failure = new IOException(e);
+                }
+                batch.last = true;
+                queue.put(batch);
+            } catch (InterruptedException e) {
+                // consumer has given up
+            }
+        }
+    }
+
+    private String[] fileNames;
+    private int threads;
+    private int batchSize;
+    private ArrayList<BlockingQueue<Batch>> queues;
+    private ExecutorService readers = null;
+
+    /**
+     * Index of the file being consumed, which is also the number of files
+     * whose last batch has been consumed. Readers wait on queues until their
+     * file is less than threads files ahead of it.
+     */
+    private int current = 0;
+
+    /**
+     * Batch currently being consumed and the index of its next item.
+     */
+    private Batch batch = null;
+    private int idx = 0;
+
+    private String error;
+    private int errorColumn;
+    private String errorLine;
+    private long lineNumber;
+    private String fileName;
+
+    /**
+     * Constructor.
+     *
+     * @param fileNames
+     *            Input files.
+     * @param threads
+     *            Number of reader threads.
+     * @param batchSize
+     *            Number of items in a batch.
+     * @param capacity
+     *            Maximum number of batches waiting in all queues together.
+     */
+    public PipelineDataSource(String[] fileNames, int threads, int batchSize,
+            int capacity) {
+        this(fileNames, threads, batchSize, capacity, new Dictionary());
+    }
+
+    /**
+     * Constructor with the Dictionary strings are interned in.
+     *
+     * @param fileNames
+     *            Input files.
+     * @param threads
+     *            Number of reader threads.
+     * @param batchSize
+     *            Number of items in a batch.
+     * @param capacity
+     *            Maximum number of batches waiting in all queues together.
+     * @param dictionary
+     */
+    public PipelineDataSource(String[] fileNames, int threads, int batchSize,
+            int capacity, Dictionary dictionary) {
+        super(dictionary);
+        this.fileNames = fileNames;
+        this.threads = Math.max(1, Math.min(threads, fileNames.length));
+        this.batchSize = batchSize;
+        queues = new ArrayList<BlockingQueue<Batch>>(fileNames.length);
+        for (int i = 0; i < fileNames.length; i++) {
+            queues.add(new ArrayBlockingQueue<Batch>(Math.max(1, capacity
+                    / this.threads)));
+        }
+        if (fileNames.length > 0) {
+            readers = Executors.newFixedThreadPool(this.threads,
+                    new DaemonThreadFactory("PipelineDataSource"));
+            for (int i = 0; i < fileNames.length; i++) {
+                readers.execute(new Reader(i));
+            }
+            readers.shutdown();
+        }
+    }
+
+    /**
+     * Constructor with one reader thread per available processor, default
+     * batch size and queue capacity of four batches per reader.
+     *
+     * @param fileNames
+     *            Input files.
+     */
+    public PipelineDataSource(String[] fileNames) {
+        this(fileNames, new Dictionary());
+    }
+
+    /**
+     * Constructor with one reader thread per available processor, default
+     * batch size and queue capacity of four batches per reader, interning
+     * strings in dictionary.
+     *
+     * @param fileNames
+     *            Input files.
+     * @param dictionary
+     */
+    public PipelineDataSource(String[] fileNames, Dictionary dictionary) {
+        this(fileNames, Runtime.getRuntime().availableProcessors(), BATCH,
+                4 * Runtime.getRuntime().availableProcessors(), dictionary);
+    }
+
+    /**
+     * Open DataSource for a single input file. Called from reader threads;
+     * override to use DataSource implementations other than
+     * DelimitedFileDataSource in getDictionary().
+     *
+     * @param fileName
+     * @return DataSource
+     * @throws IOException
+     */
+    protected DataSource open(String fileName) throws IOException {
+        return new DelimitedFileDataSource(fileName, getDictionary());
+    }
+
+    /**
+     * Tests whether there is another item available for getNext(). Waits for
+     * readers, if needed.
+     *
+     * @throws IOException
+     *             When reading of some input file has failed.
+     */
+    public boolean hasNext() throws IOException {
+
+        while (batch == null || idx >= batch.size) {
+            if (batch != null && batch.last) {
+                synchronized (queues) {
+                    current++;
+                    queues.notifyAll();
+                }
+                IOException failure = batch.failure;
+                batch = null;
+                if (failure != null) {
+                    readers.shutdownNow();
+                    throw failure;
+                }
+            }
+            if (current == fileNames.length) {
+                return false;
+            }
+            try {
+                batch = queues.get(current).take();
+            } catch (InterruptedException e) {
+                readers.shutdownNow();
+                throw new IOException("PipelineDataSource: Interrupted", e);
+            }
+            idx = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the next item. In case of conversion error, returns null and
+     * stores error message, which can be later retrieved by getLastError().
+     *
+     * @throws IOException
+     */
+    public Data getNext() throws IOException {
+
+        if (!hasNext()) {
+            throw new IOException("PipelineDataSource: No more data");
+        }
+        error = batch.errors[idx];
+        errorColumn = batch.errorColumns[idx];
+        errorLine = batch.errorLines[idx];
+        lineNumber = batch.lines[idx];
+        fileName = batch.fileName;
+        Data data = batch.items[idx];
+        batch.items[idx++] = null;
+        return data;
+    }
+
+    /**
+     * After getNext() has returned null because of data conversion error,
+     * getLastError() returns the error message string.
+     */
+    public String getLastError() {
+        return error;
+    }
+
+    /**
+     * Offending column of the last conversion error.
+     */
+    public int getLastErrorColumn() {
+        return errorColumn;
+    }
+
+    /**
+     * Offending line of the last conversion error.
+     */
+    public String getLastErrorLine() {
+        return errorLine;
+    }
+
+    /**
+     * Line number of the item last returned by getNext().
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Name of the file the item last returned by getNext() was read from.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+}
@@ -9,7 +9,6 @@ import java.io.OutputStream;
 
 import java.net.URISyntaxException;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.SortedMap;
@@ -67,7 +66,7 @@ public class PrettyHTML5Reporter extends Reporter {
         html.write("</tr>\n");
         html.write("</thead>\n");
         String cls = "first";
-        for (SortedMap.Entry<String, BankCumulate> entry : bank.entrySet()) {
+        for (SortedMap.Entry<Key, BankCumulate> entry : bank.entrySet()) {
             BankCumulate c = entry.getValue();
             html.write("<tr>\n");
             html.writeCell(c.getDate(), cls, "Date");
@@ -97,7 +96,7 @@ public class PrettyHTML5Reporter extends Reporter {
                     html.writeCell("", "empty", "");
                     if (i < sortedCtpts.length) {
                         CtptCumulate ctpt = sortedCtpts[i];
-                        html.writeCell(ctpt.getCounterparts()[0], cls, "Out");
+                        html.writeCell(ctpt.getCounterpart(0), cls, "Out");
                         html.writeCell(String.format("%.2f", ctpt.getRI(Ww)),
                                 cls, "Out");
                         html.writeCell(
@@ -111,7 +110,7 @@ public class PrettyHTML5Reporter extends Reporter {
                     html.writeCell("", "empty", "");
                     if (i < sortedProds.length) {
                         ProdCumulate prod = sortedProds[i];
-                        html.writeCell(prod.getProducts()[0], cls, "Out");
+                        html.writeCell(prod.getProduct(0), cls, "Out");
                         html.writeCell(String.format("%.2f", prod.getRI(Ww)),
                                 cls, "Out");
                         html.writeCell(
@@ -153,8 +152,8 @@ public class PrettyHTML5Reporter extends Reporter {
         Html5Writer html = null;
         String product = "";
         String cls = "first";
-        for (SortedMap.Entry<String, ProdCumulate> entry : products.entrySet()) {
-            String[] key = entry.getKey().split("\t");
+        for (SortedMap.Entry<Key, ProdCumulate> entry : products.entrySet()) {
+            String[] key = entry.getKey().strings();
             if (!product.equals(key[0])) { // new product
                 if (html != null) {
                     html.endTable();
@@ -274,16 +273,15 @@ public class PrettyHTML5Reporter extends Reporter {
         String client = "";
         String cls = "";
         StringBuffer fixed = new StringBuffer();
-        ArrayList<Entry<String, Data>> entries = new ArrayList<Entry<String, Data>>();
 
-        for (Iterator<Entry<String, Data>> it = prod_client.entrySet()
-                .iterator(); it.hasNext();)
-            entries.add(it.next());
-        Entry<String, Data> entry, tmp;
-        for (int i = 0; i < entries.size(); i++) {
-            entry = entries.get(i);
+        // entries are read one ahead, to tell the last row of a table
+        Iterator<Entry<Key, Data>> it = prodClientEntries().iterator();
+        Entry<Key, Data> entry, tmp = it.hasNext() ? it.next() : null;
+        while (tmp != null) {
+            entry = tmp;
+            tmp = it.hasNext() ? it.next() : null;
 
-            String[] key = entry.getKey().split("\t");
+            String[] key = entry.getKey().strings();
             if (!counterpart.equals(key[0]) || !product.equals(key[1])
                     || !client.equals(key[2])) {
                 if (html != null) {
@@ -366,9 +364,8 @@ public class PrettyHTML5Reporter extends Reporter {
                 fixed.append("</thead>\n");
             }
             boolean last = false;
-            if (i + 1 < entries.size()) {
-                tmp = entries.get(i + 1);
-                String[] keyt = tmp.getKey().split("\t");
+            if (tmp != null) {
+                String[] keyt = tmp.getKey().strings();
                 if (!counterpart.equals(keyt[0]) || !product.equals(keyt[1])
                         || !client.equals(keyt[2])) {
 
@@ -504,20 +501,26 @@ public class PrettyHTML5Reporter extends Reporter {
             URISyntaxException {
         this.rptDirName = rptDirName;
         System.out.println("Writing reports to " + rptDirName);
-        prepareDir();// DONE
-        createPrerequisites();// DONE
-        reportMenu();// DONE
-        reportBank();// DONE
-        reportProductsClients();// DONE
-        reportProducts();// DONE
-        reportCounterparts();// DONE
+        int prodClients;
+        try {
+            prepareDir();// DONE
+            createPrerequisites();// DONE
+            reportMenu();// DONE
+            reportBank();// DONE
+            reportProductsClients();// DONE
+            reportProducts();// DONE
+            reportCounterparts();// DONE
+            prodClients = prodClientCount();
+        } finally {
+            endReport();
+        }
 
         System.out.println("Invoking browser");
         java.awt.Desktop.getDesktop().browse(new File(bankFileName()).toURI());
 
         System.out.println("Counterparts : " + counterparts.size());
         System.out.println("Products     : " + products.size());
-        System.out.println("Prods/Clients: " + prod_client.size());
+        System.out.println("Prods/Clients: " + prodClients);
     }
 
     /**
@@ -573,9 +576,9 @@ public class PrettyHTML5Reporter extends Reporter {
         String counterpart = "";
         String client = "";
 
-        for (SortedMap.Entry<String, Data> entry : prod_client.entrySet()) {
+        for (Key k : indexKeys()) {
 
-            String[] key = entry.getKey().split("\t");
+            String[] key = k.strings();
 
             if (!counterpart.equals(key[0])) {
                 if (client != "") {
@@ -609,12 +612,14 @@ public class PrettyHTML5Reporter extends Reporter {
                 index.write(HtmlWriter.embed("li",
                         HtmlWriter.href(pFileName(product), product)));
                 index.write("\n");
-                index.write("<ul>\n");
-                client = key[2];
-                index.write(HtmlWriter.embed("li", HtmlWriter.href(
-                        pcFileName(counterpart, product, client), client)));
-                index.write("\n");
-            } else if (!client.equals(key[2])) { // new client
+                if (key.length > 2) {
+                    index.write("<ul>\n");
+                    client = key[2];
+                    index.write(HtmlWriter.embed("li", HtmlWriter.href(
+                            pcFileName(counterpart, product, client), client)));
+                    index.write("\n");
+                }
+            } else if (key.length > 2 && !client.equals(key[2])) { // new client
                 client = key[2];
                 index.write(HtmlWriter.embed("li", HtmlWriter.href(
                         pcFileName(counterpart, product, client), client)));
@@ -653,9 +658,9 @@ public class PrettyHTML5Reporter extends Reporter {
         Html5Writer html = null;
         String counterpart = "";
         String cls = "first";
-        for (SortedMap.Entry<String, CtptCumulate> entry : counterparts
+        for (SortedMap.Entry<Key, CtptCumulate> entry : counterparts
                 .entrySet()) {
-            String[] key = entry.getKey().split("\t");
+            String[] key = entry.getKey().strings();
             if (!counterpart.equals(key[0])) { // new counterpart
                 cls = "first";
                 if (html != null) {
@@ -706,7 +711,8 @@ public class PrettyHTML5Reporter extends Reporter {
                     "Out");
             html.writeCell(String.format("%.4f", 100 * c.getcRNp()), cls, "Sup");
             html.writeCell(String.format("%.4f", 100 * c.getcRVp()), cls, "Sup");
-            BankCumulate bc = bank.get(key(c.getDate()));
+            BankCumulate bc = bank.get(new Key(getDictionary(), c
+                    .getDateId()));
 
             if (COUNTERPART == 0 || bc == null) {
                 html.write("</tr>\n");
@@ -726,7 +732,7 @@ public class PrettyHTML5Reporter extends Reporter {
                     }
                     html.writeCell("", "empty", "");
                     ProdCumulate prod = sortedProds[i];
-                    html.writeCell(prod.getProducts()[0], cls, "Out");
+                    html.writeCell(prod.getProduct(0), cls, "Out");
                     html.writeCell(String.format("%.2f", prod.getRI(Ww)), cls,
                             "Out");
                     html.writeCell(String.format("%.2f", 100 * prod.contrib),
@@ -56,7 +56,7 @@ public class PrettyReporter extends Reporter {
             html.writeHdCell("Contr%", "HdOut");
         }
         html.write("</tr>\n");
-        for (SortedMap.Entry<String, BankCumulate> entry : bank.entrySet()) {
+        for (SortedMap.Entry<Key, BankCumulate> entry : bank.entrySet()) {
             BankCumulate c = entry.getValue();
             html.write("<tr>\n");
             html.writeCell(c.getDate(), "Date");
@@ -94,7 +94,7 @@ public class PrettyReporter extends Reporter {
                     html.writeCell("&nbsp;", "Out");
                     if (i < sortedCtpts.length) {
                         CtptCumulate ctpt = sortedCtpts[i];
-                        html.writeCell(ctpt.getCounterparts()[0], "Out");
+                        html.writeCell(ctpt.getCounterpart(0), "Out");
                         html.writeCell(String.format("%.2f", ctpt.getRI(Ww)),
                                 "Out");
                         html.writeCell(String.format("%.2f", 100*ctpt.contrib),
@@ -107,7 +107,7 @@ public class PrettyReporter extends Reporter {
                     html.writeCell("&nbsp;", "Out");
                     if (i < sortedProds.length) {
                         ProdCumulate prod = sortedProds[i];
-                        html.writeCell(prod.getProducts()[0], "Out");
+                        html.writeCell(prod.getProduct(0), "Out");
                         html.writeCell(String.format("%.2f", prod.getRI(Ww)),
                                 "Out");
                         html.writeCell(String.format("%.2f", 100*prod.contrib),
@@ -134,9 +134,9 @@ public class PrettyReporter extends Reporter {
     protected void reportCounterparts() throws IOException {
         HtmlWriter html = null;
         String counterpart = "";
-        for (SortedMap.Entry<String, CtptCumulate> entry : counterparts
+        for (SortedMap.Entry<Key, CtptCumulate> entry : counterparts
                 .entrySet()) {
-            String[] key = entry.getKey().split("\t");
+            String[] key = entry.getKey().strings();
             if (!counterpart.equals(key[0])) { // new counterpart
                 if (html != null) {
                     html.endTable();
@@ -177,7 +177,8 @@ public class PrettyReporter extends Reporter {
             html.writeCell(String.format("%.2f", 100 * c.getRXp(Wv)), "Out");
             html.writeCell(String.format("%.4f", 100 * c.getcRNp()), "Sup");
             html.writeCell(String.format("%.4f", 100 * c.getcRVp()), "Sup");
-            BankCumulate bc = bank.get(key(c.getDate()));
+            BankCumulate bc = bank.get(new Key(getDictionary(), c
+                    .getDateId()));
             if (SrtTabLen == 0 || bc == null) {
                 html.write("</tr>\n");
             } else {
@@ -192,7 +193,7 @@ public class PrettyReporter extends Reporter {
                     }
                     html.writeCell("&nbsp;", "Out");
                     ProdCumulate prod = sortedProds[i];
-                    html.writeCell(prod.getProducts()[0], "Out");
+                    html.writeCell(prod.getProduct(0), "Out");
                     html.writeCell(String.format("%.2f", prod.getRI(Ww)), "Out");
                     html.writeCell(String.format("%.2f", 100*prod.contrib), "Out");
                     html.write("</tr>\n");
@@ -214,8 +215,8 @@ public class PrettyReporter extends Reporter {
     protected void reportProducts() throws IOException {
         HtmlWriter html = null;
         String product = "";
-        for (SortedMap.Entry<String, ProdCumulate> entry : products.entrySet()) {
-            String[] key = entry.getKey().split("\t");
+        for (SortedMap.Entry<Key, ProdCumulate> entry : products.entrySet()) {
+            String[] key = entry.getKey().strings();
             if (!product.equals(key[0])) { // new product
                 if (html != null) {
                     html.endTable();
@@ -283,8 +284,8 @@ public class PrettyReporter extends Reporter {
         String counterpart = "";
         String product = "";
         String client = "";
-        for (SortedMap.Entry<String, Data> entry : prod_client.entrySet()) {
-            String[] key = entry.getKey().split("\t");
+        for (SortedMap.Entry<Key, Data> entry : prodClientEntries()) {
+            String[] key = entry.getKey().strings();
             if (!counterpart.equals(key[0]) || !product.equals(key[1])
                     || !client.equals(key[2])) {
                 if (html != null) {
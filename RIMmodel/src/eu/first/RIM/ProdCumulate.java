@@ -1,7 +1,5 @@
 package eu.first.RIM;
 
-import java.util.ArrayList;
-
 import si.JDEXi.Distribution;
 import eu.first.RIM.Data;
 
@@ -19,24 +17,30 @@ public class ProdCumulate implements Comparable<ProdCumulate> {
     /**
      * Date obtained from Data. Used only for checking whether data of
      * consecutive Data objects match (because aggregating Data for different
-     * dates does not make sense and indicates an error).
+     * dates does not make sense and indicates an error). Id in dictionary, -1
+     * before the first Data is cumulated.
+     */
+    private int dateId;
+
+    /**
+     * Dictionary of the ids of dates, counterparts, products and clients.
      */
-    private String date;
+    final Dictionary dictionary;
 
     /**
-     * List of counterparts whose Data was aggregated into this ProdCumulate.
+     * Set of counterparts whose Data was aggregated into this ProdCumulate.
      */
-    private ArrayList<String> counterparts;
+    private IdSet counterparts;
 
     /**
-     * List of products whose Data was aggregated into this ProdCumulate.
+     * Set of products whose Data was aggregated into this ProdCumulate.
      */
-    protected ArrayList<String> products;
+    protected IdSet products;
 
     /**
-     * List of clients whose Data was aggregated into this ProdCumulate.
+     * Set of clients whose Data was aggregated into this ProdCumulate.
      */
-    private ArrayList<String> clients;
+    private IdSet clients;
 
     /**
      * Qualitative distribution of qRI1.
@@ -74,13 +78,33 @@ public class ProdCumulate implements Comparable<ProdCumulate> {
     public double contrib = 0.0;
 
     /**
-     * Constructor. Only creates empty private objects.
+     * Sequence numbers of the first and the last Data cumulated by
+     * cumulate(Data, long), -1 if none. Used by merge() and to restore the
+     * order in which cumulates were made.
+     */
+    long first = -1;
+    long last = -1;
+
+    /**
+     * Constructor. Only creates empty private objects, with a Dictionary of
+     * their own.
      */
     public ProdCumulate() {
-        date = null;
-        counterparts = new ArrayList<String>();
-        products = new ArrayList<String>();
-        clients = new ArrayList<String>();
+        this(new Dictionary());
+    }
+
+    /**
+     * Constructor. Only creates empty private objects; strings of Data are
+     * interned in dictionary.
+     * 
+     * @param dictionary
+     */
+    public ProdCumulate(Dictionary dictionary) {
+        this.dictionary = dictionary;
+        dateId = -1;
+        counterparts = new IdSet();
+        products = new IdSet();
+        clients = new IdSet();
         qRI1 = new Distribution(5);
         wRI1 = new Distribution(5);
         cRNp = 0.0;
@@ -91,7 +115,7 @@ public class ProdCumulate implements Comparable<ProdCumulate> {
      * Clears contents of all private objects.
      */
     public void clear() {
-        date = null;
+        dateId = -1;
         counterparts.clear();
         products.clear();
         clients.clear();
@@ -102,15 +126,15 @@ public class ProdCumulate implements Comparable<ProdCumulate> {
     }
 
     /**
-     * Test whether two date strings match, i.e., one or both are null, or they
-     * are equal.
+     * Test whether two date ids match, i.e., one or both are undefined (-1),
+     * or they are equal.
      * 
      * @param date1
      * @param date2
      * @return boolean
      */
-    private boolean datesMatch(String date1, String date2) {
-        return (date1 == null) || (date2 == null) || (date1.equals(date2));
+    private boolean datesMatch(int date1, int date2) {
+        return (date1 < 0) || (date2 < 0) || (date1 == date2);
     }
 
     /**
@@ -141,30 +165,153 @@ public class ProdCumulate implements Comparable<ProdCumulate> {
      *             When this.date and d.date do not match.
      */
     public void cumulate(Data d) {
-        if (!datesMatch(date, d.date)) {
+        cumulate(dictionary.id(d.counterpart, d.counterpartId),
+                dictionary.id(d.product, d.productId),
+                dictionary.id(d.client, d.clientId),
+                dictionary.id(d.date, d.dateId), d.qRI1, d.RV1p, d.RNp, d.RVp);
+    }
+
+    /**
+     * Accumulates row i of block, like cumulate(Data), without making a Data
+     * object.
+     * 
+     * @param b
+     *            DataBlock whose ids are those of dictionary.
+     * @param i
+     * @throws UnsupportedOperationException
+     *             When this.date and the date of the row do not match.
+     */
+    public void cumulate(DataBlock b, int i) {
+        if (b.dictionary != dictionary) {
+            throw new IllegalArgumentException(
+                    "ProdCumulate.cumulate(): DataBlock of another Dictionary");
+        }
+        cumulate(b.counterpartId[i], b.productId[i], b.clientId[i],
+                b.dateId[i], b.qRI1[i], b.RV1p[i], b.RNp[i], b.RVp[i]);
+    }
+
+    private void cumulate(int counterpartId, int productId, int clientId,
+            int dId, int ri, double RV1p, double RNp, double RVp) {
+        if (!datesMatch(dateId, dId)) {
             throw new UnsupportedOperationException(
                     "ProdCumulate.cumulate(): Dates do not match");
         }
-        if (date == null) {
-            date = d.date;
+        if (dateId < 0) {
+            dateId = dId;
         }
-        boolean newProduct = false;
-        if (!counterparts.contains(d.counterpart)) {
-            counterparts.add(d.counterpart);
+        counterparts.add(counterpartId);
+        boolean newProduct = products.add(productId);
+        clients.add(clientId);
+
+        qRI1.add(ri);
+        wRI1.add(ri, RV1p);
+        cumulateRNp(RNp, newProduct);
+        cumulateRVp(RVp, newProduct);
+
+    }
+
+    /**
+     * Accumulates another Data object with a given sequence number. Sequence
+     * numbers must increase in the order of cumulation.
+     * 
+     * @param d
+     * @param sequence
+     */
+    void cumulate(Data d, long sequence) {
+        cumulate(d);
+        sequenced(sequence);
+    }
+
+    /**
+     * Accumulates row i of block with a given sequence number; see
+     * cumulate(Data, long).
+     * 
+     * @param b
+     * @param i
+     * @param sequence
+     */
+    void cumulate(DataBlock b, int i, long sequence) {
+        cumulate(b, i);
+        sequenced(sequence);
+    }
+
+    private void sequenced(long sequence) {
+        if (first < 0) {
+            first = sequence;
         }
-        if (!products.contains(d.product)) {
-            products.add(d.product);
-            newProduct = true;
+        last = sequence;
+    }
+
+    /**
+     * merge cRNp of another cumulate
+     * 
+     * @param RNp
+     * @param later
+     *            Whether the other cumulate holds later Data.
+     */
+    protected void mergeRNp(double RNp, boolean later) {
+        if (later) {
+            cRNp = RNp;
         }
-        if (!clients.contains(d.client)) {
-            clients.add(d.client);
+    }
+
+    /**
+     * merge cRVp of another cumulate
+     * 
+     * @param RVp
+     * @param later
+     *            Whether the other cumulate holds later Data.
+     */
+    protected void mergeRVp(double RVp, boolean later) {
+        if (later) {
+            cRVp = RVp;
         }
+    }
 
-        qRI1.add(d.qRI1);
-        wRI1.add(d.qRI1, d.RV1p);
-        cumulateRNp(d.RNp, newProduct);
-        cumulateRVp(d.RVp, newProduct);
+    /**
+     * Merges cumulate p, made from other Data, into this one. Both must have
+     * been made by cumulate(Data, long). Lists are joined, distributions are
+     * added, and values taken from the last Data are taken from the cumulate
+     * that holds later Data.
+     * 
+     * @param p
+     * @throws UnsupportedOperationException
+     *             When this.date and p.date do not match.
+     */
+    public void merge(ProdCumulate p) {
+        if (!datesMatch(dateId, p.dateId)) {
+            throw new UnsupportedOperationException(
+                    "ProdCumulate.merge(): Dates do not match");
+        }
+        if (dateId < 0) {
+            dateId = p.dateId;
+        }
+        join(counterparts, p.counterparts);
+        join(products, p.products);
+        join(clients, p.clients);
+
+        qRI1.add(p.qRI1);
+        wRI1.add(p.wRI1);
+        boolean later = p.last > last;
+        mergeRNp(p.cRNp, later);
+        mergeRVp(p.cRVp, later);
+
+        if (first < 0 || (p.first >= 0 && p.first < first)) {
+            first = p.first;
+        }
+        last = Math.max(last, p.last);
+    }
 
+    /**
+     * Add strings of list that are not in result to result.
+     * 
+     * @param result
+     * @param list
+     */
+    private static void join(IdSet result, IdSet list) {
+        for (int i = 0; i < list.size(); i++) {
+            result.add(list.get(i));
+        }
     }
 
     /**
@@ -173,7 +320,16 @@ public class ProdCumulate implements Comparable<ProdCumulate> {
      * @return String
      */
     public String getDate() {
-        return new String(date);
+        return new String(dictionary.get(dateId));
+    }
+
+    /**
+     * Get dictionary id of date.
+     * 
+     * @return int
+     */
+    public int getDateId() {
+        return dateId;
     }
 
     /**
@@ -182,7 +338,26 @@ public class ProdCumulate implements Comparable<ProdCumulate> {
      * @return List of product names.
      */
     public String[] getCounterparts() {
-        return counterparts.toArray(new String[0]);
+        return counterparts.toStrings(dictionary);
+    }
+
+    /**
+     * Get the number of counterparts.
+     * 
+     * @return int
+     */
+    public int getCounterpartCount() {
+        return counterparts.size();
+    }
+
+    /**
+     * Get counterpart at index, without copying the list.
+     * 
+     * @param index
+     * @return Counterpart name.
+     */
+    public String getCounterpart(int index) {
+        return dictionary.get(counterparts.get(index));
     }
 
     /**
@@ -191,7 +366,26 @@ public class ProdCumulate implements Comparable<ProdCumulate> {
      * @return List of product names.
      */
     public String[] getProducts() {
-        return products.toArray(new String[0]);
+        return products.toStrings(dictionary);
+    }
+
+    /**
+     * Get the number of products.
+     * 
+     * @return int
+     */
+    public int getProductCount() {
+        return products.size();
+    }
+
+    /**
+     * Get product at index, without copying the list.
+     * 
+     * @param index
+     * @return Product name.
+     */
+    public String getProduct(int index) {
+        return dictionary.get(products.get(index));
     }
 
     /**
@@ -200,7 +394,26 @@ public class ProdCumulate implements Comparable<ProdCumulate> {
      * @return List of client names.
      */
     public String[] getClients() {
-        return clients.toArray(new String[0]);
+        return clients.toStrings(dictionary);
+    }
+
+    /**
+     * Get the number of clients.
+     * 
+     * @return int
+     */
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Get client at index, without copying the list.
+     * 
+     * @param index
+     * @return Client name.
+     */
+    public String getClient(int index) {
+        return dictionary.get(clients.get(index));
     }
 
     /**
@@ -0,0 +1,86 @@
+package eu.first.RIM;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import eu.first.RIM.Data;
+
+/**
+ * QuarantineWriter class. Writes rejected input lines to a tab-delimited
+ * quarantine file, together with the file and line they come from, the
+ * offending column and the error message. The first line of the file is
+ * "RIM Quarantine", the second one contains column names; each further line
+ * describes one rejected line, which is stored verbatim in the last column.
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+public class QuarantineWriter {
+
+    private static final String[] names = Data.tabbedInputNames().split("\t");
+
+    private BufferedWriter file;
+
+    /**
+     * Constructor. Creates the file and writes its head.
+     *
+     * @param fileName
+     * @throws IOException
+     */
+    public QuarantineWriter(String fileName) throws IOException {
+        file = new BufferedWriter(new FileWriter(fileName), 1 << 16);
+        file.write("RIM Quarantine\n");
+        file.write("File\tLine\tColumn\tError\tData\n");
+    }
+
+    /**
+     * Replace characters that would break the format with blanks.
+     *
+     * @param s
+     * @return String
+     */
+    private static String clean(String s) {
+        return s == null ? "" : s.replace('\t', ' ').replace('\n', ' ')
+                .replace('\r', ' ');
+    }
+
+    /**
+     * Write a rejected line.
+     *
+     * @param fileName
+     * @param lineNumber
+     * @param column
+     *            Offending column or -1 if unknown.
+     * @param error
+     * @param line
+     *            Raw line, null if unknown.
+     * @throws IOException
+     */
+    public void write(String fileName, long lineNumber, int column,
+            String error, String line) throws IOException {
+        file.write(clean(fileName));
+        file.write('\t');
+        file.write(Long.toString(lineNumber));
+        file.write('\t');
+        file.write(column >= 0 && column < names.length ? names[column] : "");
+        file.write('\t');
+        file.write(clean(error));
+        file.write('\t');
+        if (line != null) {
+            file.write(line.replace('\n', ' ').replace('\r', ' '));
+        }
+        file.write('\n');
+    }
+
+    /**
+     * Flush and close the file.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        file.close();
+    }
+
+}
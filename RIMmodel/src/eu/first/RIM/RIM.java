@@ -1,6 +1,7 @@
 package eu.first.RIM;
 
 import java.io.File;
+import java.io.IOException;
 
 
 /**
@@ -23,10 +24,26 @@ import java.io.File;
  * 
  * <p>
  * Usage:<br/>
- * <code>java -jar RIM.jar input_file [input_file...] output_folder</code></br>
+ * <code>java -jar RIM.jar [options] input_file [input_file...] output_folder</code></br>
  * where:<br/>
+ * <code>options</code>: <code>-mapped</code>: read input files through
+ * memory-mapped eu.first.MappedFileDataSource; <code>-parallel</code>: parse
+ * each input file on all processors with eu.first.ParallelFileDataSource;
+ * <code>-pipeline</code>: read all input files concurrently through
+ * eu.first.PipelineDataSource, overlapping reading with evaluation;
+ * <code>-threads n</code>: cumulate on n threads, see
+ * eu.first.Reporter.setThreads(); <code>-aggregates</code>: keep only
+ * cumulates, without product/client reports, see
+ * eu.first.Reporter.setAggregatesOnly(); <code>-spill folder</code>: keep
+ * product/client data in sorted temporary files in folder instead of
+ * memory, see eu.first.Reporter.setSpill();
+ * <code>-quarantine file</code>: write rejected input lines to file with
+ * eu.first.QuarantineWriter, instead of reporting each on the console.</br>
  * <code>input_file</code>: tab-delimited text file containing data for
- * product/client pairs.</br> <code>output_folder</code>: folder for generated
+ * product/client pairs, possibly compressed with gzip or
+ * eu.first.BlockGzipOutputStream, or its binary equivalent made by
+ * eu.first.BinaryFileWriter. "-" stands for standard input; named pipes can
+ * be used as well.</br> <code>output_folder</code>: folder for generated
  * html reports.
  * </p>
  * 
@@ -75,22 +92,209 @@ import java.io.File;
  */
 public class RIM {
 
+    private static final String USAGE = "Usage: java -jar RIM.jar [-mapped|-parallel] [-pipeline] [-threads n] [-aggregates|-spill folder] [-quarantine file] input_file [input_file...] output_folder";
+
+    /**
+     * Read input files through MappedFileDataSource.
+     */
+    private static boolean mapped = false;
+
+    /**
+     * Parse each input file in parallel through ParallelFileDataSource.
+     */
+    private static boolean parallel = false;
+
+    /**
+     * Read all input files concurrently through PipelineDataSource.
+     */
+    private static boolean pipeline = false;
+
+    /**
+     * Number of cumulation threads.
+     */
+    private static int threads = 1;
+
+    /**
+     * Keep only cumulates, without product/client reports.
+     */
+    private static boolean aggregates = false;
+
+    /**
+     * Folder for spilling product/client Data, null if Data is kept in
+     * memory.
+     */
+    private static String spillDir = null;
+
+    /**
+     * File for rejected input lines, null if none.
+     */
+    private static String quarantineFile = null;
+    private static QuarantineWriter quarantine = null;
+
+    /**
+     * Input data errors per column.
+     */
+    private static ErrorStatistics errorStats = new ErrorStatistics();
+
+    /**
+     * Counters of processed data items.
+     */
+    private static int cnt = 0;
+    private static int dataCount = 0;
+    private static int dataErrorsCount = 0;
+
+    /**
+     * Number of rows processed at once.
+     */
+    private static final int BLOCK = 1024;
+
+    /**
+     * Parse leading command-line options.
+     * 
+     * @param args
+     * @return Index of the first non-option argument.
+     */
+    private static int parseOptions(String[] args) {
+        int first = 0;
+        while (first < args.length && args[first].startsWith("-")
+                && !args[first].equals(CompressedInput.STDIN)) {
+            if (args[first].equals("-mapped")) {
+                mapped = true;
+            } else if (args[first].equals("-parallel")) {
+                parallel = true;
+            } else if (args[first].equals("-pipeline")) {
+                pipeline = true;
+            } else if (args[first].equals("-threads")
+                    && first + 1 < args.length
+                    && args[first + 1].matches("[1-9][0-9]{0,3}")) {
+                threads = Integer.parseInt(args[++first]);
+            } else if (args[first].equals("-aggregates")) {
+                aggregates = true;
+            } else if (args[first].equals("-spill")
+                    && first + 1 < args.length) {
+                spillDir = args[++first];
+            } else if (args[first].equals("-quarantine")
+                    && first + 1 < args.length) {
+                quarantineFile = args[++first];
+            } else {
+                System.out.println("Unknown option: " + args[first]);
+                System.out.println(USAGE);
+                System.exit(1);
+            }
+            first++;
+        }
+        return first;
+    }
+
     /**
-     * Usage: java -jar RIM.jar input_file [input_file...] output_folder
+     * Open DataSource for input file, according to options.
+     * 
+     * @param fileName
+     * @param dictionary
+     *            Dictionary of the Reporter the data is cumulated in.
+     * @return DataSource
+     * @throws IOException
+     */
+    private static DataSource openDataSource(String fileName,
+            Dictionary dictionary) throws IOException {
+        if (!CompressedInput.isRegularFile(fileName)) {
+            // standard input or pipe: can be read only once, as a stream
+            return new DelimitedFileDataSource(fileName, dictionary);
+        }
+        if (BinaryFileDataSource.isBinary(fileName)) {
+            return new BinaryFileDataSource(fileName, dictionary);
+        }
+        if (CompressedInput.isCompressed(fileName)) {
+            // compressed files cannot be mapped
+            return new DelimitedFileDataSource(fileName, dictionary);
+        }
+        if (parallel) {
+            return new ParallelFileDataSource(fileName, dictionary);
+        }
+        if (mapped) {
+            return new MappedFileDataSource(fileName, dictionary);
+        }
+        return new DelimitedFileDataSource(fileName, dictionary);
+    }
+
+    /**
+     * Open PipelineDataSource reading all input files concurrently. Each file
+     * is opened by openDataSource(), according to options.
+     * 
+     * @param fileNames
+     * @param dictionary
+     *            Dictionary of the Reporter the data is cumulated in.
+     * @return DataSource
+     */
+    private static DataSource openPipeline(String[] fileNames,
+            Dictionary dictionary) {
+        return new PipelineDataSource(fileNames, dictionary) {
+            @Override
+            protected DataSource open(String fileName) throws IOException {
+                return openDataSource(fileName, getDictionary());
+            }
+        };
+    }
+
+    /**
+     * Evaluate and cumulate all data items from source, block by block.
+     * 
+     * @param source
+     * @param rim
+     * @param rpt
+     * @throws IOException
+     */
+    private static void process(DataSource source, ModelRIM rim, Reporter rpt)
+            throws IOException {
+        DataBlock block = new DataBlock(BLOCK);
+        while (source.nextBatch(block) > 0) {
+            rim.evaluate(block);
+            rpt.cumulate(block);
+            for (int i = 0; i < block.size; i++) {
+                cnt++;
+                if (!block.valid[i]) {
+                    errorStats.add(block.errorColumn[i]);
+                    if (quarantine != null) {
+                        quarantine.write(block.fileName[i], block.lineNumber[i],
+                                block.errorColumn[i], block.error[i],
+                                block.errorLine[i]);
+                    } else if (pipeline) {
+                        System.out.println(String.format(
+                                "Error reading data item in file %s, line %d: %s",
+                                block.fileName[i], block.lineNumber[i],
+                                block.error[i]));
+                    } else {
+                        System.out.println(String.format(
+                                "Error reading data item in line %d: %s",
+                                block.lineNumber[i], block.error[i]));
+                    }
+                    dataErrorsCount++;
+                } else {
+                    dataCount++;
+                }
+                if ((cnt % 1000) == 0) {
+                  System.out.print(".");
+                }
+            }
+        }
+    }
+
+    /**
+     * Usage: java -jar RIM.jar [-mapped|-parallel] [-pipeline] [-threads n] [-aggregates|-spill folder] [-quarantine file] input_file [input_file...] output_folder
      * 
      * @param args
      * @throws Exception 
      */
     public static void main(String[] args) throws Exception {
 
-        if (args.length < 2) {
-            System.out
-                    .println("Usage: java -jar RIM.jar input_file [input_file...] output_folder");
+        int first = parseOptions(args);
+        if (args.length - first < 2) {
+            System.out.println(USAGE);
             System.exit(1);
         }
-        for (int i = 0; i < args.length - 1; i++) {
+        for (int i = first; i < args.length - 1; i++) {
             File file = new File(args[i]);
-            if (!file.exists()) {
+            if (!args[i].equals(CompressedInput.STDIN) && !file.exists()) {
                 System.out.println("Input file does not exist: " + args[i]);
                 System.exit(2);
             }
@@ -103,35 +307,42 @@ public class RIM {
         }
 
         try {
-            int dataCount = 0;
-            int dataErrorsCount = 0;
             long start = System.currentTimeMillis();
             ModelRIM rim = new ModelRIM();            
             PrettyHTML5Reporter rpt = new PrettyHTML5Reporter();
             //Reporter rpt = new PrettyReporter();
-            int cnt = 0;
-            for (int i = 0; i < args.length - 1; i++) {
-                System.out.println("Processing file " + args[i]);
-                DataSource source = new DelimitedFileDataSource(args[i]);
-                while (source.hasNext()) {
-                    Data data = source.getNext();
-                    cnt++;
-                    if (data == null) {
-                        System.out.println(String.format(
-                                "Error reading data item in line %d: %s", cnt,
-                                source.getLastError()));
-                        dataErrorsCount++;
-                    } else {
-                        rim.evaluateProductClient(data);
-                        rpt.cumulate(data);                        
-                        dataCount++;
-                    }
-                    if ((cnt % 1000) == 0) {
-                      System.out.print(".");
-                    }
+            rpt.setThreads(threads);
+            rpt.setAggregatesOnly(aggregates);
+            if (spillDir != null) {
+                rpt.setSpill(new File(spillDir), DataSpill.RUN);
+            }
+            if (quarantineFile != null) {
+                quarantine = new QuarantineWriter(quarantineFile);
+            }
+            if (pipeline) {
+                String[] files = new String[args.length - 1 - first];
+                System.arraycopy(args, first, files, 0, files.length);
+                System.out.println("Processing " + files.length + " files");
+                process(openPipeline(files, rpt.getDictionary()), rim, rpt);
+            } else {
+                for (int i = first; i < args.length - 1; i++) {
+                    System.out.println("Processing file " + args[i]);
+                    process(openDataSource(args[i], rpt.getDictionary()), rim,
+                            rpt);
                 }
             }
+            if (quarantine != null) {
+                quarantine.close();
+            }
             System.out.println("\nData items processed: " + cnt);
+            if (dataErrorsCount > 0) {
+                System.out.println("Input data errors per column:");
+                System.out.print(errorStats.report());
+                if (quarantineFile != null) {
+                    System.out.println("Rejected lines written to "
+                            + quarantineFile);
+                }
+            }
             
             
             rpt.postCumulate();
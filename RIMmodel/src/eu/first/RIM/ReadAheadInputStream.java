@@ -0,0 +1,167 @@
+package eu.first.RIM;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * InputStream that reads another InputStream in a background thread. Used to
+ * overlap sequential decompression (for instance, by GZIPInputStream) with
+ * parsing. Data is passed from the background thread in buffers through a
+ * bounded queue.
+ *
+ * @version 1.0
+ * @since 2026-10-17
+ *
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    /**
+     * End-of-stream mark in the queue.
+     */
+    private static final byte[] EOF = new byte[0];
+
+    private InputStream in;
+    private BlockingQueue<byte[]> queue;
+    private Thread reader;
+    private volatile IOException failure = null;
+
+    /**
+     * Buffer currently being read and the bounds of its data.
+     */
+    private byte[] buffer = null;
+    private int pos = 0;
+    private int limit = 0;
+    private boolean eof = false;
+
+    /**
+     * Constructor.
+     *
+     * @param in
+     * @param bufferSize
+     *            Size of buffers.
+     * @param buffers
+     *            Maximum number of buffers read ahead.
+     */
+    public ReadAheadInputStream(InputStream in, final int bufferSize,
+            int buffers) {
+        this.in = in;
+        queue = new ArrayBlockingQueue<byte[]>(buffers);
+        reader = new DaemonThreadFactory("ReadAheadInputStream")
+                .newThread(new Runnable() {
+                    public void run() {
+                        fill(bufferSize);
+                    }
+                });
+        reader.start();
+    }
+
+    /**
+     * Constructor with 64 KB buffers, at most 16 read ahead.
+     *
+     * @param in
+     */
+    public ReadAheadInputStream(InputStream in) {
+        this(in, 1 << 16, 16);
+    }
+
+    /**
+     * Background thread: read in until end of stream or error.
+     *
+     * @param bufferSize
+     */
+    private void fill(int bufferSize) {
+        try {
+            try {
+                while (true) {
+                    byte[] b = new byte[bufferSize];
+                    int len = 0;
+                    int k = 0;
+                    while (len < bufferSize
+                            && (k = in.read(b, len, bufferSize - len)) >= 0) {
+                        len += k;
+                    }
+                    if (len > 0) {
+                        if (len < bufferSize) {
+                            byte[] tmp = new byte[len];
+                            System.arraycopy(b, 0, tmp, 0, len);
+                            b = tmp;
+                        }
+                        queue.put(b);
+                    }
+                    if (k < 0) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+            queue.put(EOF);
+        } catch (InterruptedException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Make the next buffer current.
+     *
+     * @return false at end of stream.
+     * @throws IOException
+     */
+    private boolean nextBuffer() throws IOException {
+        while (pos >= limit) {
+            if (eof) {
+                return false;
+            }
+            try {
+                buffer = queue.take();
+            } catch (InterruptedException e) {
+                throw new IOException("ReadAheadInputStream: Interrupted", e);
+            }
+            if (buffer == EOF) {
+                eof = true;
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+            pos = 0;
+            limit = buffer.length;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextBuffer()) {
+            return -1;
+        }
+        return buffer[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextBuffer()) {
+            return -1;
+        }
+        int n = Math.min(len, limit - pos);
+        System.arraycopy(buffer, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return limit - pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.interrupt();
+        in.close();
+    }
+
+}
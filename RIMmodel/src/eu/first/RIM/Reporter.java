@@ -3,8 +3,19 @@ package eu.first.RIM;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import eu.first.RIM.Data;
 import eu.first.RIM.ProdCumulate;
@@ -16,6 +27,39 @@ import eu.first.RIM.BankCumulate;
  * accumulating statistic at a counterpart, product, client and bank level and
  * (3) making external reports.
  * 
+ * <p>
+ * Data and cumulates are collected in hash maps, so that each row costs a few
+ * hash lookups. Reports need time series sorted by keys, so the hash maps are
+ * sorted only once, by postCumulate(), into the SortedMaps used by reports.
+ * </p>
+ * 
+ * <p>
+ * With setThreads(), cumulation runs in parallel: Data is partitioned by
+ * product and date among shards, each cumulated by its own thread in the
+ * order of arrival, and the shards are merged by postCumulate(). Merging
+ * restores the order of cumulates; only sums are added in a different
+ * order.
+ * </p>
+ * 
+ * <p>
+ * With setAggregatesOnly(), Data is not stored, which saves most of the
+ * memory taken by large inputs. Only cumulates are kept and product/client
+ * reports are not made.
+ * </p>
+ * 
+ * <p>
+ * With setSpill(), Data is not stored in memory either, but spilled to
+ * sorted runs in temporary files (see DataSpill). Product/client reports are
+ * made from a merge of the runs, which are deleted when reports are done.
+ * </p>
+ * 
+ * <p>
+ * Each Reporter interns counterpart, product, client and date strings in a
+ * Dictionary of its own, see getDictionary(). DataSources made with it
+ * deliver Data and DataBlocks whose ids are used as they are; others are
+ * interned when cumulated.
+ * </p>
+ * 
  * @author Marko Bohanec (marko.bohanec@ijs.si)
  * @version 1.0
  * @since 2012-10-22
@@ -28,22 +72,108 @@ public class Reporter {
     /**
      * Product/client time series (sorted by date in string format).
      */
-    protected SortedMap<String, Data> prod_client;
+    protected SortedMap<Key, Data> prod_client;
 
     /**
      * CtptCumulate time series (sorted by date in string format).
      */
-    protected SortedMap<String, CtptCumulate> counterparts;
+    protected SortedMap<Key, CtptCumulate> counterparts;
 
     /**
      * ProdCumulate time series (sorted by date in string format).
      */
-    protected SortedMap<String, ProdCumulate> products;
+    protected SortedMap<Key, ProdCumulate> products;
 
     /**
      * BankCumulate time series (sorted by date in string format).
      */
-    protected SortedMap<String, BankCumulate> bank;
+    protected SortedMap<Key, BankCumulate> bank;
+
+    /**
+     * Hash maps of data and cumulates, filled by cumulate() and sorted into
+     * the SortedMaps above by sortCumulates(); null afterwards.
+     */
+    private HashMap<Key, Data> prodClientIndex;
+    private HashMap<Key, CtptCumulate> counterpartIndex;
+    private HashMap<Key, ProdCumulate> productIndex;
+    private HashMap<Key, BankCumulate> bankIndex;
+
+    /**
+     * Aggregates-only mode; see setAggregatesOnly().
+     */
+    private boolean aggregatesOnly = false;
+
+    /**
+     * Spilled product/client Data; see setSpill(). Null when Data is stored
+     * in prod_client.
+     */
+    private DataSpill spill = null;
+
+    /**
+     * Fingerprints of Data keys, for detecting duplicates in aggregates-only
+     * mode; null otherwise or after sortCumulates().
+     */
+    private FingerprintSet fingerprints = null;
+
+    /**
+     * (counterpart, product) keys listed by indexes in aggregates-only mode,
+     * made by sortCumulates().
+     */
+    private SortedSet<Key> pairs = null;
+
+    /**
+     * Sequence number of the next Data cumulated.
+     */
+    private long sequence = 0;
+
+    /**
+     * Number of Data in a batch passed to a shard.
+     */
+    private static final int BATCH = 1024;
+
+    /**
+     * Batch of items and their sequence numbers. Item i is items[i], or, when
+     * that is null, row i of block, which is made on first use.
+     */
+    private static class Batch {
+        Data[] items = new Data[BATCH];
+        DataBlock block = null;
+        long[] sequences = new long[BATCH];
+        int size = 0;
+    }
+
+    /**
+     * Parallel cumulation: shards, their threads and batches not yet passed
+     * to them; null when cumulating in the calling thread.
+     */
+    private Reporter[] shards = null;
+    private ExecutorService[] workers = null;
+    private Batch[] pending = null;
+
+    /**
+     * Whether this is a shard, which does not cumulate the bank level.
+     */
+    private final boolean shard;
+
+    /**
+     * Dictionary of the ids of all keys and cumulates, shared by shards.
+     */
+    private final Dictionary dictionary;
+
+    /**
+     * Exception that stopped cumulation of a shard.
+     */
+    private volatile RuntimeException failure = null;
+
+    /**
+     * Orders cumulates by the sequence number of their first Data.
+     */
+    private static final Comparator<ProdCumulate> FIRST = new Comparator<ProdCumulate>() {
+        @Override
+        public int compare(ProdCumulate a, ProdCumulate b) {
+            return Long.compare(a.first, b.first);
+        }
+    };
 
     /**
      * Folder for reports.
@@ -54,49 +184,60 @@ public class Reporter {
      * Constructor. Prepares private holders for data and statistics.
      */
     public Reporter() {
-        prod_client = new TreeMap<String, Data>();
-        products = new TreeMap<String, ProdCumulate>();
-        counterparts = new TreeMap<String, CtptCumulate>();
-        bank = new TreeMap<String, BankCumulate>();
+        this(new Dictionary(), false);
+    }
+
+    private Reporter(Dictionary dictionary, boolean shard) {
+        this.dictionary = dictionary;
+        this.shard = shard;
+        prod_client = new TreeMap<Key, Data>();
+        products = new TreeMap<Key, ProdCumulate>();
+        counterparts = new TreeMap<Key, CtptCumulate>();
+        bank = new TreeMap<Key, BankCumulate>();
+        prodClientIndex = new HashMap<Key, Data>();
+        counterpartIndex = new HashMap<Key, CtptCumulate>();
+        productIndex = new HashMap<Key, ProdCumulate>();
+        bankIndex = new HashMap<Key, BankCumulate>();
+    }
+
+    /**
+     * Returns the Dictionary of this Reporter. DataSources that Data is read
+     * from should be made with it.
+     * 
+     * @return Dictionary
+     */
+    public Dictionary getDictionary() {
+        return dictionary;
     }
 
     /**
      * Generates a default SortedMap key from String arguments.
      * 
      * @param strings
-     * @return Tab-delimited string of arguments.
+     * @return Key of dictionary ids of arguments.
      */
-    protected String key(String... strings) {
-        StringBuffer sb = new StringBuffer();
+    protected Key key(String... strings) {
+        int[] ids = new int[strings.length];
         for (int i = 0; i < strings.length; i++) {
-            if (i > 0)
-                sb.append("\t");
-            sb.append(strings[i]);
+            ids[i] = dictionary.id(strings[i]);
         }
-        return sb.toString();
+        return new Key(dictionary, ids);
     }
 
     /**
-     * Add Data object to corresponding SortedMap.
+     * Add Data object to corresponding map. Data is needed for product/client
+     * html reports; to save heap space without them, use setAggregatesOnly()
+     * instead of storing Data.
      * 
      * @param data
      * @param map
      */
-    protected void reportData(Data data, SortedMap<String, Data> map) {
-        String key = key(data.counterpart, data.product, data.client, data.date);
+    protected void reportData(Data data, Map<Key, Data> map) {
+        Key key = new Key(dictionary, data.counterpartId, data.productId,
+                data.clientId, data.dateId);
         Data olddata = map.get(key);
         if (olddata == null) {
-
-// IMPORTANT: USE ONLY ONE OF THE FOLOWING map.put LINES
-
-// the following line is required to generate product_client html reports
- map.put(key, data);
-
-// the following line is used just for bookkeeping of processed product_client items
-// no data is stored for product_client html reports
-// using this variant of map.put uses significantly less heap space
-//            map.put(key, null); // just bookkeeping, no data is saved for product_client html reports
-
+            map.put(key, data);
         } else {
 //           System.out
 //                    .println("RIM.Reporter.reportData: Duplicate data item, ignored: "
@@ -109,16 +250,32 @@ public class Reporter {
      * CtptCumulate Data into SortedMap products.
      * 
      * @param data
+     * @param p
+     * @param sequence
+     */
+    private CtptCumulate cumulateCounterpart(Data data, ProdCumulate p,
+            long sequence) {
+        CtptCumulate cumul = counterpartCumulate(data.counterpartId,
+                data.dateId);
+        cumul.cumulate(data, sequence);
+        cumul.addProduct(data.productId, p);
+        return cumul;
+    }
+
+    /**
+     * Get CtptCumulate of counterpart and date, adding an empty one if needed.
+     * 
+     * @param counterpartId
+     * @param dateId
+     * @return CtptCumulate
      */
-    private CtptCumulate cumulateCounterpart(Data data, ProdCumulate p) {
-        String key = key(data.counterpart, data.date);
-        CtptCumulate cumul = counterparts.get(key);
+    private CtptCumulate counterpartCumulate(int counterpartId, int dateId) {
+        Key key = new Key(dictionary, counterpartId, dateId);
+        CtptCumulate cumul = counterpartIndex.get(key);
         if (cumul == null) {
-            cumul = new CtptCumulate();
-            counterparts.put(key, cumul);
+            cumul = new CtptCumulate(dictionary);
+            counterpartIndex.put(key, cumul);
         }
-        cumul.cumulate(data);
-        cumul.addProduct(p);
         return cumul;
     }
 
@@ -126,15 +283,28 @@ public class Reporter {
      * ProdCumulate Data into SortedMap products.
      * 
      * @param data
+     * @param sequence
      */
-    private ProdCumulate cumulateProduct(Data data) {
-        String key = key(data.product, data.date);
-        ProdCumulate cumul = products.get(key);
+    private ProdCumulate cumulateProduct(Data data, long sequence) {
+        ProdCumulate cumul = productCumulate(data.productId, data.dateId);
+        cumul.cumulate(data, sequence);
+        return cumul;
+    }
+
+    /**
+     * Get ProdCumulate of product and date, adding an empty one if needed.
+     * 
+     * @param productId
+     * @param dateId
+     * @return ProdCumulate
+     */
+    private ProdCumulate productCumulate(int productId, int dateId) {
+        Key key = new Key(dictionary, productId, dateId);
+        ProdCumulate cumul = productIndex.get(key);
         if (cumul == null) {
-            cumul = new ProdCumulate();
-            products.put(key, cumul);
+            cumul = new ProdCumulate(dictionary);
+            productIndex.put(key, cumul);
         }
-        cumul.cumulate(data);
         return cumul;
     }
 
@@ -144,35 +314,522 @@ public class Reporter {
      * @param data
      */
     private BankCumulate cumulateBank(ProdCumulate prod, CtptCumulate ctpt) {
-        String key = key(prod.getDate());
-        BankCumulate cumul = bank.get(key);
+        BankCumulate cumul = bankCumulate(prod.getDateId());
+        cumul.cumulate(prod, ctpt);
+        return cumul;
+    }
+
+    /**
+     * Get BankCumulate of date, adding an empty one if needed.
+     * 
+     * @param dateId
+     * @return BankCumulate
+     */
+    private BankCumulate bankCumulate(int dateId) {
+        Key key = new Key(dictionary, dateId);
+        BankCumulate cumul = bankIndex.get(key);
         if (cumul == null) {
             cumul = new BankCumulate();
-            bank.put(key, cumul);
+            bankIndex.put(key, cumul);
         }
-        cumul.cumulate(prod, ctpt);
         return cumul;
     }
 
+    /**
+     * Set the number of threads used for cumulation. With more than one
+     * thread, Data is cumulated in parallel shards, which are merged by
+     * postCumulate(). Must be called before any Data is cumulated.
+     * 
+     * @param threads
+     *            Number of threads, at least 1.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(
+                    "Reporter.setThreads(): Number of threads must be positive");
+        }
+        if (sequence > 0 || prodClientIndex == null) {
+            throw new IllegalStateException(
+                    "Reporter.setThreads(): Data already cumulated");
+        }
+        if (threads == 1) {
+            shards = null;
+            workers = null;
+            pending = null;
+            return;
+        }
+        shards = new Reporter[threads];
+        workers = new ExecutorService[threads];
+        pending = new Batch[threads];
+        for (int i = 0; i < threads; i++) {
+            shards[i] = new Reporter(dictionary, true);
+            shards[i].setAggregatesOnly(aggregatesOnly);
+            if (spill != null) {
+                shards[i].setSpill(spill.dir(), spill.runSize());
+            }
+            workers[i] = Executors
+                    .newSingleThreadExecutor(new DaemonThreadFactory("Reporter"));
+            pending[i] = new Batch();
+        }
+    }
+
+    /**
+     * Set aggregates-only mode. In this mode, Data is not stored: only
+     * cumulates are kept, and duplicate Data is detected by fingerprints of
+     * keys (see FingerprintSet). Product/client reports are not made, and
+     * indexes list counterparts and products only. Must be called before any
+     * Data is cumulated.
+     * 
+     * @param aggregatesOnly
+     */
+    public void setAggregatesOnly(boolean aggregatesOnly) {
+        if (sequence > 0 || prodClientIndex == null) {
+            throw new IllegalStateException(
+                    "Reporter.setAggregatesOnly(): Data already cumulated");
+        }
+        this.aggregatesOnly = aggregatesOnly;
+        fingerprints = aggregatesOnly ? new FingerprintSet() : null;
+        if (shards != null) {
+            for (int i = 0; i < shards.length; i++) {
+                shards[i].setAggregatesOnly(aggregatesOnly);
+            }
+        }
+    }
+
+    /**
+     * Set spill mode. In this mode, product/client Data is not stored in
+     * memory, but written to sorted runs in temporary files, which are merged
+     * when making product/client reports and deleted afterwards. Duplicate
+     * Data is removed exactly while sorting and merging; duplicates found in
+     * the last merge are added to dupErrors by report(). Aggregates-only mode
+     * takes precedence. Must be called before any Data is cumulated.
+     * 
+     * @param dir
+     *            Folder for temporary files, null for the default one.
+     * @param runSize
+     *            Number of Data items in a run, at least 1.
+     */
+    public void setSpill(File dir, int runSize) {
+        if (sequence > 0 || prodClientIndex == null) {
+            throw new IllegalStateException(
+                    "Reporter.setSpill(): Data already cumulated");
+        }
+        spill = new DataSpill(dir, runSize, dictionary);
+        if (shards != null) {
+            for (int i = 0; i < shards.length; i++) {
+                shards[i].setSpill(dir, runSize);
+            }
+        }
+    }
+
+    /**
+     * Tell whether Reporter is in aggregates-only mode.
+     * 
+     * @return boolean
+     */
+    public boolean isAggregatesOnly() {
+        return aggregatesOnly;
+    }
+
     /**
      * Perform all operations of saving and cumulating a single Data object.
+     * Data not made with getDictionary() is cumulated as a copy interned in
+     * it.
      * 
      * @param data
      */
     public void cumulate(Data data) {
-        reportData(data, prod_client);
-        ProdCumulate p = cumulateProduct(data);
-        CtptCumulate c = cumulateCounterpart(data,p);
-        cumulateBank(p, c);
+        if (prodClientIndex == null) {
+            throw new IllegalStateException(
+                    "Reporter.cumulate(): Data cumulated after postCumulate()");
+        }
+        data = data.intern(dictionary);
+        if (shards == null) {
+            cumulate(data, sequence++);
+            return;
+        }
+        // partition by strings rather than ids, which may depend on the
+        // order of reading
+        int hash = 31 * data.product.hashCode() + data.date.hashCode();
+        int s = (hash & Integer.MAX_VALUE) % shards.length;
+        Batch batch = pending[s];
+        batch.items[batch.size] = data;
+        batch.sequences[batch.size] = sequence++;
+        if (++batch.size == BATCH) {
+            submit(s);
+        }
     }
 
     /**
-     * Perform post-cumulate operations.
+     * Save and cumulate a single Data object with a sequence number.
+     * 
+     * @param data
+     * @param sequence
+     */
+    private void cumulate(Data data, long sequence) {
+        if (aggregatesOnly) {
+            if (!fingerprints.add(data)) {
+                dupErrors++;
+            }
+        } else if (spill != null) {
+            try {
+                spill.add(data);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        } else {
+            reportData(data, prodClientIndex);
+        }
+        ProdCumulate p = cumulateProduct(data, sequence);
+        CtptCumulate c = cumulateCounterpart(data, p, sequence);
+        if (!shard) {
+            cumulateBank(p, c);
+        }
+    }
+
+    /**
+     * Save and cumulate row i of block with a sequence number, like
+     * cumulate(Data, long). A Data object is made only when the row is
+     * stored for product/client reports.
+     * 
+     * @param block
+     * @param i
+     * @param sequence
+     */
+    private void cumulate(DataBlock block, int i, long sequence) {
+        if (aggregatesOnly) {
+            if (!fingerprints.add(block, i)) {
+                dupErrors++;
+            }
+        } else if (spill != null) {
+            try {
+                spill.add(block.get(i));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        } else {
+            reportData(block.get(i), prodClientIndex);
+        }
+        ProdCumulate p = productCumulate(block.productId[i], block.dateId[i]);
+        p.cumulate(block, i, sequence);
+        CtptCumulate c = counterpartCumulate(block.counterpartId[i],
+                block.dateId[i]);
+        c.cumulate(block, i, sequence);
+        c.addProduct(block.productId[i], p);
+        if (!shard) {
+            cumulateBank(p, c);
+        }
+    }
+
+    /**
+     * Pass the pending batch of shard s to its thread.
+     * 
+     * @param s
+     */
+    private void submit(int s) {
+        final Reporter target = shards[s];
+        final Batch batch = pending[s];
+        pending[s] = new Batch();
+        if (target.failure != null) {
+            throw target.failure;
+        }
+        workers[s].execute(new Runnable() {
+            @Override
+            public void run() {
+                if (target.failure != null) {
+                    return;
+                }
+                try {
+                    for (int i = 0; i < batch.size; i++) {
+                        if (batch.items[i] != null) {
+                            target.cumulate(batch.items[i], batch.sequences[i]);
+                        } else {
+                            target.cumulate(batch.block, i, batch.sequences[i]);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    target.failure = e;
+                }
+            }
+        });
+    }
+
+    /**
+     * Wait for all shards and merge them into this Reporter. Shards are
+     * merged in a fixed order; the bank level is cumulated afterwards, with
+     * products and counterparts in the order of their first Data.
+     */
+    private void mergeShards() {
+        for (int s = 0; s < shards.length; s++) {
+            if (pending[s].size > 0) {
+                submit(s);
+            }
+            workers[s].shutdown();
+        }
+        try {
+            for (int s = 0; s < shards.length; s++) {
+                while (!workers[s].awaitTermination(1, TimeUnit.MINUTES)) {
+                    // keep waiting
+                }
+            }
+        } catch (InterruptedException e) {
+            for (int s = 0; s < shards.length; s++) {
+                workers[s].shutdownNow();
+            }
+            throw new IllegalStateException(
+                    "Reporter.postCumulate(): Interrupted");
+        }
+        for (int s = 0; s < shards.length; s++) {
+            if (shards[s].failure != null) {
+                throw shards[s].failure;
+            }
+        }
+
+        for (int s = 0; s < shards.length; s++) {
+            Reporter sh = shards[s];
+            dupErrors += sh.dupErrors;
+            if (spill != null) {
+                try {
+                    spill.addRuns(sh.spill);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            // shards hold different products, so these keys do not overlap
+            prodClientIndex.putAll(sh.prodClientIndex);
+            productIndex.putAll(sh.productIndex);
+            for (Map.Entry<Key, CtptCumulate> entry : sh.counterpartIndex
+                    .entrySet()) {
+                CtptCumulate cumul = counterpartIndex.get(entry.getKey());
+                if (cumul == null) {
+                    counterpartIndex.put(entry.getKey(), entry.getValue());
+                } else {
+                    cumul.merge(entry.getValue());
+                }
+            }
+        }
+
+        ArrayList<ProdCumulate> prods = new ArrayList<ProdCumulate>(
+                productIndex.values());
+        Collections.sort(prods, FIRST);
+        for (int i = 0; i < prods.size(); i++) {
+            ProdCumulate p = prods.get(i);
+            bankCumulate(p.getDateId()).addProduct(p);
+        }
+        ArrayList<CtptCumulate> ctpts = new ArrayList<CtptCumulate>(
+                counterpartIndex.values());
+        Collections.sort(ctpts, FIRST);
+        for (int i = 0; i < ctpts.size(); i++) {
+            CtptCumulate c = ctpts.get(i);
+            bankCumulate(c.getDateId()).addCounterpart(c);
+        }
+
+        shards = null;
+        workers = null;
+        pending = null;
+    }
+
+    /**
+     * Save and cumulate all valid rows of block, in order, like cumulate(Data)
+     * of each row. Cumulates are made from the columns of block; rows are
+     * made into Data objects only when stored for product/client reports.
+     * The ids of a block of another Dictionary are first interned in
+     * getDictionary(), in place.
+     * 
+     * @param block
+     */
+    public void cumulate(DataBlock block) {
+        if (prodClientIndex == null) {
+            throw new IllegalStateException(
+                    "Reporter.cumulate(): Data cumulated after postCumulate()");
+        }
+        if (block.dictionary != dictionary) {
+            intern(block);
+        }
+        for (int i = 0; i < block.size; i++) {
+            if (!block.valid[i]) {
+                continue;
+            }
+            if (shards == null) {
+                cumulate(block, i, sequence++);
+                continue;
+            }
+            // as in cumulate(Data), partition by strings
+            int hash = 31 * dictionary.get(block.productId[i]).hashCode()
+                    + dictionary.get(block.dateId[i]).hashCode();
+            int s = (hash & Integer.MAX_VALUE) % shards.length;
+            Batch batch = pending[s];
+            if (batch.block == null) {
+                batch.block = new DataBlock(BATCH, dictionary);
+            }
+            batch.block.set(batch.size, block, i);
+            batch.sequences[batch.size] = sequence++;
+            if (++batch.size == BATCH) {
+                submit(s);
+            }
+        }
+    }
+
+    /**
+     * Translate ids of valid rows of block to getDictionary(), which becomes
+     * the dictionary of block.
+     * 
+     * @param block
+     */
+    private void intern(DataBlock block) {
+        if (block.dictionary == null) {
+            throw new IllegalArgumentException(
+                    "Reporter.cumulate(): DataBlock without a Dictionary");
+        }
+        Dictionary from = block.dictionary;
+        for (int i = 0; i < block.size; i++) {
+            if (block.valid[i]) {
+                block.counterpartId[i] = dictionary.id(from
+                        .get(block.counterpartId[i]));
+                block.productId[i] = dictionary.id(from
+                        .get(block.productId[i]));
+                block.clientId[i] = dictionary.id(from.get(block.clientId[i]));
+                block.dateId[i] = dictionary.id(from.get(block.dateId[i]));
+            }
+        }
+        block.dictionary = dictionary;
+    }
+
+    /**
+     * Sort cumulated data into the SortedMaps used by reports. Keys are
+     * ordered as by Key.compareTo(), but compared by Dictionary ranks.
+     */
+    protected void sortCumulates() {
+        if (prodClientIndex == null) {
+            return;
+        }
+        if (shards != null) {
+            mergeShards();
+        }
+        Comparator<Key> order = Key.order(dictionary.ranks());
+        prod_client = sorted(prodClientIndex, order);
+        counterparts = sorted(counterpartIndex, order);
+        products = sorted(productIndex, order);
+        bank = sorted(bankIndex, order);
+        if (aggregatesOnly) {
+            pairs = new TreeSet<Key>(order);
+            for (ProdCumulate p : products.values()) {
+                for (int i = 0; i < p.getCounterpartCount(); i++) {
+                    pairs.add(key(p.getCounterpart(i), p.getProduct(0)));
+                }
+            }
+        }
+        if (spill != null) {
+            if (aggregatesOnly) {
+                spill.delete();
+            } else {
+                try {
+                    spill.finish();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        fingerprints = null;
+        prodClientIndex = null;
+        counterpartIndex = null;
+        productIndex = null;
+        bankIndex = null;
+    }
+
+    /**
+     * Returns the keys listed by indexes: keys of prod_client, or, in
+     * aggregates-only mode, (counterpart, product) keys without clients.
+     * 
+     * @return Iterable<Key>
+     */
+    protected Iterable<Key> indexKeys() {
+        if (pairs != null) {
+            return pairs;
+        }
+        if (spill != null) {
+            return new Iterable<Key>() {
+                @Override
+                public Iterator<Key> iterator() {
+                    final Iterator<Map.Entry<Key, Data>> it = spill.iterator();
+                    return new Iterator<Key>() {
+                        @Override
+                        public boolean hasNext() {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Key next() {
+                            return it.next().getKey();
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+            };
+        }
+        return prod_client.keySet();
+    }
+
+    /**
+     * Returns product/client Data with keys, in the order of keys: entries of
+     * prod_client, or, in spill mode, a merge of spilled runs, read anew by
+     * each iterator. Empty in aggregates-only mode.
+     * 
+     * @return Iterable<Map.Entry<Key, Data>>
+     */
+    protected Iterable<Map.Entry<Key, Data>> prodClientEntries() {
+        if (spill != null && !aggregatesOnly) {
+            return spill;
+        }
+        return prod_client.entrySet();
+    }
+
+    /**
+     * Returns the number of product/client Data items.
+     * 
+     * @return int
+     */
+    protected int prodClientCount() {
+        if (spill != null && !aggregatesOnly) {
+            return spill.size();
+        }
+        return prod_client.size();
+    }
+
+    /**
+     * Release product/client Data after reports: in spill mode, close
+     * iterators of prodClientEntries() that were not read to the end, add
+     * duplicates found by the last merge to dupErrors and delete the runs.
+     * Called at the end of report(), also when it fails.
+     */
+    protected void endReport() {
+        if (spill != null && !aggregatesOnly) {
+            spill.close();
+            dupErrors += spill.duplicates();
+            spill.delete();
+        }
+    }
+
+    private static <V> SortedMap<Key, V> sorted(Map<Key, V> map,
+            Comparator<Key> order) {
+        TreeMap<Key, V> result = new TreeMap<Key, V>(order);
+        result.putAll(map);
+        return result;
+    }
+
+    /**
+     * Perform post-cumulate operations. Cumulated data is sorted for reports
+     * first; no data can be cumulated afterwards.
      * 
      * @param data
      */
     public void postCumulate() {
-        for (SortedMap.Entry<String, BankCumulate> entry : bank.entrySet()) {
+        sortCumulates();
+        for (SortedMap.Entry<Key, BankCumulate> entry : bank.entrySet()) {
             BankCumulate b = entry.getValue();
             b.calcWeights();
         }
@@ -273,7 +930,7 @@ public class Reporter {
         HtmlWriter html = new HtmlWriter(bankFileName(), "Cumulative Bank Data");
         html.beginTable();
         html.writeHeadRow(BankCumulate.tabbedNames());
-        for (SortedMap.Entry<String, BankCumulate> entry : bank.entrySet()) {
+        for (SortedMap.Entry<Key, BankCumulate> entry : bank.entrySet()) {
             html.writeRow(entry.getValue().tabbedValues());
         }
         html.endTable();
@@ -288,9 +945,9 @@ public class Reporter {
     protected void reportCounterparts() throws IOException {
         HtmlWriter html = null;
         String counterpart = "";
-        for (SortedMap.Entry<String, CtptCumulate> entry : counterparts
+        for (SortedMap.Entry<Key, CtptCumulate> entry : counterparts
                 .entrySet()) {
-            String[] key = entry.getKey().split("\t");
+            String[] key = entry.getKey().strings();
             if (!counterpart.equals(key[0])) { // new counterpart
                 if (html != null) {
                     html.endTable();
@@ -320,8 +977,8 @@ public class Reporter {
     protected void reportProducts() throws IOException {
         HtmlWriter html = null;
         String product = "";
-        for (SortedMap.Entry<String, ProdCumulate> entry : products.entrySet()) {
-            String[] key = entry.getKey().split("\t");
+        for (SortedMap.Entry<Key, ProdCumulate> entry : products.entrySet()) {
+            String[] key = entry.getKey().strings();
             if (!product.equals(key[0])) { // new product
                 if (html != null) {
                     html.endTable();
@@ -353,8 +1010,8 @@ public class Reporter {
         String counterpart = "";
         String product = "";
         String client = "";
-        for (SortedMap.Entry<String, Data> entry : prod_client.entrySet()) {
-            String[] key = entry.getKey().split("\t");
+        for (Map.Entry<Key, Data> entry : prodClientEntries()) {
+            String[] key = entry.getKey().strings();
             if (!product.equals(key[0]) || !client.equals(key[1])) {
                 if (html != null) {
                     html.endTable();
@@ -393,8 +1050,8 @@ public class Reporter {
         String counterpart = "";
         String product = "";
         String client = "";
-        for (SortedMap.Entry<String, Data> entry : prod_client.entrySet()) {
-            String[] key = entry.getKey().split("\t");
+        for (Key k : indexKeys()) {
+            String[] key = k.strings();
 
             if (!counterpart.equals(key[0])) {
                 if (client != "") {
@@ -429,12 +1086,14 @@ public class Reporter {
                 index.write(HtmlWriter.embed("li",
                         HtmlWriter.href(pFileName(product), product))
                         + "\n");
-                index.write("<ul>\n");
-                client = key[2];
-                index.write(HtmlWriter.embed("li", HtmlWriter.href(
-                        pcFileName(counterpart, product, client), client))
-                        + "\n");
-            } else if (!client.equals(key[2])) { // new client
+                if (key.length > 2) {
+                    index.write("<ul>\n");
+                    client = key[2];
+                    index.write(HtmlWriter.embed("li", HtmlWriter.href(
+                            pcFileName(counterpart, product, client), client))
+                            + "\n");
+                }
+            } else if (key.length > 2 && !client.equals(key[2])) { // new client
                 client = key[2];
                 index.write(HtmlWriter.embed("li", HtmlWriter.href(
                         pcFileName(counterpart, product, client), client))
@@ -466,12 +1125,16 @@ public class Reporter {
             URISyntaxException {
         this.rptDirName = rptDirName;
         System.out.println("Writing reports to " + rptDirName);
-        prepareDir();
-        reportBank();
-        reportProductsClients();
-        reportProducts();
-        reportCounterparts();
-        reportIndex();
+        try {
+            prepareDir();
+            reportBank();
+            reportProductsClients();
+            reportProducts();
+            reportCounterparts();
+            reportIndex();
+        } finally {
+            endReport();
+        }
         System.out.println("Invoking browser");
         //java.awt.Desktop.getDesktop().browse(
           //      new URI("file:///" + indexFileName()));
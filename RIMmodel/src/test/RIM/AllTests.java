@@ -0,0 +1,24 @@
+package test.RIM;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * All RIM tests.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+public class AllTests {
+
+    public static Test suite() {
+        TestSuite suite = new TestSuite("Test for test.RIM");
+
+        suite.addTestSuite(DataSourceTest.class);
+        suite.addTestSuite(ReporterTest.class);
+
+        return suite;
+    }
+
+}
@@ -0,0 +1,135 @@
+package test.RIM;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import eu.first.RIM.DelimitedFileDataSource;
+import eu.first.RIM.Dictionary;
+import eu.first.RIM.MappedFileDataSource;
+import eu.first.RIM.ParallelFileDataSource;
+import eu.first.RIM.PipelineDataSource;
+
+/**
+ * Tests that MappedFileDataSource, ParallelFileDataSource and
+ * PipelineDataSource read the same rows, errors and line numbers as
+ * DelimitedFileDataSource. Sample.txt has malformed numbers, short lines,
+ * CRLF line ends and duplicate keys.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+public class DataSourceTest extends TestCase {
+
+    public void testMapped() throws IOException {
+        String file = Utils.path("Sample.txt");
+        List<String> expected = Utils.readItems(new DelimitedFileDataSource(
+                file));
+        assertEquals(expected,
+                Utils.readItems(new MappedFileDataSource(file)));
+        assertEquals(expected,
+                Utils.readBlocks(new MappedFileDataSource(file), 7));
+    }
+
+    public void testParallel() throws IOException {
+        String file = Utils.path("Sample.txt");
+        List<String> expected = Utils.readItems(new DelimitedFileDataSource(
+                file));
+        assertEquals(expected, Utils.readItems(new ParallelFileDataSource(
+                file, '\t', 2)));
+        assertEquals(expected, Utils.readBlocks(new ParallelFileDataSource(
+                file, '\t', 2), 7));
+    }
+
+    public void testBlocks() throws IOException {
+        String file = Utils.path("Sample.txt");
+        assertEquals(Utils.readItems(new DelimitedFileDataSource(file)),
+                Utils.readBlocks(new DelimitedFileDataSource(file), 7));
+    }
+
+    public void testErrors() throws IOException {
+        List<String> records = Utils.readItems(new MappedFileDataSource(Utils
+                .path("Sample.txt")));
+        int errors = 0;
+        for (String record : records) {
+            if (record.contains(": error ")) {
+                errors++;
+            }
+        }
+        assertTrue(errors > 0);
+        assertTrue(errors < records.size());
+        assertTrue(records.get(0).startsWith("3: "));
+    }
+
+    public void testParallelChunks() throws IOException {
+        // large enough for several chunks, so that lines straddle chunk ends
+        File file = repeat(Utils.path("Sample.txt"), 160);
+        try {
+            String name = file.getPath();
+            List<String> expected = Utils.readItems(new DelimitedFileDataSource(
+                    name));
+            assertEquals(expected, Utils.readBlocks(new ParallelFileDataSource(
+                    name, '\t', 16), 1000));
+            assertEquals(expected, Utils.readItems(new MappedFileDataSource(
+                    name)));
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testPipeline() throws IOException {
+        String file = Utils.path("Sample.txt");
+        List<String> expected = Utils.readItems(new DelimitedFileDataSource(
+                file));
+        expected.addAll(expected);
+        expected.addAll(expected);
+        String[] files = { file, file, file, file };
+        Dictionary dictionary = new Dictionary();
+        assertEquals(expected, Utils.readItems(new PipelineDataSource(files,
+                3, 5, 2, dictionary)));
+        assertEquals(expected, Utils.readBlocks(new PipelineDataSource(files,
+                2, 64, 1), 100));
+    }
+
+    /**
+     * Writes a temporary file with the head of file and its data lines
+     * repeated count times.
+     */
+    private static File repeat(String fileName, int count) throws IOException {
+        StringBuilder head = new StringBuilder();
+        StringBuilder body = new StringBuilder();
+        BufferedReader in = new BufferedReader(new InputStreamReader(
+                new FileInputStream(fileName), "ISO-8859-1"));
+        try {
+            head.append(in.readLine()).append('\n');
+            head.append(in.readLine()).append('\n');
+            String line;
+            while ((line = in.readLine()) != null) {
+                body.append(line).append('\n');
+            }
+        } finally {
+            in.close();
+        }
+        File file = File.createTempFile("RIMtest", ".txt");
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(head.toString().getBytes("ISO-8859-1"));
+            byte[] bytes = body.toString().getBytes("ISO-8859-1");
+            for (int i = 0; i < count; i++) {
+                out.write(bytes);
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+}
@@ -0,0 +1,131 @@
+package test.RIM;
+
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import eu.first.RIM.Data;
+import eu.first.RIM.DataBlock;
+import eu.first.RIM.DataSource;
+import eu.first.RIM.DelimitedFileDataSource;
+import eu.first.RIM.MappedFileDataSource;
+import eu.first.RIM.ModelRIM;
+
+/**
+ * Tests that Reporter cumulates the same in all modes: Data and blocks, one
+ * thread and several, Data kept in memory and spilled to temporary files.
+ * Sample.txt has duplicate keys, some with different values, so that keeping
+ * the first of duplicates is tested too.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+public class ReporterTest extends TestCase {
+
+    private static ModelRIM rim = null;
+
+    /**
+     * Cumulates Sample.txt twice by blocks.
+     */
+    private static List<String> cumulate(Utils.SnapshotReporter rpt)
+            throws IOException {
+        if (rim == null) {
+            rim = new ModelRIM();
+        }
+        for (int k = 0; k < 2; k++) {
+            DataSource source = new MappedFileDataSource(
+                    Utils.path("Sample.txt"), rpt.getDictionary());
+            DataBlock block = new DataBlock(50);
+            while (source.nextBatch(block) > 0) {
+                rim.evaluate(block);
+                rpt.cumulate(block);
+            }
+        }
+        return rpt.snapshot();
+    }
+
+    private static Utils.SnapshotReporter reporter(int threads,
+            boolean aggregates, int spill) {
+        Utils.SnapshotReporter rpt = new Utils.SnapshotReporter();
+        rpt.setThreads(threads);
+        rpt.setAggregatesOnly(aggregates);
+        if (spill > 0) {
+            rpt.setSpill(null, spill);
+        }
+        return rpt;
+    }
+
+    public void testDuplicates() throws IOException {
+        List<String> snapshot = cumulate(reporter(1, false, 0));
+        int data = 0;
+        for (String line : snapshot) {
+            if (line.startsWith("data ")) {
+                data++;
+            }
+        }
+        // Sample.txt twice: each valid key is kept once, the rest counted
+        assertTrue(data > 100);
+        assertEquals("duplicates " + (2 * valid() - data),
+                snapshot.get(snapshot.size() - 1));
+    }
+
+    /**
+     * Number of valid rows of Sample.txt.
+     */
+    private static int valid() throws IOException {
+        int valid = 0;
+        for (String record : Utils.readItems(new MappedFileDataSource(Utils
+                .path("Sample.txt")))) {
+            if (!record.contains(": error ")) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    public void testData() throws IOException {
+        if (rim == null) {
+            rim = new ModelRIM();
+        }
+        // Data of a source with a dictionary of its own
+        Utils.SnapshotReporter rpt = reporter(1, false, 0);
+        for (int k = 0; k < 2; k++) {
+            DataSource source = new DelimitedFileDataSource(
+                    Utils.path("Sample.txt"));
+            while (source.hasNext()) {
+                Data data = source.getNext();
+                if (data != null) {
+                    rim.evaluateProductClient(data);
+                    rpt.cumulate(data);
+                }
+            }
+        }
+        assertEquals(cumulate(reporter(1, false, 0)), rpt.snapshot());
+    }
+
+    public void testThreads() throws IOException {
+        List<String> expected = cumulate(reporter(1, false, 0));
+        Utils.assertSimilar(expected, cumulate(reporter(2, false, 0)));
+        Utils.assertSimilar(expected, cumulate(reporter(5, false, 0)));
+    }
+
+    public void testAggregatesThreads() throws IOException {
+        List<String> expected = cumulate(reporter(1, true, 0));
+        Utils.assertSimilar(expected, cumulate(reporter(3, true, 0)));
+    }
+
+    public void testSpill() throws IOException {
+        List<String> expected = cumulate(reporter(1, false, 0));
+        // small runs, so that duplicates meet in merges rather than in runs
+        assertEquals(expected, cumulate(reporter(1, false, 16)));
+        assertEquals(expected, cumulate(reporter(1, false, 1)));
+    }
+
+    public void testSpillThreads() throws IOException {
+        List<String> expected = cumulate(reporter(1, false, 0));
+        Utils.assertSimilar(expected, cumulate(reporter(3, false, 16)));
+    }
+
+}
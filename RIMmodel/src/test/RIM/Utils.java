@@ -0,0 +1,208 @@
+package test.RIM;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import eu.first.RIM.BankCumulate;
+import eu.first.RIM.CtptCumulate;
+import eu.first.RIM.Data;
+import eu.first.RIM.DataBlock;
+import eu.first.RIM.DataSource;
+import eu.first.RIM.Key;
+import eu.first.RIM.ProdCumulate;
+import eu.first.RIM.Reporter;
+
+/**
+ * Helpers shared by RIM tests: test files, records of what a DataSource
+ * reads and snapshots of what a Reporter cumulates.
+ *
+ * @version 1.0
+ * @since 2026-10-18
+ *
+ */
+public class Utils {
+
+    /**
+     * Returns the path of a test file in this package.
+     *
+     * @param name
+     *            file name relative to this package
+     * @return path
+     * @throws IOException
+     *             if the file is missing
+     */
+    public static String path(String name) throws IOException {
+        URL url = Utils.class.getResource(name);
+        if (url == null) {
+            throw new FileNotFoundException("Utils: Missing test file " + name);
+        }
+        try {
+            return new File(url.toURI()).getPath();
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Returns all input variables of data as a string, with exact numbers.
+     *
+     * @param data
+     * @return String
+     */
+    public static String inputs(Data data) {
+        return data.counterpart + "\t" + data.product + "\t" + data.client
+                + "\t" + data.date + "\t" + data.Slp + "\t" + data.Ssp + "\t"
+                + data.TN + "\t" + data.TA + "\t" + data.SRI + "\t" + data.Np
+                + "\t" + data.Vp + "\t" + data.RP + "\t" + data.V1 + "\t"
+                + data.Vc + "\t" + data.PP + "\t" + data.BP + "\t" + data.dB
+                + "\t" + data.P;
+    }
+
+    /**
+     * Reads source to the end by getNext(), recording the line number and
+     * either the inputs or the error of each item.
+     *
+     * @param source
+     * @return one record per item
+     * @throws IOException
+     */
+    public static List<String> readItems(DataSource source) throws IOException {
+        List<String> records = new ArrayList<String>();
+        while (source.hasNext()) {
+            Data data = source.getNext();
+            if (data != null) {
+                records.add(source.getLineNumber() + ": " + inputs(data));
+            } else {
+                records.add(source.getLineNumber() + ": error "
+                        + source.getLastErrorColumn() + " "
+                        + source.getLastError() + " | "
+                        + source.getLastErrorLine());
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Reads source to the end by nextBatch(), recording rows like
+     * readItems().
+     *
+     * @param source
+     * @param capacity
+     *            capacity of the block
+     * @return one record per row
+     * @throws IOException
+     */
+    public static List<String> readBlocks(DataSource source, int capacity)
+            throws IOException {
+        List<String> records = new ArrayList<String>();
+        DataBlock block = new DataBlock(capacity);
+        while (source.nextBatch(block) > 0) {
+            for (int i = 0; i < block.size; i++) {
+                if (block.valid[i]) {
+                    records.add(block.lineNumber[i] + ": "
+                            + inputs(block.get(i)));
+                } else {
+                    records.add(block.lineNumber[i] + ": error "
+                            + block.errorColumn[i] + " " + block.error[i]
+                            + " | " + block.errorLine[i]);
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Reporter that lists everything it has cumulated.
+     */
+    public static class SnapshotReporter extends Reporter {
+
+        /**
+         * Sorts cumulates and returns product/client Data, product,
+         * counterpart and bank cumulates and the number of duplicates, one
+         * line each, in the order of keys.
+         *
+         * @return snapshot
+         */
+        public List<String> snapshot() {
+            postCumulate();
+            List<String> lines = new ArrayList<String>();
+            try {
+                for (Map.Entry<Key, Data> entry : prodClientEntries()) {
+                    lines.add("data " + key(entry.getKey()) + "\t"
+                            + entry.getValue().tabbedValues());
+                }
+            } finally {
+                endReport();
+            }
+            for (Map.Entry<Key, ProdCumulate> entry : products.entrySet()) {
+                lines.add("product " + key(entry.getKey()) + "\t"
+                        + entry.getValue().tabbedValues());
+            }
+            for (Map.Entry<Key, CtptCumulate> entry : counterparts.entrySet()) {
+                lines.add("counterpart " + key(entry.getKey()) + "\t"
+                        + entry.getValue().tabbedValues());
+            }
+            for (Map.Entry<Key, BankCumulate> entry : bank.entrySet()) {
+                lines.add("bank " + key(entry.getKey()) + "\t"
+                        + entry.getValue().tabbedValues());
+            }
+            lines.add("duplicates " + dupErrors);
+            return lines;
+        }
+
+        private static String key(Key key) {
+            StringBuilder sb = new StringBuilder();
+            for (String s : key.strings()) {
+                sb.append(s).append('/');
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Asserts that snapshots are equal, except for numbers that differ at
+     * most by one unit in their last decimal, as sums added in a different
+     * order may.
+     *
+     * @param expected
+     * @param actual
+     */
+    public static void assertSimilar(List<String> expected, List<String> actual) {
+        Assert.assertEquals("Number of lines", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            String[] e = expected.get(i).split("\t", -1);
+            String[] a = actual.get(i).split("\t", -1);
+            Assert.assertEquals(expected.get(i), e.length, a.length);
+            for (int j = 0; j < e.length; j++) {
+                if (!e[j].equals(a[j]) && !close(e[j], a[j])) {
+                    Assert.assertEquals(expected.get(i), actual.get(i));
+                }
+            }
+        }
+    }
+
+    private static boolean close(String e, String a) {
+        e = e.trim().replace(',', '.');
+        a = a.trim().replace(',', '.');
+        double x, y;
+        try {
+            x = Double.parseDouble(e);
+            y = Double.parseDouble(a);
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+        int dot = e.indexOf('.');
+        int decimals = dot < 0 ? 0 : e.length() - dot - 1;
+        return Math.abs(x - y) <= 1.5 * Math.pow(10, -decimals) + 1e-9
+                * Math.abs(x);
+    }
+
+}